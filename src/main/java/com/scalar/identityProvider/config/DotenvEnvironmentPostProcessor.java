@@ -0,0 +1,71 @@
+package com.scalar.identityProvider.config;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Load environment variables from the .env file as a low precedence property source.
+ * The file is only read when one of the variables referenced by application.properties is
+ * missing, so deployments that provide real environment variables skip it entirely.
+ */
+public class DotenvEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    /*
+     * Variables referenced by application.properties without a default value
+     */
+    private static final List<String> REQUIRED_VARIABLES = List.of(
+            "APP_NAME",
+            "SERVER_PORT",
+            "DATABASE_HOST",
+            "DATABASE_PORT",
+            "DATABASE_NAME",
+            "JWT_SECRET",
+            "JWT_EXPIRATION",
+            "CLIENT_SECRET_KEY"
+    );
+
+    private static final String PROPERTY_SOURCE_NAME = "dotenv";
+
+    private final Log logger;
+
+    public DotenvEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.logger = logFactory.getLog(DotenvEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (REQUIRED_VARIABLES.stream().allMatch(environment::containsProperty)) {
+            return;
+        }
+        if (!Files.isRegularFile(Path.of(".env"))) {
+            return;
+        }
+
+        Map<String, Object> entries = new HashMap<>();
+        Dotenv.configure().ignoreIfMissing().load()
+                .entries(Dotenv.Filter.DECLARED_IN_ENV_FILE)
+                .forEach(entry -> entries.put(entry.getKey(), entry.getValue()));
+
+        // Real environment variables and system properties keep precedence over the file
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, entries));
+        logger.info("Environment variables loaded from .env file");
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
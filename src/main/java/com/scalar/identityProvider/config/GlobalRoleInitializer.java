@@ -2,22 +2,111 @@ package com.scalar.identityProvider.config;
 
 import com.scalar.identityProvider.services.GlobalRoleService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
 /**
- * Component to initialize global roles when starting the application.
+ * Component to initialize global roles, verify indexes and backfill document versions when
+ * starting the application.
+ * The work is started as soon as all singletons exist, so it overlaps with the rest of the
+ * startup (web server, runners), and is awaited before the application reports ready.
  */
 @Component
-public class GlobalRoleInitializer implements CommandLineRunner {
+public class GlobalRoleInitializer implements SmartInitializingSingleton, CommandLineRunner, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalRoleInitializer.class);
 
     @Autowired
     private GlobalRoleService globalRoleService;
 
+    // Absent in the inmemory profile, whose repositories keep their own indexes
+    @Autowired(required = false)
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired(required = false)
+    private MongoVersionBackfill mongoVersionBackfill;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private CompletableFuture<Void> initialization;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (mongoIndexInitializer == null) {
+            initialization = CompletableFuture.runAsync(() -> {
+                int inserted = timedCall("global role seeding", globalRoleService::initializeGlobalRoles);
+                logger.info("Global roles initialized successfully ({} inserted)", inserted);
+            }, executor);
+            return;
+        }
+
+        // Role seeding depends on the unique name index, the other indexes are independent
+        CompletableFuture<Void> roles = CompletableFuture
+                .runAsync(() -> timed("global role index verification", mongoIndexInitializer::ensureGlobalRoleIndexes), executor)
+                .thenRun(() -> {
+                    int inserted = timedCall("global role seeding", globalRoleService::initializeGlobalRoles);
+                    logger.info("Global roles initialized successfully ({} inserted)", inserted);
+                });
+        CompletableFuture<Void> indexes = CompletableFuture
+                .runAsync(() -> timed("tenant index verification", mongoIndexInitializer::ensureTenantIndexes), executor);
+
+        // Legacy documents need a version before any request can load and save them
+        CompletableFuture<Void> versions = CompletableFuture.runAsync(() -> {
+            long updated = timedCall("document version backfill", mongoVersionBackfill::backfillVersions);
+            logger.info("Document versions backfilled ({} updated)", updated);
+        }, executor);
+
+        initialization = CompletableFuture.allOf(roles, indexes, versions);
+    }
+
     @Override
     public void run(String... args) throws Exception {
-        globalRoleService.initializeGlobalRoles();
-        IO.println("Global roles initialized successfully");
+        long start = System.nanoTime();
+        initialization.join();
+        logger.info("Startup initialization awaited for {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a startup step and log how long it took.
+     *
+     * @param step The name of the step.
+     * @param task The step to run.
+     */
+    private void timed(String step, Runnable task) {
+        timedCall(step, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run a startup step and log how long it took.
+     *
+     * @param step The name of the step.
+     * @param task The step to run.
+     * @return The result of the step.
+     */
+    private <T> T timedCall(String step, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            logger.info("Startup step '{}' took {} ms", step, (System.nanoTime() - start) / 1_000_000);
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.scalar.identityProvider.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson modules added to the auto-configured ObjectMapper used by Spring MVC.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replace reflective getter, setter and constructor calls with generated lambdas
+     * (LambdaMetafactory) for every type without a dedicated serializer.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
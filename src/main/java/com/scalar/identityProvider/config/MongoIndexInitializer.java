@@ -0,0 +1,143 @@
+package com.scalar.identityProvider.config;
+
+import com.scalar.identityProvider.models.ApiKey;
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.OpaqueSession;
+import com.scalar.identityProvider.models.OpaqueSessionRevocation;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.ServiceClient;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.models.TenantTeardownJob;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Component to verify the indexes backing the repository queries.
+ * Creating an index that already exists is a no-op on the server, so every instance can
+ * run this at startup.
+ */
+@Component
+@Profile("!inmemory")
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TenantMongoTemplates tenantMongoTemplates;
+
+    /**
+     * Ensure the unique index on global role names. Seeding relies on it to stay
+     * duplicate-free when several instances start at the same time.
+     */
+    public void ensureGlobalRoleIndexes() {
+        ensureIndex(mongoTemplate, GlobalRole.class, new Index().on("name", Sort.Direction.ASC).unique());
+    }
+
+    /**
+     * Ensure the indexes of the tenant scoped collections, in the pooled database and in every
+     * dedicated storage target.
+     */
+    public void ensureTenantIndexes() {
+        ensureIndex(mongoTemplate, Tenant.class, new Index().on("tenantId", Sort.Direction.ASC).unique());
+        ensureIndex(mongoTemplate, Tenant.class, new Index().on("name", Sort.Direction.ASC));
+
+        for (MongoTemplate template : tenantMongoTemplates.all()) {
+            ensureTenantOwnedIndexes(template);
+        }
+
+        ensureIndex(mongoTemplate, UserTenantRole.class, new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("tenantId", Sort.Direction.ASC)
+                .unique());
+        ensureIndex(mongoTemplate, UserTenantRole.class, new Index().on("tenantId", Sort.Direction.ASC));
+
+        ensureIndex(mongoTemplate, TenantTeardownJob.class, new Index().on("tenantId", Sort.Direction.ASC).unique());
+
+        ensureIndex(mongoTemplate, ServiceClient.class, new Index().on("clientId", Sort.Direction.ASC).unique());
+        ensureIndex(mongoTemplate, ServiceClient.class, new Index().on("tenantId", Sort.Direction.ASC));
+
+        ensureIndex(mongoTemplate, ApiKey.class, new Index().on("prefix", Sort.Direction.ASC).unique());
+        ensureIndex(mongoTemplate, ApiKey.class, new Index().on("tenantId", Sort.Direction.ASC));
+
+        // Opaque sessions are removed by MongoDB as soon as they expire
+        ensureIndex(mongoTemplate, OpaqueSession.class, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+        ensureIndex(mongoTemplate, OpaqueSession.class, new Index().on("tenantId", Sort.Direction.ASC));
+
+        // Revocations are polled by time and kept until the sessions they revoke have expired
+        ensureIndex(mongoTemplate, OpaqueSessionRevocation.class, new Index().on("revokedAt", Sort.Direction.ASC));
+        ensureIndex(mongoTemplate, OpaqueSessionRevocation.class,
+                new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+
+        // Route acknowledgements of instances that stopped without removing theirs
+        ensureIndex(mongoTemplate, TenantRouteSynchronizer.ACKS_COLLECTION,
+                new Index().on("seenAt", Sort.Direction.ASC).expire(Duration.ofDays(1)));
+    }
+
+    /**
+     * Ensure the indexes of the collections that move with a tenant between storage targets.
+     *
+     * @param template The template of the storage target.
+     */
+    public void ensureTenantOwnedIndexes(MongoTemplate template) {
+        ensureIndex(template, User.class, new Index()
+                .on("username", Sort.Direction.ASC)
+                .on("tenantId", Sort.Direction.ASC)
+                .unique());
+        ensureIndex(template, User.class, new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("tenantId", Sort.Direction.ASC));
+        ensureIndex(template, User.class, new Index().on("tenantId", Sort.Direction.ASC));
+
+        ensureIndex(template, Role.class, new Index()
+                .on("name", Sort.Direction.ASC)
+                .on("tenantId", Sort.Direction.ASC)
+                .unique());
+    }
+
+    /**
+     * Create an index, logging instead of failing when existing data violates it.
+     *
+     * @param template The template of the database holding the collection.
+     * @param entityClass The entity whose collection is indexed.
+     * @param index The index definition.
+     */
+    private void ensureIndex(MongoTemplate template, Class<?> entityClass, Index index) {
+        try {
+            template.indexOps(entityClass).ensureIndex(index);
+        } catch (DataAccessException e) {
+            logger.warn("Could not ensure index {} on {}: {}",
+                    index.getIndexKeys().toJson(), entityClass.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Create an index on a collection without an entity class, logging instead of failing.
+     *
+     * @param template The template of the database holding the collection.
+     * @param collectionName The collection name.
+     * @param index The index definition.
+     */
+    private void ensureIndex(MongoTemplate template, String collectionName, Index index) {
+        try {
+            template.indexOps(collectionName).ensureIndex(index);
+        } catch (DataAccessException e) {
+            logger.warn("Could not ensure index {} on {}: {}",
+                    index.getIndexKeys().toJson(), collectionName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.scalar.identityProvider.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.scalar.identityProvider.metrics.MongoCommandMetrics;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+/**
+ * Replace the auto-configured MongoDatabaseFactory with the tenant routing one.
+ * The auto-configured MongoClient, MongoTemplate and repositories are kept and use it.
+ */
+@Configuration
+@Profile("!inmemory")
+@EnableConfigurationProperties(TenantRoutingProperties.class)
+public class MongoRoutingConfig {
+
+    /**
+     * Register the command and connection pool metrics and the command spans on the auto-configured client.
+     * The context provider hands the current observation to the driver so each command span is a child
+     * of the repository call that issued it.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoInstrumentationCustomizer(MongoCommandMetrics mongoCommandMetrics,
+            ObservationRegistry observationRegistry,
+            @Value("${spring.data.mongodb.uri}") String uri) {
+        MongoObservationCommandListener observationListener =
+                new MongoObservationCommandListener(observationRegistry, new ConnectionString(uri));
+        return builder -> builder
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .addCommandListener(observationListener)
+                .addCommandListener(mongoCommandMetrics)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(mongoCommandMetrics));
+    }
+
+    @Bean
+    public TenantRoutingMongoDatabaseFactory mongoDatabaseFactory(MongoClient mongoClient,
+            @Value("${spring.data.mongodb.uri}") String uri,
+            TenantRoutingProperties properties,
+            @Qualifier("mongoInstrumentationCustomizer") MongoClientSettingsBuilderCustomizer mongoInstrumentationCustomizer) {
+        TenantRoutingMongoDatabaseFactory factory =
+                new TenantRoutingMongoDatabaseFactory(mongoClient, new ConnectionString(uri).getDatabase(), properties);
+        // Clients of the dedicated targets get the same listeners and spans
+        factory.setClientSettingsCustomizer(mongoInstrumentationCustomizer);
+        return factory;
+    }
+}
@@ -0,0 +1,73 @@
+package com.scalar.identityProvider.config;
+
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component to backfill the optimistic lock version of documents written before the entities
+ * had one. Spring Data treats an entity with a null version as new, so saving such a document
+ * after loading it would insert it again and fail with a duplicate key. Only documents without
+ * the field are touched, so every instance can run this at startup.
+ */
+@Component
+@Profile("!inmemory")
+public class MongoVersionBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoVersionBackfill.class);
+
+    static final Query UNVERSIONED = Query.query(Criteria.where("version").exists(false));
+
+    static final Update INITIAL_VERSION = new Update().set("version", 0L);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TenantMongoTemplates tenantMongoTemplates;
+
+    /**
+     * Set version 0 on the users of every storage target and on the tenant role assignments
+     * that have no version yet.
+     *
+     * @return The number of documents updated.
+     */
+    public long backfillVersions() {
+        long updated = 0;
+        for (MongoTemplate template : tenantMongoTemplates.all()) {
+            updated += backfill(template, User.class);
+        }
+        updated += backfill(mongoTemplate, UserTenantRole.class);
+        return updated;
+    }
+
+    /**
+     * Backfill one collection, logging instead of failing so startup can go on.
+     *
+     * @param template The template of the database holding the collection.
+     * @param entityClass The entity whose collection is backfilled.
+     * @return The number of documents updated.
+     */
+    private long backfill(MongoTemplate template, Class<?> entityClass) {
+        try {
+            long updated = template.updateMulti(UNVERSIONED, INITIAL_VERSION, entityClass).getModifiedCount();
+            if (updated > 0) {
+                logger.info("Backfilled version 0 on {} {} documents", updated, entityClass.getSimpleName());
+            }
+            return updated;
+        } catch (DataAccessException e) {
+            logger.warn("Could not backfill versions on {}: {}", entityClass.getSimpleName(), e.getMessage());
+            return 0;
+        }
+    }
+}
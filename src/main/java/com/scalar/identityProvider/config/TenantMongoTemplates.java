@@ -0,0 +1,91 @@
+package com.scalar.identityProvider.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached MongoTemplates bound to one storage target each, for work that must address a target
+ * explicitly instead of following the tenant context: queries across all tenants and tenant
+ * migrations.
+ */
+@Component
+@Profile("!inmemory")
+public class TenantMongoTemplates {
+
+    private static final String POOLED = "";
+
+    @Autowired
+    private TenantRoutingMongoDatabaseFactory routingFactory;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, MongoTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Get the template of a storage target.
+     *
+     * @param target The target name, or null for the pooled database.
+     * @return The template bound to that target.
+     */
+    public MongoTemplate forTarget(String target) {
+        return templates.computeIfAbsent(target == null ? POOLED : target,
+                name -> new MongoTemplate(routingFactory.targetFactory(target), mongoTemplate.getConverter()));
+    }
+
+    /**
+     * Get the templates of the pooled database followed by every dedicated target.
+     *
+     * @return The templates.
+     */
+    public List<MongoTemplate> all() {
+        List<MongoTemplate> all = new ArrayList<>();
+        all.add(forTarget(null));
+        routingFactory.getTargetNames().forEach(target -> all.add(forTarget(target)));
+        return all;
+    }
+
+    /**
+     * Run a query on the pooled database and every dedicated target.
+     *
+     * @param query The query.
+     * @param entityClass The entity class.
+     * @return The merged results.
+     */
+    public <T> List<T> findAcrossTargets(Query query, Class<T> entityClass) {
+        if (routingFactory.getTargetNames().isEmpty()) {
+            return forTarget(null).find(query, entityClass);
+        }
+        List<T> results = new ArrayList<>();
+        for (MongoTemplate template : all()) {
+            results.addAll(template.find(query, entityClass));
+        }
+        return results;
+    }
+
+    /**
+     * Find a document by ID on the pooled database and every dedicated target.
+     *
+     * @param id The document ID.
+     * @param entityClass The entity class.
+     * @return An Optional containing the first document found.
+     */
+    public <T> Optional<T> findByIdAcrossTargets(String id, Class<T> entityClass) {
+        for (MongoTemplate template : all()) {
+            T entity = template.findById(id, entityClass);
+            if (entity != null) {
+                return Optional.of(entity);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,168 @@
+package com.scalar.identityProvider.config;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+
+import jakarta.annotation.PostConstruct;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tenant routes of every instance in step with the storage targets persisted on the
+ * tenant documents.
+ * <p>
+ * A route change (migration or teardown) persists the route and then bumps a shared route
+ * version. Every instance reloads the routes every {@code tenantRouteRefreshIntervalMs} and
+ * acknowledges the version it read before reloading in the {@code tenant_route_acks}
+ * collection. Once every live instance (one that acknowledged within three intervals) has
+ * acknowledged a version, none of them routes the tenant to the previous target any more, so
+ * data left there can be deleted.
+ */
+@Component
+@Profile("!inmemory")
+public class TenantRouteSynchronizer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantRouteSynchronizer.class);
+
+    static final String STATE_COLLECTION = "tenant_route_state";
+
+    static final String ACKS_COLLECTION = "tenant_route_acks";
+
+    private static final String STATE_ID = "routes";
+
+    private static final int LIVENESS_INTERVALS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TenantRoutingMongoDatabaseFactory routingFactory;
+
+    @Value("${tenantRouteRefreshIntervalMs}")
+    private long refreshIntervalMs;
+
+    @Value("${tenantRouteAckTimeoutMs}")
+    private long ackTimeoutMs;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("tenant-routes").factory());
+
+    @PostConstruct
+    void init() {
+        // Acknowledge before serving requests, so a migration running meanwhile waits for this instance
+        refreshQuietly();
+        executor.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reload the persisted routes and acknowledge the route version they include.
+     */
+    public synchronized void refresh() {
+        // Read the version first: the routes loaded afterwards include every change before it
+        long version = currentVersion();
+        routingFactory.reloadRoutes();
+        acks().replaceOne(Filters.eq("_id", instanceId),
+                new Document("_id", instanceId).append("version", version).append("seenAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    /**
+     * Announce a route change already persisted on the tenant documents, and pick it up on this
+     * instance.
+     *
+     * @return The route version the other instances must acknowledge.
+     */
+    public long publish() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION).findOneAndUpdate(
+                Filters.eq("_id", STATE_ID), Updates.inc("version", 1L),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        long version = state.get("version", Number.class).longValue();
+        refresh();
+        return version;
+    }
+
+    /**
+     * Wait until every live instance has acknowledged a route version, and then one more refresh
+     * interval for the requests that were routed before the reload to finish.
+     *
+     * @param version The route version returned by {@link #publish()}.
+     * @throws IllegalStateException if some instance has not acknowledged it within {@code tenantRouteAckTimeoutMs}.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void awaitAcknowledged(long version) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        while (true) {
+            List<String> lagging = lagging(version);
+            if (lagging.isEmpty()) {
+                Thread.sleep(refreshIntervalMs);
+                return;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException("Instances have not picked up the new route: " + lagging);
+            }
+            Thread.sleep(Math.min(refreshIntervalMs, 1000));
+        }
+    }
+
+    /**
+     * Get the live instances that have not acknowledged a route version yet.
+     */
+    private List<String> lagging(long version) {
+        Date liveSince = new Date(System.currentTimeMillis() - LIVENESS_INTERVALS * refreshIntervalMs);
+        List<String> lagging = new ArrayList<>();
+        for (Document ack : acks().find(Filters.and(Filters.gte("seenAt", liveSince), Filters.lt("version", version)))) {
+            lagging.add(ack.getString("_id"));
+        }
+        return lagging;
+    }
+
+    private long currentVersion() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION).find(Filters.eq("_id", STATE_ID)).first();
+        return state == null ? 0 : state.get("version", Number.class).longValue();
+    }
+
+    private MongoCollection<Document> acks() {
+        return mongoTemplate.getCollection(ACKS_COLLECTION);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh tenant routes: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        try {
+            // Stop counting as a live instance right away
+            acks().deleteOne(Filters.eq("_id", instanceId));
+        } catch (RuntimeException e) {
+            logger.debug("Could not remove the route acknowledgement of this instance: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.scalar.identityProvider.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.scalar.identityProvider.security.TenantContext;
+
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MongoDatabaseFactory that routes the tenant owned collections of large tenants to dedicated
+ * databases or clusters, while every other tenant stays in the pooled database.
+ * The route is chosen per operation from {@link TenantContext}. Shared collections (tenants,
+ * global roles, role assignments) always live in the pooled database, so the database handed to
+ * MongoTemplate only swaps the collections listed in {@link #TENANT_COLLECTIONS}.
+ */
+public class TenantRoutingMongoDatabaseFactory extends SimpleMongoClientDatabaseFactory
+        implements InitializingBean, DisposableBean {
+
+    /**
+     * Collections whose documents belong to a single tenant and move with it.
+     */
+    public static final Set<String> TENANT_COLLECTIONS = Set.of("users", "roles");
+
+    private final MongoClient pooledClient;
+
+    private final String pooledDatabaseName;
+
+    private final TenantRoutingProperties properties;
+
+    // tenantId -> target name, only for routed tenants
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+
+    private final Map<String, MongoClient> targetClients = new ConcurrentHashMap<>();
+
+    private final Map<String, SimpleMongoClientDatabaseFactory> targetFactories = new ConcurrentHashMap<>();
+
+    private final Map<String, MongoDatabase> routedDatabases = new ConcurrentHashMap<>();
+
+    private MongoClientSettingsBuilderCustomizer clientSettingsCustomizer = builder -> { };
+
+    public TenantRoutingMongoDatabaseFactory(MongoClient mongoClient, String databaseName,
+                                             TenantRoutingProperties properties) {
+        super(mongoClient, databaseName);
+        this.pooledClient = mongoClient;
+        this.pooledDatabaseName = databaseName;
+        this.properties = properties;
+    }
+
+    /**
+     * Set the customizer applied to the clients of the storage targets, so they carry
+     * the same listeners as the auto-configured client.
+     *
+     * @param clientSettingsCustomizer The customizer.
+     */
+    public void setClientSettingsCustomizer(MongoClientSettingsBuilderCustomizer clientSettingsCustomizer) {
+        this.clientSettingsCustomizer = clientSettingsCustomizer;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reloadRoutes();
+    }
+
+    /**
+     * Load the configured routes, overridden by the storage targets persisted on the tenant
+     * documents by migrations. Skipped entirely when no target is configured.
+     */
+    public void reloadRoutes() {
+        if (properties.getTargets().isEmpty()) {
+            return;
+        }
+        Map<String, String> loaded = new HashMap<>(properties.getTenants());
+        for (Document tenant : pooledClient.getDatabase(pooledDatabaseName).getCollection("tenants")
+                .find(Filters.exists("storageTarget"))
+                .projection(Projections.include("tenantId", "storageTarget"))) {
+            // A null storage target is persisted when a tenant is moved back to the pooled database
+            String target = tenant.getString("storageTarget");
+            if (target == null) {
+                loaded.remove(tenant.getString("tenantId"));
+            } else {
+                loaded.put(tenant.getString("tenantId"), target);
+            }
+        }
+        loaded.values().forEach(this::requireTarget);
+
+        routes.putAll(loaded);
+        routes.keySet().retainAll(loaded.keySet());
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() throws DataAccessException {
+        String target = currentTarget();
+        MongoDatabase pooled = super.getMongoDatabase();
+        if (target == null) {
+            return pooled;
+        }
+        return routedDatabases.computeIfAbsent(target,
+                name -> routingDatabase(pooled, targetFactory(name).getMongoDatabase()));
+    }
+
+    /**
+     * Get the storage target of a tenant.
+     *
+     * @param tenantId The tenant ID.
+     * @return The target name, or null when the tenant lives in the pooled database.
+     */
+    public String targetOf(String tenantId) {
+        return tenantId == null ? null : routes.get(tenantId);
+    }
+
+    /**
+     * Route a tenant to a storage target, or back to the pooled database.
+     *
+     * @param tenantId The tenant ID.
+     * @param target The target name, or null for the pooled database.
+     */
+    public void route(String tenantId, String target) {
+        if (target == null) {
+            routes.remove(tenantId);
+            return;
+        }
+        requireTarget(target);
+        routes.put(tenantId, target);
+    }
+
+    /**
+     * Get a snapshot of the routed tenants.
+     *
+     * @return tenantId to target name.
+     */
+    public Map<String, String> getRoutes() {
+        return Map.copyOf(routes);
+    }
+
+    /**
+     * Get the names of the configured dedicated targets.
+     *
+     * @return The target names.
+     */
+    public Set<String> getTargetNames() {
+        return properties.getTargets().keySet();
+    }
+
+    /**
+     * Get a non-routing factory for a storage target.
+     *
+     * @param target The target name, or null for the pooled database.
+     * @return The factory of that target.
+     */
+    public MongoDatabaseFactory targetFactory(String target) {
+        if (target == null) {
+            return targetFactories.computeIfAbsent("",
+                    name -> new SimpleMongoClientDatabaseFactory(pooledClient, pooledDatabaseName));
+        }
+        requireTarget(target);
+        return targetFactories.computeIfAbsent(target, name -> {
+            ConnectionString connectionString = new ConnectionString(properties.getTargets().get(name));
+            MongoClient client = targetClients.computeIfAbsent(name, n -> {
+                MongoClientSettings.Builder settings = MongoClientSettings.builder().applyConnectionString(connectionString);
+                clientSettingsCustomizer.customize(settings);
+                return MongoClients.create(settings.build());
+            });
+            String databaseName = connectionString.getDatabase() != null
+                    ? connectionString.getDatabase()
+                    : pooledDatabaseName;
+            return new SimpleMongoClientDatabaseFactory(client, databaseName);
+        });
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        targetClients.values().forEach(MongoClient::close);
+    }
+
+    private String currentTarget() {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        return targetOf(TenantContext.getCurrentTenant());
+    }
+
+    private void requireTarget(String target) {
+        if (!properties.getTargets().containsKey(target)) {
+            throw new IllegalArgumentException("Unknown tenant storage target: " + target);
+        }
+    }
+
+    /**
+     * Build a database view that serves the tenant owned collections from the dedicated database
+     * and everything else from the pooled one.
+     */
+    private static MongoDatabase routingDatabase(MongoDatabase pooled, MongoDatabase dedicated) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            MongoDatabase delegate = pooled;
+            if (method.getName().equals("getCollection") && args != null && args.length > 0
+                    && args[0] instanceof String name && TENANT_COLLECTIONS.contains(name)) {
+                delegate = dedicated;
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (MongoDatabase) Proxy.newProxyInstance(
+                MongoDatabase.class.getClassLoader(), new Class<?>[] {MongoDatabase.class}, handler);
+    }
+}
@@ -0,0 +1,31 @@
+package com.scalar.identityProvider.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Dedicated storage targets for large tenants.
+ * Tenants without a route stay in the pooled database of {@code spring.data.mongodb.uri}.
+ */
+@ConfigurationProperties(prefix = "tenant-routing")
+public class TenantRoutingProperties {
+
+    /*
+     * Storage target name to MongoDB connection string, including the database name
+     */
+    @Getter
+    @Setter
+    private Map<String, String> targets = new LinkedHashMap<>();
+
+    /*
+     * Initial tenantId to target name routes, used when the tenant document has no storage target
+     */
+    @Getter
+    @Setter
+    private Map<String, String> tenants = new LinkedHashMap<>();
+}
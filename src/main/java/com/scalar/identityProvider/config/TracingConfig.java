@@ -0,0 +1,25 @@
+package com.scalar.identityProvider.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Span exporters beyond the ones auto-configured from management.otlp.* properties.
+ * Every SpanExporter bean is added to the OpenTelemetry SDK, so tests can register an
+ * InMemorySpanExporter bean the same way and assert on the finished spans.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Write every finished span to the log, for local debugging without a collector.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.logging-exporter.enabled", havingValue = "true")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,90 @@
+package com.scalar.identityProvider.controllers;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.payload.request.ApiKeyRequest;
+import com.scalar.identityProvider.payload.response.ApiKeyResponse;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.ApiKeyService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/api-keys")
+public class ApiKeyController {
+
+    @Autowired
+    private ApiKeyService apiKeyService;
+
+    /**
+     * Crear una API key en el tenant actual.
+     * La key completa solo se devuelve en esta respuesta.
+     * Solo accesible para administradores.
+     *
+     * @param request La petición con el nombre y los roles de la key.
+     * @return ResponseEntity con la key creada.
+     */
+    @PostMapping("/create")
+    @RequiresPermission(Permission.API_KEY_MANAGE)
+    public ResponseEntity<?> createApiKey(@Valid @RequestBody ApiKeyRequest request) {
+        String tenantId = TenantContext.getCurrentTenant();
+
+        // Assign roles based on the request or default to user role
+        Set<EmployeeRole> roles = EnumSet.of(EmployeeRole.ROLE_USER);
+        if (request.getRoles() != null && !request.getRoles().isEmpty()) {
+            roles = EnumSet.noneOf(EmployeeRole.class);
+            for (String role : request.getRoles()) {
+                switch (role) {
+                    case "admin" -> roles.add(EmployeeRole.ROLE_ADMIN);
+                    case "mod" -> roles.add(EmployeeRole.ROLE_MODERATOR);
+                    default -> roles.add(EmployeeRole.ROLE_USER);
+                }
+            }
+        }
+
+        ApiKeyService.IssuedKey issued = apiKeyService.create(tenantId, request.getName(), roles);
+        return ResponseEntity.ok(ApiKeyResponse.from(issued.apiKey(), issued.key()));
+    }
+
+    /**
+     * Obtener las API keys del tenant actual con sus contadores de uso, sin los secretos.
+     * Solo accesible para administradores.
+     *
+     * @return ResponseEntity con la lista de keys.
+     */
+    @GetMapping("/list")
+    @RequiresPermission(Permission.API_KEY_MANAGE)
+    public ResponseEntity<?> getApiKeys() {
+        List<ApiKeyResponse> apiKeys = apiKeyService.findByTenantId(TenantContext.getCurrentTenant()).stream()
+                .map(ApiKeyResponse::from)
+                .toList();
+        return ResponseEntity.ok(apiKeys);
+    }
+
+    /**
+     * Revocar una API key del tenant actual.
+     * Solo accesible para administradores.
+     *
+     * @param prefix El prefijo de la key.
+     * @return ResponseEntity con el resultado de la operación.
+     */
+    @DeleteMapping("/{prefix}")
+    @RequiresPermission(Permission.API_KEY_MANAGE)
+    public ResponseEntity<?> revokeApiKey(@PathVariable String prefix) {
+        if (!apiKeyService.revoke(TenantContext.getCurrentTenant(), prefix)) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(MessageResponse.of("Error: API key no encontrada!"));
+        }
+        return ResponseEntity.ok(MessageResponse.of("API key revocada exitosamente!"));
+    }
+}
@@ -1,32 +1,53 @@
 package com.scalar.identityProvider.controllers;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.scalar.identityProvider.events.UserAccountChangedEvent;
 import com.scalar.identityProvider.models.EmployeeRole;
 import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.ServiceClient;
 import com.scalar.identityProvider.models.Tenant;
 import com.scalar.identityProvider.models.User;
 import com.scalar.identityProvider.payload.request.LoginRequest;
 import com.scalar.identityProvider.payload.request.SignupRequest;
 import com.scalar.identityProvider.payload.request.SwitchTenantRequest;
+import com.scalar.identityProvider.payload.response.ClientTokenResponse;
 import com.scalar.identityProvider.payload.response.JwtResponse;
 import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.payload.response.TokenErrorResponse;
 import com.scalar.identityProvider.repository.RoleRepository;
 import com.scalar.identityProvider.repository.TenantRepository;
 import com.scalar.identityProvider.repository.UserRepository;
 import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy;
+import com.scalar.identityProvider.services.MembershipIndex;
+import com.scalar.identityProvider.services.ResourceVersions;
 import com.scalar.identityProvider.services.RoleInitializationService;
+import com.scalar.identityProvider.services.ServiceClientService;
 import com.scalar.identityProvider.services.TenantService;
 import com.scalar.identityProvider.services.UserTenantService;
 import com.scalar.identityProvider.utils.TenantUtils;
-import com.scalar.identityProvider.security.jwt.JwtUtils;
+import com.scalar.identityProvider.security.services.ApiKeyDetails;
+import com.scalar.identityProvider.security.services.ServiceClientDetails;
 import com.scalar.identityProvider.security.services.UserDetailsImpl;
+import com.scalar.identityProvider.security.session.AccessTokenService;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -37,8 +58,11 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @CrossOrigin(origins = "*", maxAge = 3600) // Allow cross-origin requests for all origins
 @RestController // Indicate that this class is a REST controller
@@ -58,7 +82,7 @@ public class AuthController {
 	PasswordEncoder encoder; // Encoder for password hashing
 
 	@Autowired
-	JwtUtils jwtUtils; // Utility for generating JWT tokens
+	AccessTokenService accessTokenService; // Issues JWT or opaque access tokens (authTokenMode)
 
 	@Autowired
 	TenantService tenantService; // Service for tenant operations
@@ -72,6 +96,21 @@ public class AuthController {
 	@Autowired
 	RoleInitializationService roleInitializationService; // Service for role initialization
 
+	@Autowired
+	MembershipIndex membershipIndex; // In-memory index of tenant memberships
+
+	@Autowired
+	ApplicationEventPublisher eventPublisher; // Publishes account changes to in-memory indexes
+
+	@Autowired
+	ObservationRegistry observationRegistry; // Observes tenant switches (traces, JFR)
+
+	@Autowired
+	ResourceVersions resourceVersions; // Version counters behind the ETags of polled resources
+
+	@Autowired
+	ServiceClientService serviceClientService; // Service accounts of the client_credentials grant
+
 	/**
 	 * Authenticate user and return a JWT token if successful.
 	 *
@@ -81,17 +120,15 @@ public class AuthController {
 	@PostMapping("/signin")
 	public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
-		// Verificar que el tenant existe
-		if (!tenantService.existsByTenantId(loginRequest.getTenantId())) {
+		// Verificar que el tenant existe y no está en eliminación
+		if (!tenantService.isActiveTenant(loginRequest.getTenantId())) {
 			return ResponseEntity
 					.badRequest()
-					.body(new MessageResponse("Error: Tenant no encontrado!"));
+					.body(MessageResponse.of("Error: Tenant no encontrado!"));
 		}
 
-		// Establecer el contexto del tenant
-		TenantContext.setCurrentTenant(loginRequest.getTenantId());
-
-		try {
+		// Ejecutar con el contexto del tenant enlazado
+		return TenantContext.callWhere(loginRequest.getTenantId(), () -> {
 			// Authenticate the user with the provided username and password
 			Authentication authentication = authenticationManager.authenticate(
 					new UsernamePasswordAuthenticationToken(loginRequest.getUsername(),
@@ -100,12 +137,12 @@ public class AuthController {
 			// Set the authentication in the security context
 			SecurityContextHolder.getContext().setAuthentication(authentication);
 
-			// Generate JWT token based on the authentication
-			String jwt = jwtUtils.generateJwtToken(authentication);
-
 			// Get user details from the authentication object
 			UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
+			// Issue the access token, a JWT or an opaque handle depending on authTokenMode
+			String jwt = accessTokenService.issue(userDetails.getUsername(), loginRequest.getTenantId());
+
 			// Extract user roles into a list
 			List<String> roles = userDetails.getAuthorities().stream()
 					.map(item -> item.getAuthority())
@@ -117,10 +154,100 @@ public class AuthController {
 					userDetails.getUsername(),
 					userDetails.getEmail(),
 					roles));
-		} finally {
-			// Limpiar el contexto del tenant
-			TenantContext.clear();
+		});
+	}
+
+	/**
+	 * OAuth2 token endpoint for service accounts (client_credentials grant, RFC 6749 section 4.4).
+	 * The client authenticates with HTTP Basic or with client_id and client_secret in the form;
+	 * the secret is checked with an HMAC against the in-memory client metadata, without BCrypt
+	 * or a database query. The token is scoped to the tenant of the client.
+	 *
+	 * @param grantType The grant type, client_credentials.
+	 * @param clientId The client ID, if not sent with HTTP Basic.
+	 * @param clientSecret The client secret, if not sent with HTTP Basic.
+	 * @param authorization The Authorization header, if any.
+	 * @return A ResponseEntity containing the access token or an OAuth2 error.
+	 */
+	@PostMapping(value = "/token", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+	public ResponseEntity<?> issueClientToken(
+			@RequestParam(value = "grant_type", required = false) String grantType,
+			@RequestParam(value = "client_id", required = false) String clientId,
+			@RequestParam(value = "client_secret", required = false) String clientSecret,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+		if (!"client_credentials".equals(grantType)) {
+			return ResponseEntity
+					.badRequest()
+					.body(new TokenErrorResponse("unsupported_grant_type", "Only client_credentials is supported"));
 		}
+
+		// Prefer HTTP Basic credentials (client_id:client_secret, each form-urlencoded)
+		boolean basic = authorization != null && authorization.regionMatches(true, 0, "Basic ", 0, 6);
+		if (basic) {
+			String[] credentials = decodeBasic(authorization.substring(6));
+			clientId = credentials != null ? credentials[0] : null;
+			clientSecret = credentials != null ? credentials[1] : null;
+		}
+
+		Optional<ServiceClient> client = clientId != null && clientSecret != null
+				? serviceClientService.authenticate(clientId, clientSecret)
+				: Optional.empty();
+		if (client.isEmpty()) {
+			ResponseEntity.BodyBuilder unauthorized = ResponseEntity.status(HttpStatus.UNAUTHORIZED);
+			if (basic) {
+				unauthorized.header(HttpHeaders.WWW_AUTHENTICATE, "Basic");
+			}
+			return unauthorized.body(new TokenErrorResponse("invalid_client", "Client authentication failed"));
+		}
+
+		// Issue the access token for the tenant of the client, a JWT or an opaque handle depending on authTokenMode
+		String tenantId = client.get().getTenantId();
+		String token = accessTokenService.issueForClient(client.get().getClientId(), tenantId);
+
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.noStore())
+				.body(new ClientTokenResponse(token, accessTokenService.getExpiresInSeconds(), tenantId));
+	}
+
+	/**
+	 * Sign out: revoke the access token of the request on every instance.
+	 * Only opaque tokens can be revoked; a JWT stays valid until it expires.
+	 *
+	 * @param authorization The Authorization header with the access token.
+	 * @return A ResponseEntity indicating success or error message.
+	 */
+	@PostMapping("/signout")
+	public ResponseEntity<?> signout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+		String token = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+		if (!accessTokenService.revoke(token)) {
+			return ResponseEntity
+					.badRequest()
+					.body(MessageResponse.of("Error: Solo se pueden revocar tokens opacos!"));
+		}
+		return ResponseEntity.ok(MessageResponse.of("Signed out successfully!"));
+	}
+
+	/**
+	 * Decode HTTP Basic credentials.
+	 *
+	 * @param encoded The base64 encoded credentials.
+	 * @return The client ID and secret, or null if malformed.
+	 */
+	private static String[] decodeBasic(String encoded) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getDecoder().decode(encoded.trim()), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		int colon = decoded.indexOf(':');
+		if (colon < 0) {
+			return null;
+		}
+		return new String[] {
+				URLDecoder.decode(decoded.substring(0, colon), StandardCharsets.UTF_8),
+				URLDecoder.decode(decoded.substring(colon + 1), StandardCharsets.UTF_8)};
 	}
 
 	/**
@@ -139,7 +266,7 @@ public class AuthController {
 		if (tenantService.existsByTenantId(tenantId)) {
 			return ResponseEntity
 					.badRequest()
-					.body(new MessageResponse("Error: El tenant ya existe! Solo se puede crear un tenant por signup."));
+					.body(MessageResponse.of("Error: El tenant ya existe! Solo se puede crear un tenant por signup."));
 		}
 
 		// Crear el nuevo tenant
@@ -149,22 +276,20 @@ public class AuthController {
 		// Inicializar roles para el nuevo tenant
 		roleInitializationService.initializeRolesForTenant(tenantId);
 
-		// Establecer el contexto del tenant
-		TenantContext.setCurrentTenant(tenantId);
-
-		try {
+		// Ejecutar con el contexto del tenant enlazado
+		return TenantContext.callWhere(tenantId, () -> {
 			// Check if the username is already taken for this tenant
 			if (userRepository.existsByUsernameAndTenantId(signUpRequest.getUsername(), tenantId)) {
 				return ResponseEntity
 						.badRequest()
-						.body(new MessageResponse("Error: Username is already taken!"));
+						.body(MessageResponse.of("Error: Username is already taken!"));
 			}
 
 			// Check if the email is already in use for this tenant
 			if (userRepository.existsByEmailAndTenantId(signUpRequest.getEmail(), tenantId)) {
 				return ResponseEntity
 						.badRequest()
-						.body(new MessageResponse("Error: Email is already in use!"));
+						.body(MessageResponse.of("Error: Email is already in use!"));
 			}
 
 			// Create a new user's account - Solo admin en signup
@@ -186,13 +311,11 @@ public class AuthController {
 			// Assign roles to the user and save it to the database
 			user.setRoles(roles);
 			userRepository.save(user);
+			eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId(), user.getUsername(), tenantId));
 
 			// Return a success message upon successful registration
-			return ResponseEntity.ok(new MessageResponse("Admin user registered successfully!"));
-		} finally {
-			// Limpiar el contexto del tenant
-			TenantContext.clear();
-		}
+			return ResponseEntity.ok(MessageResponse.of("Admin user registered successfully!"));
+		});
 	}
 
 	/**
@@ -203,81 +326,130 @@ public class AuthController {
 	 */
 	@PostMapping("/switch-tenant")
 	public ResponseEntity<?> switchTenant(@Valid @RequestBody SwitchTenantRequest switchRequest) {
-		
+		Observation observation = Observation.createNotStarted("auth.tenant.switch", observationRegistry)
+				.highCardinalityKeyValue("tenant.id", switchRequest.getTenantId());
+		return observation.observe(() -> {
+			ResponseEntity<?> response = doSwitchTenant(switchRequest);
+			observation.lowCardinalityKeyValue("outcome", response.getStatusCode().is2xxSuccessful() ? "switched" : "rejected");
+			return response;
+		});
+	}
+
+	/**
+	 * Intercambiar el token por uno del tenant solicitado.
+	 *
+	 * @param switchRequest La petición de cambio de tenant.
+	 * @return ResponseEntity con el nuevo JWT o mensaje de error.
+	 */
+	private ResponseEntity<?> doSwitchTenant(SwitchTenantRequest switchRequest) {
+
 		// Obtener el usuario actual del contexto de seguridad
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (authentication == null || !authentication.isAuthenticated()) {
+		if (authentication == null || !authentication.isAuthenticated()
+				|| !(authentication.getPrincipal() instanceof UserDetailsImpl)) {
 			return ResponseEntity
 					.badRequest()
-					.body(new MessageResponse("Error: Usuario no autenticado!"));
+					.body(MessageResponse.of("Error: Usuario no autenticado!"));
+		}
+
+		// Las cuentas de servicio y las API keys solo tienen acceso a su propio tenant
+		if (authentication.getPrincipal() instanceof ServiceClientDetails
+				|| authentication.getPrincipal() instanceof ApiKeyDetails) {
+			return ResponseEntity
+					.badRequest()
+					.body(MessageResponse.of("Error: Las cuentas de servicio no pueden cambiar de tenant!"));
 		}
 
 		UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 		String username = userDetails.getUsername();
+		String accountId = userDetails.getId();
+		String tenantId = switchRequest.getTenantId();
 
-		// Verificar que el usuario existe en el nuevo tenant
-		if (!userTenantService.userExistsInTenant(username, switchRequest.getTenantId())) {
+		if (!tenantService.isActiveTenant(tenantId)) {
 			return ResponseEntity
 					.badRequest()
-					.body(new MessageResponse("Error: Usuario no existe en ese tenant!"));
+					.body(MessageResponse.of("Error: Tenant no encontrado!"));
 		}
 
-		// Establecer el contexto del nuevo tenant
-		TenantContext.setCurrentTenant(switchRequest.getTenantId());
-
-		try {
-			// Autenticar al usuario en el nuevo tenant
-			Authentication newAuthentication = authenticationManager.authenticate(
-					new UsernamePasswordAuthenticationToken(username, userDetails.getPassword()));
-
-			// Set the authentication in the security context
-			SecurityContextHolder.getContext().setAuthentication(newAuthentication);
+		// Las cuentas con el mismo username en otros tenants son de otras personas: solo vale la
+		// cuenta del propio usuario, si vive en el nuevo tenant o tiene roles asignados en él
+		Optional<MembershipIndex.TenantMembership> membership = membershipIndex.getMembership(username, tenantId);
+		if (membership.isPresent() && accountId.equals(membership.get().accountUserId())) {
+			// Intercambio de token: el access token ya validado basta para volver al tenant de la
+			// cuenta, sin volver a verificar la contraseña
+			String jwt = accessTokenService.issue(username, tenantId);
+			return ResponseEntity.ok(new JwtResponse(jwt,
+					accountId,
+					username,
+					membership.get().accountEmail(),
+					authoritiesOf(membership.get().accountRoles())));
+		}
 
-			// Generate new JWT token with the new tenant
-			String jwt = jwtUtils.generateJwtToken(newAuthentication);
+		Optional<Set<EmployeeRole>> assignedRoles = membership
+				.map(existing -> existing.assignedRoles().get(accountId));
+		if (assignedRoles.isEmpty()) {
+			return ResponseEntity
+					.badRequest()
+					.body(MessageResponse.of("Error: Usuario no existe en ese tenant!"));
+		}
 
-			// Get user details from the new authentication object
-			UserDetailsImpl newUserDetails = (UserDetailsImpl) newAuthentication.getPrincipal();
+		// El token queda ligado al ID de la cuenta, nunca a un username que otro tenant podría repetir
+		String jwt = accessTokenService.issueForAssignment(username, accountId, tenantId);
 
-			// Extract user roles into a list
-			List<String> roles = newUserDetails.getAuthorities().stream()
-					.map(item -> item.getAuthority())
-					.collect(Collectors.toList());
+		// Return a response containing the new JWT and the roles assigned in the new tenant
+		return ResponseEntity.ok(new JwtResponse(jwt,
+				accountId,
+				username,
+				userDetails.getEmail(),
+				authoritiesOf(assignedRoles.get())));
+	}
 
-			// Return a response containing the new JWT and user details
-			return ResponseEntity.ok(new JwtResponse(jwt,
-					newUserDetails.getId(),
-					newUserDetails.getUsername(),
-					newUserDetails.getEmail(),
-					roles));
-		} finally {
-			// Limpiar el contexto del tenant
-			TenantContext.clear();
-		}
+	/**
+	 * Obtener los nombres de las autoridades alcanzables desde unos roles.
+	 *
+	 * @param roles Los roles.
+	 * @return Los nombres de las autoridades.
+	 */
+	private static List<String> authoritiesOf(Set<EmployeeRole> roles) {
+		return EmployeeRoleHierarchy.reachableAuthorities(roles).stream()
+				.map(item -> item.getAuthority())
+				.collect(Collectors.toList());
 	}
 
 	/**
 	 * Obtener todos los tenants disponibles para el usuario autenticado.
+	 * Responde 304 si el ETag de If-None-Match sigue vigente, leyendo solo los contadores de versión.
 	 *
+	 * @param webRequest La petición, para la validación condicional.
 	 * @return ResponseEntity con la lista de tenants.
 	 */
 	@GetMapping("/user-tenants")
-	public ResponseEntity<?> getUserTenants() {
+	public ResponseEntity<?> getUserTenants(WebRequest webRequest) {
 		
 		// Obtener el usuario actual del contexto de seguridad
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		if (authentication == null || !authentication.isAuthenticated()) {
 			return ResponseEntity
 					.badRequest()
-					.body(new MessageResponse("Error: Usuario no autenticado!"));
+					.body(MessageResponse.of("Error: Usuario no autenticado!"));
 		}
 
 		UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 		String username = userDetails.getUsername();
 
-		// Obtener todos los tenants donde el usuario tiene cuenta
-		List<Tenant> userTenants = userTenantService.getTenantsForUser(username);
+		String etag = resourceVersions.userTenantsEtag(username);
+		if (webRequest.checkNotModified(etag)) {
+			// checkNotModified ya escribió el 304 con el ETag
+			return null;
+		}
+
+		// Obtener los tenants a los que la cuenta puede cambiar
+		List<Tenant> userTenants = userTenantService.getTenantsForUser(username, userDetails.getId());
 
-		return ResponseEntity.ok(userTenants);
+		// Respuesta propia del usuario: solo la guarda su navegador, y siempre la revalida
+		return ResponseEntity.ok()
+				.eTag(etag)
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.body(userTenants);
 	}
 }
@@ -0,0 +1,34 @@
+package com.scalar.identityProvider.controllers;
+
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.payload.request.AuthorizationCheckRequest;
+import com.scalar.identityProvider.payload.response.AuthorizationCheckResponse;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.AuthorizationDecisionService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/authz")
+public class AuthorizationController {
+
+    @Autowired
+    private AuthorizationDecisionService authorizationDecisionService;
+
+    /**
+     * Evaluar varias consultas (usuario, tenant, permiso) en una sola llamada.
+     * Accesible para servicios y administradores con permiso de consulta de autorización.
+     *
+     * @param checkRequest La petición con las consultas a evaluar.
+     * @return ResponseEntity con las decisiones en el mismo orden que las consultas.
+     */
+    @PostMapping("/check")
+    @RequiresPermission(Permission.AUTHORIZATION_CHECK)
+    public ResponseEntity<?> check(@Valid @RequestBody AuthorizationCheckRequest checkRequest) {
+        return ResponseEntity.ok(new AuthorizationCheckResponse(
+                authorizationDecisionService.decide(checkRequest.getChecks())));
+    }
+}
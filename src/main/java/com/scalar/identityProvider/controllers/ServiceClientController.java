@@ -0,0 +1,110 @@
+package com.scalar.identityProvider.controllers;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.payload.request.ServiceClientRequest;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.payload.response.ServiceClientResponse;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.ServiceClientService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/clients")
+public class ServiceClientController {
+
+    @Autowired
+    private ServiceClientService serviceClientService;
+
+    /**
+     * Crear una cuenta de servicio en el tenant actual.
+     * El secreto solo se devuelve en esta respuesta.
+     * Solo accesible para administradores.
+     *
+     * @param request La petición con el nombre y los roles del cliente.
+     * @return ResponseEntity con el cliente y su secreto.
+     */
+    @PostMapping("/create")
+    @RequiresPermission(Permission.CLIENT_MANAGE)
+    public ResponseEntity<?> createClient(@Valid @RequestBody ServiceClientRequest request) {
+        String tenantId = TenantContext.getCurrentTenant();
+
+        // Assign roles based on the request or default to user role
+        Set<EmployeeRole> roles = EnumSet.of(EmployeeRole.ROLE_USER);
+        if (request.getRoles() != null && !request.getRoles().isEmpty()) {
+            roles = EnumSet.noneOf(EmployeeRole.class);
+            for (String role : request.getRoles()) {
+                switch (role) {
+                    case "admin" -> roles.add(EmployeeRole.ROLE_ADMIN);
+                    case "mod" -> roles.add(EmployeeRole.ROLE_MODERATOR);
+                    default -> roles.add(EmployeeRole.ROLE_USER);
+                }
+            }
+        }
+
+        ServiceClientService.IssuedClient issued = serviceClientService.create(tenantId, request.getName(), roles);
+        return ResponseEntity.ok(ServiceClientResponse.from(issued.client(), issued.clientSecret()));
+    }
+
+    /**
+     * Obtener las cuentas de servicio del tenant actual, sin sus secretos.
+     * Solo accesible para administradores.
+     *
+     * @return ResponseEntity con la lista de clientes.
+     */
+    @GetMapping("/list")
+    @RequiresPermission(Permission.CLIENT_MANAGE)
+    public ResponseEntity<?> getClients() {
+        List<ServiceClientResponse> clients = serviceClientService.findByTenantId(TenantContext.getCurrentTenant())
+                .stream()
+                .map(ServiceClientResponse::from)
+                .toList();
+        return ResponseEntity.ok(clients);
+    }
+
+    /**
+     * Generar un nuevo secreto para una cuenta de servicio del tenant actual.
+     * El secreto anterior deja de servir para pedir tokens.
+     * Solo accesible para administradores.
+     *
+     * @param clientId El ID del cliente.
+     * @return ResponseEntity con el cliente y su nuevo secreto o mensaje de error.
+     */
+    @PostMapping("/{clientId}/rotate-secret")
+    @RequiresPermission(Permission.CLIENT_MANAGE)
+    public ResponseEntity<?> rotateSecret(@PathVariable String clientId) {
+        return serviceClientService.rotateSecret(TenantContext.getCurrentTenant(), clientId)
+                .<ResponseEntity<?>>map(issued ->
+                        ResponseEntity.ok(ServiceClientResponse.from(issued.client(), issued.clientSecret())))
+                .orElseGet(() -> ResponseEntity
+                        .badRequest()
+                        .body(MessageResponse.of("Error: Cliente no encontrado!")));
+    }
+
+    /**
+     * Eliminar una cuenta de servicio del tenant actual.
+     * Solo accesible para administradores.
+     *
+     * @param clientId El ID del cliente.
+     * @return ResponseEntity con el resultado de la operación.
+     */
+    @DeleteMapping("/{clientId}")
+    @RequiresPermission(Permission.CLIENT_MANAGE)
+    public ResponseEntity<?> deleteClient(@PathVariable String clientId) {
+        if (!serviceClientService.delete(TenantContext.getCurrentTenant(), clientId)) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(MessageResponse.of("Error: Cliente no encontrado!"));
+        }
+        return ResponseEntity.ok(MessageResponse.of("Cliente eliminado exitosamente!"));
+    }
+}
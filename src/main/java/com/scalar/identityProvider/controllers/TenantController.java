@@ -3,12 +3,15 @@ package com.scalar.identityProvider.controllers;
 import com.scalar.identityProvider.models.Tenant;
 import com.scalar.identityProvider.payload.request.TenantRequest;
 import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.services.ResourceVersions;
 import com.scalar.identityProvider.services.TenantService;
 import com.scalar.identityProvider.services.RoleInitializationService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,12 +21,18 @@ import java.util.Optional;
 @RequestMapping("/api/tenants")
 public class TenantController {
 
+    // Los clientes guardan la respuesta pero la revalidan siempre con If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     @Autowired
     private TenantService tenantService;
 
     @Autowired
     private RoleInitializationService roleInitializationService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     /**
      * Crea un nuevo tenant.
      *
@@ -36,14 +45,14 @@ public class TenantController {
         if (tenantService.existsByTenantId(tenantRequest.getTenantId())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant ID ya existe!"));
+                    .body(MessageResponse.of("Error: Tenant ID ya existe!"));
         }
 
         // Verificar si el nombre ya existe
         if (tenantService.existsByName(tenantRequest.getName())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Nombre de tenant ya existe!"));
+                    .body(MessageResponse.of("Error: Nombre de tenant ya existe!"));
         }
 
         // Crear el nuevo tenant
@@ -57,18 +66,25 @@ public class TenantController {
         // Inicializar roles para el nuevo tenant
         roleInitializationService.initializeRolesForTenant(tenantRequest.getTenantId());
 
-        return ResponseEntity.ok(new MessageResponse("Tenant creado exitosamente!"));
+        return ResponseEntity.ok(MessageResponse.of("Tenant creado exitosamente!"));
     }
 
     /**
      * Obtiene todos los tenants activos.
+     * Responde 304 si el ETag de If-None-Match sigue vigente, leyendo solo los contadores de versión.
      *
+     * @param webRequest La petición, para la validación condicional.
      * @return ResponseEntity con la lista de tenants.
      */
     @GetMapping("/list")
-    public ResponseEntity<List<Tenant>> getAllTenants() {
+    public ResponseEntity<List<Tenant>> getAllTenants(WebRequest webRequest) {
+        String etag = resourceVersions.tenantsEtag();
+        if (webRequest.checkNotModified(etag)) {
+            // checkNotModified ya escribió el 304 con el ETag
+            return null;
+        }
         List<Tenant> tenants = tenantService.findAllActiveTenants();
-        return ResponseEntity.ok(tenants);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(tenants);
     }
 
     /**
@@ -85,25 +101,33 @@ public class TenantController {
         } else {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
     }
 
     /**
      * Obtiene un tenant por su tenantId.
      *
+     * Responde 304 si el ETag de If-None-Match sigue vigente, leyendo solo los contadores de versión.
+     *
      * @param tenantId El tenantId del tenant.
+     * @param webRequest La petición, para la validación condicional.
      * @return ResponseEntity con el tenant o mensaje de error.
      */
     @GetMapping("/by-tenant-id/{tenantId}")
-    public ResponseEntity<?> getTenantByTenantId(@PathVariable String tenantId) {
+    public ResponseEntity<?> getTenantByTenantId(@PathVariable String tenantId, WebRequest webRequest) {
+        String etag = resourceVersions.tenantEtag(tenantId);
+        if (webRequest.checkNotModified(etag)) {
+            // checkNotModified ya escribió el 304 con el ETag
+            return null;
+        }
         Optional<Tenant> tenant = tenantService.findByTenantId(tenantId);
         if (tenant.isPresent()) {
-            return ResponseEntity.ok(tenant.get());
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(tenant.get());
         } else {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
     }
 }
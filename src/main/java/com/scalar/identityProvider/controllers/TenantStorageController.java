@@ -0,0 +1,97 @@
+package com.scalar.identityProvider.controllers;
+
+import com.scalar.identityProvider.config.TenantRoutingMongoDatabaseFactory;
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.payload.request.TenantMigrationRequest;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.TenantMigrationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@Profile("!inmemory")
+@RequestMapping("/api/admin/tenant-storage")
+public class TenantStorageController {
+
+    @Autowired
+    private TenantRoutingMongoDatabaseFactory routingFactory;
+
+    @Autowired
+    private TenantMigrationService tenantMigrationService;
+
+    /**
+     * Obtener los destinos de almacenamiento configurados y los tenants enrutados a ellos.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @return ResponseEntity con los destinos y las rutas.
+     */
+    @GetMapping("/routes")
+    @RequiresPermission(Permission.TENANT_STORAGE_MANAGE)
+    public ResponseEntity<?> getRoutes() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("targets", routingFactory.getTargetNames());
+        body.put("routes", routingFactory.getRoutes());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Recargar las rutas persistidas, para recoger migraciones hechas desde otra instancia.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @return ResponseEntity con el resultado de la operación.
+     */
+    @PostMapping("/routes/refresh")
+    @RequiresPermission(Permission.TENANT_STORAGE_MANAGE)
+    public ResponseEntity<?> refreshRoutes() {
+        tenantMigrationService.refreshRoutes();
+        return ResponseEntity.ok(MessageResponse.of("Rutas recargadas exitosamente!"));
+    }
+
+    /**
+     * Iniciar la migración de un tenant a otro destino de almacenamiento.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @param tenantId El ID del tenant.
+     * @param migrationRequest La petición con el destino.
+     * @return ResponseEntity con el estado inicial de la migración o mensaje de error.
+     */
+    @PostMapping("/{tenantId}/migrate")
+    @RequiresPermission(Permission.TENANT_STORAGE_MANAGE)
+    public ResponseEntity<?> migrateTenant(@PathVariable String tenantId,
+                                           @Valid @RequestBody TenantMigrationRequest migrationRequest) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(tenantMigrationService.startMigration(tenantId, migrationRequest.getTarget()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage() + "!"));
+        }
+    }
+
+    /**
+     * Obtener el estado de la última migración de un tenant.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @param tenantId El ID del tenant.
+     * @return ResponseEntity con el estado o mensaje de error.
+     */
+    @GetMapping("/{tenantId}/migration")
+    @RequiresPermission(Permission.TENANT_STORAGE_MANAGE)
+    public ResponseEntity<?> getMigration(@PathVariable String tenantId) {
+        return tenantMigrationService.getStatus(tenantId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity
+                        .badRequest()
+                        .body(MessageResponse.of("Error: No hay migraciones para ese tenant!")));
+    }
+}
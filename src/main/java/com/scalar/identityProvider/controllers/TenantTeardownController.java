@@ -0,0 +1,66 @@
+package com.scalar.identityProvider.controllers;
+
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.TenantService;
+import com.scalar.identityProvider.services.TenantTeardownService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@Profile("!inmemory")
+@RequestMapping("/api/admin/tenants")
+public class TenantTeardownController {
+
+    @Autowired
+    private TenantService tenantService;
+
+    @Autowired
+    private TenantTeardownService tenantTeardownService;
+
+    /**
+     * Eliminar un tenant con todos sus usuarios, roles y asignaciones.
+     * El tenant se desactiva de inmediato y los datos se eliminan en segundo plano.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @param tenantId El ID del tenant.
+     * @return ResponseEntity con el job de eliminación o mensaje de error.
+     */
+    @DeleteMapping("/{tenantId}")
+    @RequiresPermission(Permission.TENANT_DELETE)
+    public ResponseEntity<?> deleteTenant(@PathVariable String tenantId) {
+        Optional<Tenant> tenant = tenantService.findByTenantId(tenantId);
+        if (tenant.isEmpty()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tenantService.deleteTenant(tenant.get()));
+    }
+
+    /**
+     * Obtener el progreso de la eliminación de un tenant.
+     * Solo accesible para operadores (globalOperatorIds).
+     *
+     * @param tenantId El ID del tenant.
+     * @return ResponseEntity con el job de eliminación o mensaje de error.
+     */
+    @GetMapping("/{tenantId}/teardown")
+    @RequiresPermission(Permission.TENANT_DELETE)
+    public ResponseEntity<?> getTeardown(@PathVariable String tenantId) {
+        return tenantTeardownService.getJob(tenantId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity
+                        .badRequest()
+                        .body(MessageResponse.of("Error: No hay eliminación para ese tenant!")));
+    }
+}
@@ -1,6 +1,8 @@
 package com.scalar.identityProvider.controllers;
 
-import org.springframework.security.access.prepost.PreAuthorize; // Import PreAuthorize for role-based access control
+import com.scalar.identityProvider.models.Permission; // Import Permission for permission-based access control
+import com.scalar.identityProvider.security.authorization.RequiresPermission; // Import RequiresPermission for permission-based access control
+
 import org.springframework.web.bind.annotation.CrossOrigin; // Import CrossOrigin for handling CORS
 import org.springframework.web.bind.annotation.GetMapping; // Import GetMapping for handling GET requests
 import org.springframework.web.bind.annotation.RequestMapping; // Import RequestMapping for defining request paths
@@ -27,9 +29,7 @@ public class TestController {
 	 * @return A string message indicating user content.
 	 */
 	@GetMapping("/user") // Map GET requests to "/api/test/user"
-	@PreAuthorize("hasRole('USER') or " + // Require USER, MODERATOR, or ADMIN role
-			"hasRole('MODERATOR') or " +
-			"hasRole('ADMIN')")
+	@RequiresPermission(Permission.CONTENT_READ) // Require a role granting content access (USER, MODERATOR or ADMIN)
 	public String userAccess() {
 		return "User Content."; // Return a message accessible by users with the required roles
 	}
@@ -40,7 +40,7 @@ public class TestController {
 	 * @return A string message indicating moderator board content.
 	 */
 	@GetMapping("/mod") // Map GET requests to "/api/test/mod"
-	@PreAuthorize("hasRole('MODERATOR')") // Require MODERATOR role
+	@RequiresPermission(Permission.CONTENT_MODERATE) // Require a role granting moderation (MODERATOR)
 	public String moderatorAccess() {
 		return "Moderator Board."; // Return a message accessible by moderators
 	}
@@ -51,7 +51,7 @@ public class TestController {
 	 * @return A string message indicating admin board content.
 	 */
 	@GetMapping("/admin") // Map GET requests to "/api/test/admin"
-	@PreAuthorize("hasRole('ADMIN')") // Require ADMIN role
+	@RequiresPermission(Permission.ADMIN_CONSOLE) // Require a role granting the admin console (ADMIN)
 	public String adminAccess() {
 		return "Admin Board."; // Return a message accessible by admins
 	}
@@ -1,19 +1,24 @@
 package com.scalar.identityProvider.controllers;
 
+import com.scalar.identityProvider.events.MembershipChangedEvent;
+import com.scalar.identityProvider.events.UserAccountChangedEvent;
 import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Permission;
 import com.scalar.identityProvider.models.Role;
 import com.scalar.identityProvider.models.User;
 import com.scalar.identityProvider.payload.request.CreateUserRequest;
 import com.scalar.identityProvider.payload.request.UpdateUserRequest;
 import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.payload.response.UserResponse;
 import com.scalar.identityProvider.repository.RoleRepository;
 import com.scalar.identityProvider.repository.UserRepository;
 import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
 import com.scalar.identityProvider.security.services.UserDetailsImpl;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,6 +43,9 @@ public class UserManagementController {
     @Autowired
     private PasswordEncoder encoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Crear un nuevo usuario en el tenant actual.
      * Solo accesible para administradores.
@@ -46,7 +54,7 @@ public class UserManagementController {
      * @return ResponseEntity con el resultado de la operación.
      */
     @PostMapping("/create")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresPermission(Permission.USER_CREATE)
     public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserRequest createUserRequest) {
         
         String tenantId = TenantContext.getCurrentTenant();
@@ -55,14 +63,14 @@ public class UserManagementController {
         if (userRepository.existsByUsernameAndTenantId(createUserRequest.getUsername(), tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Username is already taken!"));
+                    .body(MessageResponse.of("Error: Username is already taken!"));
         }
 
         // Check if the email is already in use for this tenant
         if (userRepository.existsByEmailAndTenantId(createUserRequest.getEmail(), tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Email is already in use!"));
+                    .body(MessageResponse.of("Error: Email is already in use!"));
         }
 
         // Create a new user's account
@@ -107,8 +115,9 @@ public class UserManagementController {
         // Assign roles to the user and save it to the database
         user.setRoles(roles);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId(), user.getUsername(), tenantId));
 
-        return ResponseEntity.ok(new MessageResponse("User created successfully!"));
+        return ResponseEntity.ok(MessageResponse.of("User created successfully!"));
     }
 
     /**
@@ -118,10 +127,12 @@ public class UserManagementController {
      * @return ResponseEntity con la lista de usuarios.
      */
     @GetMapping("/list")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresPermission(Permission.USER_READ)
     public ResponseEntity<?> getAllUsers() {
         String tenantId = TenantContext.getCurrentTenant();
-        List<User> users = userRepository.findByTenantId(tenantId);
+        List<UserResponse> users = userRepository.findByTenantId(tenantId).stream()
+                .map(UserResponse::from)
+                .toList();
         return ResponseEntity.ok(users);
     }
 
@@ -133,17 +144,17 @@ public class UserManagementController {
      * @return ResponseEntity con el usuario o mensaje de error.
      */
     @GetMapping("/{userId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresPermission(Permission.USER_READ)
     public ResponseEntity<?> getUserById(@PathVariable String userId) {
         String tenantId = TenantContext.getCurrentTenant();
         Optional<User> user = userRepository.findById(userId);
         
         if (user.isPresent() && user.get().getTenantId().equals(tenantId)) {
-            return ResponseEntity.ok(user.get());
+            return ResponseEntity.ok(UserResponse.from(user.get()));
         } else {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: User not found!"));
+                    .body(MessageResponse.of("Error: User not found!"));
         }
     }
 
@@ -156,62 +167,65 @@ public class UserManagementController {
      * @return ResponseEntity con el resultado de la operación.
      */
     @PutMapping("/{userId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresPermission(Permission.USER_UPDATE)
     public ResponseEntity<?> updateUser(@PathVariable String userId, @Valid @RequestBody UpdateUserRequest updateUserRequest) {
         String tenantId = TenantContext.getCurrentTenant();
-        Optional<User> userOpt = userRepository.findById(userId);
-        
-        if (!userOpt.isPresent() || !userOpt.get().getTenantId().equals(tenantId)) {
-            return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: User not found!"));
-        }
 
-        User user = userOpt.get();
+        String email = null;
+        String encodedPassword = null;
+        Set<Role> roles = null;
 
         // Update email if provided
         if (updateUserRequest.getEmail() != null && !updateUserRequest.getEmail().isEmpty()) {
             // Check if the new email is already in use by another user
-            if (userRepository.existsByEmailAndTenantId(updateUserRequest.getEmail(), tenantId) && 
-                !updateUserRequest.getEmail().equals(user.getEmail())) {
+            if (userRepository.existsByEmailAndTenantIdAndIdNot(updateUserRequest.getEmail(), tenantId, userId)) {
                 return ResponseEntity
                         .badRequest()
-                        .body(new MessageResponse("Error: Email is already in use!"));
+                        .body(MessageResponse.of("Error: Email is already in use!"));
             }
-            user.setEmail(updateUserRequest.getEmail());
+            email = updateUserRequest.getEmail();
         }
 
         // Update password if provided
         if (updateUserRequest.getPassword() != null && !updateUserRequest.getPassword().isEmpty()) {
-            user.setPassword(encoder.encode(updateUserRequest.getPassword()));
+            encodedPassword = encoder.encode(updateUserRequest.getPassword());
         }
 
         // Update roles if provided
         if (updateUserRequest.getRoles() != null && !updateUserRequest.getRoles().isEmpty()) {
-            Set<Role> roles = new HashSet<>();
+            Set<Role> requestedRoles = new HashSet<>();
             updateUserRequest.getRoles().forEach(role -> {
                 switch (role) {
                     case "admin":
                         Role adminRole = roleRepository.findByNameAndTenantId(EmployeeRole.ROLE_ADMIN, tenantId)
                                 .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(adminRole);
+                        requestedRoles.add(adminRole);
                         break;
                     case "mod":
                         Role modRole = roleRepository.findByNameAndTenantId(EmployeeRole.ROLE_MODERATOR, tenantId)
                                 .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(modRole);
+                        requestedRoles.add(modRole);
                         break;
                     default:
                         Role userRole = roleRepository.findByNameAndTenantId(EmployeeRole.ROLE_USER, tenantId)
                                 .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(userRole);
+                        requestedRoles.add(userRole);
                 }
             });
-            user.setRoles(roles);
+            roles = requestedRoles;
         }
 
-        userRepository.save(user);
-        return ResponseEntity.ok(new MessageResponse("User updated successfully!"));
+        // Apply only the changed fields in one atomic write scoped to the tenant
+        if (!userRepository.updateProfile(userId, tenantId, email, encodedPassword, roles)) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(MessageResponse.of("Error: User not found!"));
+        }
+        if (roles != null) {
+            eventPublisher.publishEvent(new MembershipChangedEvent(userId, tenantId));
+        }
+
+        return ResponseEntity.ok(MessageResponse.of("User updated successfully!"));
     }
 
     /**
@@ -222,7 +236,7 @@ public class UserManagementController {
      * @return ResponseEntity con el resultado de la operación.
      */
     @DeleteMapping("/{userId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresPermission(Permission.USER_DELETE)
     public ResponseEntity<?> deleteUser(@PathVariable String userId) {
         String tenantId = TenantContext.getCurrentTenant();
         Optional<User> userOpt = userRepository.findById(userId);
@@ -230,7 +244,7 @@ public class UserManagementController {
         if (!userOpt.isPresent() || !userOpt.get().getTenantId().equals(tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: User not found!"));
+                    .body(MessageResponse.of("Error: User not found!"));
         }
 
         // Verificar que no se está eliminando a sí mismo
@@ -240,10 +254,12 @@ public class UserManagementController {
         if (userOpt.get().getId().equals(userDetails.getId())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: No puedes eliminarte a ti mismo!"));
+                    .body(MessageResponse.of("Error: No puedes eliminarte a ti mismo!"));
         }
 
         userRepository.deleteById(userId);
-        return ResponseEntity.ok(new MessageResponse("User deleted successfully!"));
+        eventPublisher.publishEvent(new MembershipChangedEvent(userId, tenantId));
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId, userOpt.get().getUsername(), tenantId));
+        return ResponseEntity.ok(MessageResponse.of("User deleted successfully!"));
     }
 }
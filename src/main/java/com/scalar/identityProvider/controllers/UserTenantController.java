@@ -1,16 +1,22 @@
 package com.scalar.identityProvider.controllers;
 
+import com.scalar.identityProvider.models.Permission;
 import com.scalar.identityProvider.models.User;
-import com.scalar.identityProvider.models.UserTenantRole;
 import com.scalar.identityProvider.payload.request.AddUserToTenantRequest;
 import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.payload.response.UserTenantRoleResponse;
 import com.scalar.identityProvider.repository.UserRepository;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.PermissionAuthorizationManager;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.services.MembershipIndex;
 import com.scalar.identityProvider.services.TenantService;
 import com.scalar.identityProvider.services.UserTenantRoleService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,50 +28,55 @@ import java.util.Set;
 @RequestMapping("/api/admin/tenant-users")
 public class UserTenantController {
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private TenantService tenantService;
 
     @Autowired
     private UserTenantRoleService userTenantRoleService;
 
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
     /**
      * Agregar un usuario existente a un tenant con roles específicos.
-     * Solo accesible para administradores.
+     * Solo accesible para administradores, en su propio tenant.
      *
      * @param addUserRequest La petición para agregar usuario a tenant.
      * @return ResponseEntity con el resultado de la operación.
      */
     @PostMapping("/add-user")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @RequiresPermission(Permission.MEMBERSHIP_MANAGE)
     public ResponseEntity<?> addUserToTenant(@Valid @RequestBody AddUserToTenantRequest addUserRequest) {
         
-        // Verificar que el tenant existe
-        if (!tenantService.existsByTenantId(addUserRequest.getTenantId())) {
+        // Verificar que el tenant es el actual
+        if (!canManageMemberships(addUserRequest.getTenantId())) {
+            return forbiddenTenant();
+        }
+
+        // Verificar que el tenant existe y no está en eliminación
+        if (!tenantService.isActiveTenant(addUserRequest.getTenantId())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
 
-        // Buscar el usuario por username
-        List<User> users = userRepository.findByUsername(addUserRequest.getUsername());
-        if (users.isEmpty()) {
+        // Buscar la cuenta del usuario por username, preferentemente la del tenant actual
+        Optional<String> userId = membershipIndex.resolveAccountId(
+                addUserRequest.getUsername(), TenantContext.getCurrentTenant());
+        if (userId.isEmpty()) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Usuario no encontrado!"));
+                    .body(MessageResponse.of("Error: Usuario no encontrado!"));
         }
 
-        // Si hay múltiples usuarios con el mismo username, tomar el primero
-        // En un sistema real, podrías querer ser más específico
-        User user = users.get(0);
-
         // Verificar si el usuario ya tiene roles en este tenant
-        if (userTenantRoleService.getUserRolesInTenant(user.getId(), addUserRequest.getTenantId()).isPresent()) {
+        if (membershipIndex.hasAssignedRoles(addUserRequest.getUsername(), userId.get(), addUserRequest.getTenantId())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: El usuario ya tiene roles asignados en este tenant!"));
+                    .body(MessageResponse.of("Error: El usuario ya tiene roles asignados en este tenant!"));
         }
 
         // Asignar roles por defecto si no se especifican
@@ -75,9 +86,9 @@ public class UserTenantController {
         }
 
         // Asignar roles al usuario en el tenant
-        userTenantRoleService.assignRolesToUser(user.getId(), addUserRequest.getTenantId(), roles);
+        userTenantRoleService.assignRolesToUser(userId.get(), addUserRequest.getTenantId(), roles);
 
-        return ResponseEntity.ok(new MessageResponse("Usuario agregado al tenant exitosamente!"));
+        return ResponseEntity.ok(MessageResponse.of("Usuario agregado al tenant exitosamente!"));
     }
 
     /**
@@ -88,17 +99,19 @@ public class UserTenantController {
      * @return ResponseEntity con la lista de usuarios del tenant.
      */
     @GetMapping("/tenant/{tenantId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @RequiresPermission(Permission.MEMBERSHIP_READ)
     public ResponseEntity<?> getTenantUsers(@PathVariable String tenantId) {
         
-        // Verificar que el tenant existe
-        if (!tenantService.existsByTenantId(tenantId)) {
+        // Verificar que el tenant existe y no está en eliminación
+        if (!tenantService.isActiveTenant(tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
 
-        List<UserTenantRole> tenantUsers = userTenantRoleService.getTenantUsers(tenantId);
+        List<UserTenantRoleResponse> tenantUsers = userTenantRoleService.getTenantUsers(tenantId).stream()
+                .map(UserTenantRoleResponse::from)
+                .toList();
         return ResponseEntity.ok(tenantUsers);
     }
 
@@ -110,24 +123,26 @@ public class UserTenantController {
      * @return ResponseEntity con la lista de tenants del usuario.
      */
     @GetMapping("/user/{userId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @RequiresPermission(Permission.MEMBERSHIP_READ)
     public ResponseEntity<?> getUserTenants(@PathVariable String userId) {
         
         // Verificar que el usuario existe
-        Optional<User> user = userRepository.findById(userId);
+        Optional<User> user = userRepository.findByIdAcrossTargets(userId);
         if (!user.isPresent()) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Usuario no encontrado!"));
+                    .body(MessageResponse.of("Error: Usuario no encontrado!"));
         }
 
-        List<UserTenantRole> userTenants = userTenantRoleService.getUserTenants(userId);
+        List<UserTenantRoleResponse> userTenants = userTenantRoleService.getUserTenants(userId).stream()
+                .map(UserTenantRoleResponse::from)
+                .toList();
         return ResponseEntity.ok(userTenants);
     }
 
     /**
      * Actualizar roles de un usuario en un tenant específico.
-     * Solo accesible para administradores.
+     * Solo accesible para administradores, en su propio tenant.
      *
      * @param userId El ID del usuario.
      * @param tenantId El ID del tenant.
@@ -135,25 +150,30 @@ public class UserTenantController {
      * @return ResponseEntity con el resultado de la operación.
      */
     @PutMapping("/user/{userId}/tenant/{tenantId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @RequiresPermission(Permission.MEMBERSHIP_MANAGE)
     public ResponseEntity<?> updateUserRolesInTenant(
             @PathVariable String userId,
             @PathVariable String tenantId,
             @RequestBody Set<String> roles) {
         
+        // Verificar que el tenant es el actual
+        if (!canManageMemberships(tenantId)) {
+            return forbiddenTenant();
+        }
+
         // Verificar que el usuario existe
-        Optional<User> user = userRepository.findById(userId);
+        Optional<User> user = userRepository.findByIdAcrossTargets(userId);
         if (!user.isPresent()) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Usuario no encontrado!"));
+                    .body(MessageResponse.of("Error: Usuario no encontrado!"));
         }
 
-        // Verificar que el tenant existe
-        if (!tenantService.existsByTenantId(tenantId)) {
+        // Verificar que el tenant existe y no está en eliminación
+        if (!tenantService.isActiveTenant(tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
 
         // Asignar roles por defecto si no se especifican
@@ -164,41 +184,66 @@ public class UserTenantController {
         // Actualizar roles del usuario en el tenant
         userTenantRoleService.assignRolesToUser(userId, tenantId, roles);
 
-        return ResponseEntity.ok(new MessageResponse("Roles del usuario actualizados exitosamente!"));
+        return ResponseEntity.ok(MessageResponse.of("Roles del usuario actualizados exitosamente!"));
     }
 
     /**
      * Remover un usuario de un tenant específico.
-     * Solo accesible para administradores.
+     * Solo accesible para administradores, en su propio tenant.
      *
      * @param userId El ID del usuario.
      * @param tenantId El ID del tenant.
      * @return ResponseEntity con el resultado de la operación.
      */
     @DeleteMapping("/user/{userId}/tenant/{tenantId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @RequiresPermission(Permission.MEMBERSHIP_MANAGE)
     public ResponseEntity<?> removeUserFromTenant(
             @PathVariable String userId,
             @PathVariable String tenantId) {
         
+        // Verificar que el tenant es el actual
+        if (!canManageMemberships(tenantId)) {
+            return forbiddenTenant();
+        }
+
         // Verificar que el usuario existe
-        Optional<User> user = userRepository.findById(userId);
+        Optional<User> user = userRepository.findByIdAcrossTargets(userId);
         if (!user.isPresent()) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Usuario no encontrado!"));
+                    .body(MessageResponse.of("Error: Usuario no encontrado!"));
         }
 
-        // Verificar que el tenant existe
-        if (!tenantService.existsByTenantId(tenantId)) {
+        // Verificar que el tenant existe y no está en eliminación
+        if (!tenantService.isActiveTenant(tenantId)) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Tenant no encontrado!"));
+                    .body(MessageResponse.of("Error: Tenant no encontrado!"));
         }
 
         // Remover usuario del tenant
         userTenantRoleService.removeUserFromTenant(userId, tenantId);
 
-        return ResponseEntity.ok(new MessageResponse("Usuario removido del tenant exitosamente!"));
+        return ResponseEntity.ok(MessageResponse.of("Usuario removido del tenant exitosamente!"));
+    }
+
+    /**
+     * Comprueba si el usuario actual puede gestionar las membresías de un tenant. MEMBERSHIP_MANAGE
+     * se concede por tenant, así que solo vale para el tenant actual; los demás requieren el
+     * permiso global de un operador.
+     *
+     * @param tenantId El ID del tenant.
+     * @return true si es el tenant actual o el usuario es un operador.
+     */
+    private static boolean canManageMemberships(String tenantId) {
+        return tenantId.equals(TenantContext.getCurrentTenant())
+                || PermissionAuthorizationManager.isGranted(SecurityContextHolder.getContext().getAuthentication(),
+                        Permission.GLOBAL_MEMBERSHIP_MANAGE.mask());
+    }
+
+    private static ResponseEntity<?> forbiddenTenant() {
+        return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .body(MessageResponse.of("Error: Solo se pueden gestionar los miembros del tenant actual!"));
     }
 }
@@ -0,0 +1,11 @@
+package com.scalar.identityProvider.events;
+
+/**
+ * Published after the roles of a user in a tenant changed or the membership was removed.
+ * Listeners use it to invalidate whatever they cached for the (userId, tenantId) pair.
+ *
+ * @param userId The ID of the user.
+ * @param tenantId The ID of the tenant.
+ */
+public record MembershipChangedEvent(String userId, String tenantId) {
+}
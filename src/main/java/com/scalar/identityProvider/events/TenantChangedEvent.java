@@ -0,0 +1,10 @@
+package com.scalar.identityProvider.events;
+
+/**
+ * Published after a tenant document was created or updated (including deactivation and
+ * storage target changes). Listeners use it to invalidate whatever they derived from it.
+ *
+ * @param tenantId The ID of the tenant.
+ */
+public record TenantChangedEvent(String tenantId) {
+}
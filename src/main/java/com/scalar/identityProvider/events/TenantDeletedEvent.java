@@ -0,0 +1,10 @@
+package com.scalar.identityProvider.events;
+
+/**
+ * Published when the data of a tenant has been deleted.
+ * Listeners use it to drop everything they cached for the tenant.
+ *
+ * @param tenantId The ID of the tenant.
+ */
+public record TenantDeletedEvent(String tenantId) {
+}
@@ -0,0 +1,12 @@
+package com.scalar.identityProvider.events;
+
+/**
+ * Published after a user account was created, updated or deleted.
+ * Listeners use it to invalidate whatever they cached for the username.
+ *
+ * @param userId The ID of the user account.
+ * @param username The username of the account.
+ * @param tenantId The ID of the tenant the account belongs to.
+ */
+public record UserAccountChangedEvent(String userId, String username, String tenantId) {
+}
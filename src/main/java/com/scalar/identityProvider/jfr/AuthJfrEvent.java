@@ -0,0 +1,46 @@
+package com.scalar.identityProvider.jfr;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the JFR events of the authentication and authorization path.
+ * Events are created and committed by {@link JfrObservationHandler} from the observations
+ * of the same stages; stack traces are off so they stay cheap enough to leave enabled.
+ */
+@Category({"Identity Provider", "Authentication"})
+@StackTrace(false)
+public abstract class AuthJfrEvent extends Event {
+
+  /**
+   * Category shared by all events, used by {@link AuthRecordingAnalyzer} to find them.
+   */
+  public static final String CATEGORY = "Identity Provider";
+
+  @Label("Tenant")
+  String tenant;
+
+  @Label("Outcome")
+  String outcome;
+
+  /**
+   * Copy the fields of the event from its observation.
+   *
+   * @param context The context of the stopped observation.
+   */
+  void fill(Observation.Context context) {
+    tenant = valueOf(context.getHighCardinalityKeyValue("tenant.id"));
+    outcome = context.getError() != null
+        ? "error"
+        : valueOf(context.getLowCardinalityKeyValue("outcome"));
+  }
+
+  static String valueOf(KeyValue keyValue) {
+    return keyValue != null ? keyValue.getValue() : null;
+  }
+}
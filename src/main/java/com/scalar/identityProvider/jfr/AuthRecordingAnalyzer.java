@@ -0,0 +1,67 @@
+package com.scalar.identityProvider.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the authentication events of a JFR recording into per-stage latency percentiles.
+ * Only depends on the JDK, so it runs against the compiled classes:
+ * {@code java -cp target/classes com.scalar.identityProvider.jfr.AuthRecordingAnalyzer recording.jfr [--by-tenant]}
+ */
+public final class AuthRecordingAnalyzer {
+
+  private AuthRecordingAnalyzer() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: AuthRecordingAnalyzer <recording.jfr> [--by-tenant]");
+      System.exit(1);
+    }
+    boolean byTenant = args.length > 1 && "--by-tenant".equals(args[1]);
+
+    // stage (and tenant) -> durations in nanoseconds, outcome counts
+    Map<String, List<Long>> durations = new TreeMap<>();
+    Map<String, Map<String, Integer>> outcomes = new TreeMap<>();
+    try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+      while (recording.hasMoreEvents()) {
+        RecordedEvent event = recording.readEvent();
+        if (!event.getEventType().getCategoryNames().contains(AuthJfrEvent.CATEGORY)) {
+          continue;
+        }
+        String stage = event.getEventType().getLabel();
+        if (byTenant) {
+          String tenant = event.getString("tenant");
+          stage = stage + " [" + (tenant != null ? tenant : "-") + "]";
+        }
+        durations.computeIfAbsent(stage, key -> new ArrayList<>()).add(event.getDuration().toNanos());
+        String outcome = event.getString("outcome");
+        outcomes.computeIfAbsent(stage, key -> new TreeMap<>())
+            .merge(outcome != null ? outcome : "-", 1, Integer::sum);
+      }
+    }
+
+    System.out.printf("%-40s %8s %10s %10s %10s %10s  %s%n", "stage", "count", "p50 ms", "p90 ms", "p99 ms", "max ms", "outcomes");
+    durations.forEach((stage, values) -> {
+      values.sort(null);
+      System.out.printf("%-40s %8d %10.3f %10.3f %10.3f %10.3f  %s%n", stage, values.size(),
+          percentile(values, 0.50), percentile(values, 0.90), percentile(values, 0.99),
+          values.get(values.size() - 1) / 1_000_000.0, outcomes.get(stage));
+    });
+  }
+
+  /**
+   * Get a percentile of sorted durations, in milliseconds (nearest rank).
+   */
+  private static double percentile(List<Long> sorted, double percentile) {
+    int rank = (int) Math.ceil(percentile * sorted.size());
+    return sorted.get(Math.max(rank - 1, 0)) / 1_000_000.0;
+  }
+}
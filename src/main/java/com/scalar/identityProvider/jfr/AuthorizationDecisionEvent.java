@@ -0,0 +1,30 @@
+package com.scalar.identityProvider.jfr;
+
+import io.micrometer.observation.Observation;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.scalar.identityProvider.AuthorizationDecision")
+@Label("Authorization Decision")
+@Description("Batch of authorization checks answered by /api/authz/check")
+public class AuthorizationDecisionEvent extends AuthJfrEvent {
+
+  @Label("Checks")
+  int checks;
+
+  @Label("Allowed")
+  int allowed;
+
+  @Override
+  void fill(Observation.Context context) {
+    super.fill(context);
+    checks = parseInt(valueOf(context.getHighCardinalityKeyValue("authz.checks")));
+    allowed = parseInt(valueOf(context.getHighCardinalityKeyValue("authz.allowed")));
+  }
+
+  private static int parseInt(String value) {
+    return value != null ? Integer.parseInt(value) : 0;
+  }
+}
@@ -0,0 +1,53 @@
+package com.scalar.identityProvider.jfr;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a JFR event for each observation of the authentication and authorization stages.
+ * When the event type is disabled in the recording settings, or no recording is running,
+ * the handler only allocates the event and checks {@code isEnabled()}.
+ */
+@Component
+public class JfrObservationHandler implements ObservationHandler<Observation.Context> {
+
+  private static final Map<String, Supplier<AuthJfrEvent>> EVENTS = Map.of(
+      "auth.jwt.verify", TokenVerificationEvent::new,
+      "auth.user.load", UserLoadEvent::new,
+      "auth.password", PasswordCheckEvent::new,
+      "auth.tenant.switch", TenantSwitchEvent::new,
+      "auth.authz.decide", AuthorizationDecisionEvent::new);
+
+  @Override
+  public boolean supportsContext(Observation.Context context) {
+    return context.getName() != null && EVENTS.containsKey(context.getName());
+  }
+
+  @Override
+  public void onStart(Observation.Context context) {
+    AuthJfrEvent event = EVENTS.get(context.getName()).get();
+    if (event.isEnabled()) {
+      event.begin();
+      context.put(AuthJfrEvent.class, event);
+    }
+  }
+
+  @Override
+  public void onStop(Observation.Context context) {
+    AuthJfrEvent event = context.get(AuthJfrEvent.class);
+    if (event == null) {
+      return;
+    }
+    event.end();
+    // Fields are only copied for events above the recording threshold
+    if (event.shouldCommit()) {
+      event.fill(context);
+      event.commit();
+    }
+  }
+}
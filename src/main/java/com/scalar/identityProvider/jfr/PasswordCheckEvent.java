@@ -0,0 +1,22 @@
+package com.scalar.identityProvider.jfr;
+
+import io.micrometer.observation.Observation;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.scalar.identityProvider.PasswordCheck")
+@Label("Password Check")
+@Description("Password hashing or verification")
+public class PasswordCheckEvent extends AuthJfrEvent {
+
+  @Label("Operation")
+  String operation;
+
+  @Override
+  void fill(Observation.Context context) {
+    super.fill(context);
+    operation = valueOf(context.getLowCardinalityKeyValue("operation"));
+  }
+}
@@ -0,0 +1,11 @@
+package com.scalar.identityProvider.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.scalar.identityProvider.TenantSwitch")
+@Label("Tenant Switch")
+@Description("Exchanging an access token for one of another tenant")
+public class TenantSwitchEvent extends AuthJfrEvent {
+}
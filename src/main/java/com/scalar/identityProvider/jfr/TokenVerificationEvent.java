@@ -0,0 +1,11 @@
+package com.scalar.identityProvider.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.scalar.identityProvider.TokenVerification")
+@Label("Token Verification")
+@Description("JWT signature and claims verification")
+public class TokenVerificationEvent extends AuthJfrEvent {
+}
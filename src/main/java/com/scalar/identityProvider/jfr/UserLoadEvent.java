@@ -0,0 +1,11 @@
+package com.scalar.identityProvider.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.scalar.identityProvider.UserLoad")
+@Label("User Load")
+@Description("Loading the user of a token or signin from the repository")
+public class UserLoadEvent extends AuthJfrEvent {
+}
@@ -0,0 +1,190 @@
+package com.scalar.identityProvider.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+* Mongo driver listener recording command latency per collection, command and originating
+* repository method ({@code mongodb.command}), connection pool checkout wait time
+* ({@code mongodb.pool.wait}), and a sampled log of slow commands with their query shape.
+* The shape keeps field names and operators but replaces every value with {@code ?},
+* so no user data reaches the log.
+*/
+@Component
+public class MongoCommandMetrics implements CommandListener, ConnectionPoolListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+  private static final String NONE = "none";
+
+  private final MeterRegistry meterRegistry;
+
+  private final long slowThresholdNanos;
+
+  private final double slowSampleRate;
+
+  // requestId -> command in flight
+  private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+
+  private final Map<TimerKey, Timer> commandTimers = new ConcurrentHashMap<>();
+
+  private final Map<String, Timer> poolWaitTimers = new ConcurrentHashMap<>();
+
+  private record InFlight(String collection, String repositoryMethod, String shape) {
+  }
+
+  private record TimerKey(String collection, String command, String repositoryMethod, String status) {
+  }
+
+  public MongoCommandMetrics(MeterRegistry meterRegistry,
+      @Value("${mongoSlowQueryThresholdMs}") long slowThresholdMs,
+      @Value("${mongoSlowQuerySampleRate}") double slowSampleRate) {
+    this.meterRegistry = meterRegistry;
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    this.slowSampleRate = slowSampleRate;
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    BsonDocument command = event.getCommand();
+    // The command document is only valid during this callback: extract what is needed now,
+    // and the shape only for the sampled commands that may end up in the slow-query log
+    String shape = slowSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < slowSampleRate
+        ? shapeOf(event.getCommandName(), command)
+        : null;
+    String repositoryMethod = RepositoryMethodContext.getCurrentMethod();
+    inFlight.put(event.getRequestId(), new InFlight(collectionOf(event.getCommandName(), command),
+        repositoryMethod != null ? repositoryMethod : NONE, shape));
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    poolWaitTimer("success").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+    poolWaitTimer(event.getReason().name().toLowerCase())
+        .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  private void completed(int requestId, String commandName, long elapsedNanos, String status) {
+    InFlight started = inFlight.remove(requestId);
+    if (started == null) {
+      return;
+    }
+    commandTimers.computeIfAbsent(
+        new TimerKey(started.collection(), commandName, started.repositoryMethod(), status),
+        key -> Timer.builder("mongodb.command")
+            .description("Mongo command latency by collection, command and repository method")
+            .tag("collection", key.collection())
+            .tag("command", key.command())
+            .tag("repository.method", key.repositoryMethod())
+            .tag("status", key.status())
+            .publishPercentileHistogram()
+            .register(meterRegistry))
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+    if (started.shape() != null && elapsedNanos >= slowThresholdNanos) {
+      logger.warn("Slow Mongo command: {} ms {}.{} from {} shape={}",
+          Duration.ofNanos(elapsedNanos).toMillis(), started.collection(), commandName,
+          started.repositoryMethod(), started.shape());
+    }
+  }
+
+  private Timer poolWaitTimer(String outcome) {
+    return poolWaitTimers.computeIfAbsent(outcome, key -> Timer.builder("mongodb.pool.wait")
+        .description("Time spent waiting to check out a Mongo connection")
+        .tag("outcome", key)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+
+  /**
+  * Get the collection a command targets, e.g. {@code {find: "users", ...}}.
+  */
+  private static String collectionOf(String commandName, BsonDocument command) {
+    BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+    return value != null && value.isString() ? value.asString().getValue() : NONE;
+  }
+
+  /**
+  * Get the query shape of a command: its filter, update or pipeline with every value replaced.
+  */
+  private static String shapeOf(String commandName, BsonDocument command) {
+    BsonValue query = switch (commandName) {
+      case "find" -> command.get("filter");
+      case "count", "findAndModify" -> command.get("query");
+      case "aggregate" -> command.get("pipeline");
+      case "update" -> firstStatement(command.get("updates"), "q");
+      case "delete" -> firstStatement(command.get("deletes"), "q");
+      default -> null;
+    };
+    if (query == null) {
+      return commandName;
+    }
+    BsonValue sort = command.get("sort");
+    return sort != null ? redact(query) + " sort=" + sort.toString() : redact(query).toString();
+  }
+
+  private static BsonValue firstStatement(BsonValue statements, String field) {
+    if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) {
+      return null;
+    }
+    BsonValue first = statements.asArray().get(0);
+    return first.isDocument() ? first.asDocument().get(field) : null;
+  }
+
+  private static BsonValue redact(BsonValue value) {
+    if (value.isDocument()) {
+      BsonDocument shape = new BsonDocument();
+      value.asDocument().forEach((key, nested) -> shape.put(key, redact(nested)));
+      return shape;
+    }
+    if (value.isArray()) {
+      // Operator lists ($and, $or, pipelines) keep their structure, value lists collapse
+      BsonArray array = value.asArray();
+      if (!array.isEmpty() && array.get(0).isDocument()) {
+        BsonArray shape = new BsonArray();
+        array.forEach(element -> shape.add(redact(element)));
+        return shape;
+      }
+      return new BsonArray(List.of(new BsonString("?")));
+    }
+    return new BsonString("?");
+  }
+}
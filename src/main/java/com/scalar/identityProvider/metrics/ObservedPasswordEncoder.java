@@ -0,0 +1,51 @@
+package com.scalar.identityProvider.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * PasswordEncoder that records the time spent hashing and verifying passwords
+ * as the {@code auth.password} observation, tagged by operation.
+ */
+public class ObservedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+
+  private final ObservationRegistry observationRegistry;
+
+  public ObservedPasswordEncoder(PasswordEncoder delegate, ObservationRegistry observationRegistry) {
+    this.delegate = delegate;
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return Observation.createNotStarted("auth.password", observationRegistry)
+        .lowCardinalityKeyValue("operation", "encode")
+        .observe(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    Observation observation = Observation.createNotStarted("auth.password", observationRegistry)
+        .lowCardinalityKeyValue("operation", "match")
+        .start();
+    try {
+      boolean matches = delegate.matches(rawPassword, encodedPassword);
+      observation.lowCardinalityKeyValue("outcome", matches ? "match" : "mismatch");
+      return matches;
+    } catch (RuntimeException e) {
+      observation.error(e);
+      throw e;
+    } finally {
+      observation.stop();
+    }
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -0,0 +1,58 @@
+package com.scalar.identityProvider.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds the repository method being executed (e.g. {@code UserRepository.findByUsernameAndTenantId})
+ * for the duration of the call, so Mongo commands issued by it can be attributed to it, and
+ * observes the call as {@code repository.method} so each repository call is a span.
+ * Installed on every Spring Data repository proxy when the repository factories are created.
+ */
+@Component
+public class RepositoryMethodContext implements BeanPostProcessor {
+
+  private static final ScopedValue<String> CURRENT_METHOD = ScopedValue.newInstance();
+
+  // Resolved on first call: post-processors are created before the rest of the beans
+  private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+  public RepositoryMethodContext(ObjectProvider<ObservationRegistry> observationRegistry) {
+    this.observationRegistry = observationRegistry;
+  }
+
+  /**
+   * Get the repository method executing on this thread.
+   *
+   * @return The method as {@code Repository.method}, or null outside repository calls.
+   */
+  public static String getCurrentMethod() {
+    return CURRENT_METHOD.orElse(null);
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+      factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+          (proxyFactory, repositoryInformation) -> {
+            String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+            proxyFactory.addAdvice(0, (MethodInterceptor) invocation -> {
+              String method = repository + "." + invocation.getMethod().getName();
+              return Observation.createNotStarted("repository.method",
+                      observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                  .contextualName(method)
+                  .lowCardinalityKeyValue("repository.method", method)
+                  .observeChecked(() -> ScopedValue.where(CURRENT_METHOD, method).call(invocation::proceed));
+            });
+          }));
+    }
+    return bean;
+  }
+}
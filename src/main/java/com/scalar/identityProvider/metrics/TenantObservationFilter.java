@@ -0,0 +1,26 @@
+package com.scalar.identityProvider.metrics;
+
+import com.scalar.identityProvider.security.TenantContext;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationFilter;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the bound tenant as the {@code tenant.id} span attribute of every observation.
+ * It is a high cardinality key value, so it reaches traces but never metric tags.
+ */
+@Component
+public class TenantObservationFilter implements ObservationFilter {
+
+  @Override
+  public Observation.Context map(Observation.Context context) {
+    String tenantId = TenantContext.getCurrentTenant();
+    if (tenantId != null && context.getHighCardinalityKeyValue("tenant.id") == null) {
+      context.addHighCardinalityKeyValue(KeyValue.of("tenant.id", tenantId));
+    }
+    return context;
+  }
+}
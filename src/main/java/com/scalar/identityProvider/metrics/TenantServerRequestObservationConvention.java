@@ -0,0 +1,23 @@
+package com.scalar.identityProvider.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the bounded tenant tag set by {@code AuthTokenFilter} to the {@code http.server.requests}
+ * metrics, so every controller endpoint is timed per tenant.
+ */
+@Component
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+  @Override
+  public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+    Object tenant = context.getCarrier().getAttribute(TenantTagLimiter.REQUEST_ATTRIBUTE);
+    return super.getLowCardinalityKeyValues(context)
+        .and(KeyValue.of("tenant", tenant != null ? tenant.toString() : TenantTagLimiter.NONE));
+  }
+}
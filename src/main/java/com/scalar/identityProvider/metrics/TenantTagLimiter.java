@@ -0,0 +1,52 @@
+package com.scalar.identityProvider.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounds the cardinality of the tenant tag on metrics: the first tenants seen keep their own
+ * tag and every later one is reported as {@value #OTHER}. Only tenants taken from verified
+ * tokens should be passed here, so unauthenticated callers cannot fill the slots.
+ */
+@Component
+public class TenantTagLimiter {
+
+  /**
+   * Request attribute holding the tenant tag of the current request.
+   */
+  public static final String REQUEST_ATTRIBUTE = TenantTagLimiter.class.getName() + ".tenant";
+
+  public static final String NONE = "none";
+
+  public static final String OTHER = "other";
+
+  @Value("${metricsMaxTenantTags}")
+  private int maxTenantTags;
+
+  private final Set<String> tagged = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Get the tag value for a tenant.
+   *
+   * @param tenantId The tenant ID, or null.
+   * @return The tenant ID, {@value #OTHER} once the limit is reached, or {@value #NONE}.
+   */
+  public String tagFor(String tenantId) {
+    if (tenantId == null) {
+      return NONE;
+    }
+    if (tagged.contains(tenantId)) {
+      return tenantId;
+    }
+    synchronized (tagged) {
+      if (tagged.size() < maxTenantTags) {
+        tagged.add(tenantId);
+        return tenantId;
+      }
+    }
+    return OTHER;
+  }
+}
@@ -0,0 +1,96 @@
+package com.scalar.identityProvider.models;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Document(collection = "api_keys")
+public class ApiKey {
+
+    /*
+     * Unique identifier for the key document
+     */
+    @Id
+    @Getter
+    @Setter
+    private String id;
+
+    /*
+     * Public lookup prefix of the key, unique across tenants
+     */
+    @Getter
+    @Setter
+    private String prefix;
+
+    /*
+     * Tenant ID the key belongs to; requests made with it are scoped to this tenant
+     */
+    @Getter
+    @Setter
+    private String tenantId;
+
+    /*
+     * Display name of the key
+     */
+    @Getter
+    @Setter
+    private String name;
+
+    /*
+     * SHA-256 of the secret part of the key, hex encoded; the secret itself is never stored
+     */
+    @Getter
+    @Setter
+    private String secretDigest;
+
+    /*
+     * Roles granted to the key in its tenant
+     */
+    @Getter
+    @Setter
+    private Set<EmployeeRole> roles = EnumSet.noneOf(EmployeeRole.class);
+
+    /*
+     * Number of requests authenticated with the key, updated in batches
+     */
+    @Getter
+    @Setter
+    private long usageCount;
+
+    /*
+     * Date when the key was last used, updated in batches
+     */
+    @Getter
+    @Setter
+    private String lastUsedAt;
+
+    /*
+     * Date when the key was created
+     */
+    @Getter
+    @Setter
+    private String createdAt;
+
+
+    /*
+     * Default constructor
+     */
+    public ApiKey() {
+    }
+
+    /*
+     * Parameterized constructor
+     */
+    public ApiKey(String prefix, String tenantId, String name, String secretDigest, Set<EmployeeRole> roles) {
+        this.prefix = prefix;
+        this.tenantId = tenantId;
+        this.name = name;
+        this.secretDigest = secretDigest;
+        this.roles = roles;
+    }
+}
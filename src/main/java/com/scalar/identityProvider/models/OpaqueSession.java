@@ -0,0 +1,69 @@
+package com.scalar.identityProvider.models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Document(collection = "opaque_sessions")
+public class OpaqueSession {
+
+    /*
+     * SHA-256 of the opaque handle, hex encoded; the handle itself is never stored
+     */
+    @Id
+    @Getter
+    @Setter
+    private String id;
+
+    /*
+     * Username the session was issued to
+     */
+    @Getter
+    @Setter
+    private String username;
+
+    /*
+     * Tenant ID the session is scoped to
+     */
+    @Getter
+    @Setter
+    private String tenantId;
+
+    /*
+     * Whether the session was issued to a service client, the username being its client ID
+     */
+    @Getter
+    @Setter
+    private boolean client;
+
+    /*
+     * ID of the user's own account when the session was issued for roles assigned in the tenant
+     */
+    @Getter
+    @Setter
+    private String accountId;
+
+    /*
+     * Expiration time, removed by the TTL index once passed
+     */
+    @Getter
+    @Setter
+    private Date expiresAt;
+
+    public OpaqueSession() {
+    }
+
+    public OpaqueSession(String id, String username, String tenantId, boolean client, String accountId,
+                         Date expiresAt) {
+        this.id = id;
+        this.username = username;
+        this.tenantId = tenantId;
+        this.client = client;
+        this.accountId = accountId;
+        this.expiresAt = expiresAt;
+    }
+}
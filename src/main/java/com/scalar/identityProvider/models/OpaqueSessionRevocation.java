@@ -0,0 +1,53 @@
+package com.scalar.identityProvider.models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Document(collection = "opaque_session_revocations")
+public class OpaqueSessionRevocation {
+
+    /*
+     * SHA-256 of the revoked handle, hex encoded (the id of its OpaqueSession), or "tenant:" and
+     * the tenant ID when every session of a tenant is revoked
+     */
+    @Id
+    @Getter
+    @Setter
+    private String id;
+
+    /*
+     * Tenant ID whose sessions issued up to revokedAt are revoked, null for a single session
+     */
+    @Getter
+    @Setter
+    private String tenantId;
+
+    /*
+     * Time of the revocation; instances poll for the revocations made since their last poll
+     */
+    @Getter
+    @Setter
+    private Date revokedAt;
+
+    /*
+     * Time after which every revoked session has expired anyway, removed by the TTL index once passed
+     */
+    @Getter
+    @Setter
+    private Date expiresAt;
+
+    public OpaqueSessionRevocation() {
+    }
+
+    public OpaqueSessionRevocation(String id, String tenantId, Date revokedAt, Date expiresAt) {
+        this.id = id;
+        this.tenantId = tenantId;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
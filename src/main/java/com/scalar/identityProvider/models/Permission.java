@@ -0,0 +1,49 @@
+package com.scalar.identityProvider.models;
+
+/*
+ * Fine-grained permission granted through employee roles.
+ * Each permission owns one bit, so a set of permissions fits in a single long mask.
+ */
+public enum Permission {
+  CONTENT_READ,
+  CONTENT_MODERATE,
+  ADMIN_CONSOLE,
+  USER_READ,
+  USER_CREATE,
+  USER_UPDATE,
+  USER_DELETE,
+  MEMBERSHIP_READ,
+  MEMBERSHIP_MANAGE,
+  AUTHORIZATION_CHECK,
+  TENANT_STORAGE_MANAGE,
+  TENANT_DELETE,
+  CLIENT_MANAGE,
+  API_KEY_MANAGE,
+  GLOBAL_MEMBERSHIP_MANAGE;
+
+  /*
+   * Bit of this permission inside a permission mask
+   */
+  private final long mask = 1L << ordinal();
+
+  public long mask() {
+    return mask;
+  }
+
+  /*
+   * Combine permissions into a single mask
+   */
+  public static long maskOf(Permission... permissions) {
+    long mask = 0L;
+    for (Permission permission : permissions) {
+      mask |= permission.mask;
+    }
+    return mask;
+  }
+
+  static {
+    if (values().length > Long.SIZE) {
+      throw new IllegalStateException("Permission masks are limited to " + Long.SIZE + " permissions");
+    }
+  }
+}
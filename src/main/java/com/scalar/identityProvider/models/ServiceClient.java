@@ -0,0 +1,96 @@
+package com.scalar.identityProvider.models;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Document(collection = "service_clients")
+public class ServiceClient {
+
+    /*
+     * Unique identifier for the client document
+     */
+    @Id
+    @Getter
+    @Setter
+    private String id;
+
+    /*
+     * Public client identifier used in the client_credentials grant, unique across tenants
+     */
+    @Getter
+    @Setter
+    private String clientId;
+
+    /*
+     * Tenant ID the client belongs to; its tokens are scoped to this tenant
+     */
+    @Getter
+    @Setter
+    private String tenantId;
+
+    /*
+     * Display name of the client
+     */
+    @Getter
+    @Setter
+    private String name;
+
+    /*
+     * HMAC-SHA256 of the client secret, hex encoded; the secret itself is never stored
+     */
+    @Getter
+    @Setter
+    private String secretHash;
+
+    /*
+     * Roles granted to the client in its tenant
+     */
+    @Getter
+    @Setter
+    private Set<EmployeeRole> roles = EnumSet.noneOf(EmployeeRole.class);
+
+    /*
+     * Status of the client (active/inactive)
+     */
+    @Getter
+    @Setter
+    private boolean active = true;
+
+    /*
+     * Date when the client was created
+     */
+    @Getter
+    @Setter
+    private String createdAt;
+
+    /*
+     * Date when the client was last updated
+     */
+    @Getter
+    @Setter
+    private String updatedAt;
+
+
+    /*
+     * Default constructor
+     */
+    public ServiceClient() {
+    }
+
+    /*
+     * Parameterized constructor
+     */
+    public ServiceClient(String clientId, String tenantId, String name, String secretHash, Set<EmployeeRole> roles) {
+        this.clientId = clientId;
+        this.tenantId = tenantId;
+        this.name = name;
+        this.secretHash = secretHash;
+        this.roles = roles;
+    }
+}
@@ -61,6 +61,20 @@ public class Tenant {
     @Setter
     private boolean active = true;
 
+    /*
+     * Dedicated storage target of the tenant, null when it lives in the pooled database
+     */
+    @Getter
+    @Setter
+    private String storageTarget;
+
+    /*
+     * Rate limit tier of the tenant, null for the default tier
+     */
+    @Getter
+    @Setter
+    private String rateLimitTier;
+
     /*
      * Date when the tenant was created
      */
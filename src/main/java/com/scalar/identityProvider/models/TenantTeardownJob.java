@@ -0,0 +1,144 @@
+package com.scalar.identityProvider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Document(collection = "tenant_teardown_jobs")
+public class TenantTeardownJob {
+
+    /*
+     * Status of a teardown job
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /*
+     * Unique identifier for the job
+     */
+    @Id
+    @Getter
+    @Setter
+    private String id;
+
+    /*
+     * Tenant ID being deleted, one job per tenant
+     */
+    @Getter
+    @Setter
+    private String tenantId;
+
+    /*
+     * Storage target of the tenant when the deletion was requested, null for the pooled database
+     */
+    @Getter
+    @Setter
+    private String storageTarget;
+
+    /*
+     * Current status of the job
+     */
+    @Getter
+    @Setter
+    private Status status = Status.PENDING;
+
+    /*
+     * Instance currently running the job
+     */
+    @Getter
+    @Setter
+    private String owner;
+
+    /*
+     * Epoch millis until which the owner holds the job; an expired lease lets another instance resume it
+     */
+    @Getter
+    @Setter
+    private long leaseExpiresAt;
+
+    /*
+     * Users deleted so far
+     */
+    @Getter
+    @Setter
+    private long deletedUsers;
+
+    /*
+     * Tenant role assignments deleted so far
+     */
+    @Getter
+    @Setter
+    private long deletedMemberships;
+
+    /*
+     * Roles deleted so far
+     */
+    @Getter
+    @Setter
+    private long deletedRoles;
+
+    /*
+     * Failed attempts so far; the job is marked FAILED after tenantTeardownMaxAttempts
+     */
+    @Getter
+    @Setter
+    private int attempts;
+
+    /*
+     * Error of the last failed attempt
+     */
+    @Getter
+    @Setter
+    private String error;
+
+    /*
+     * Date when the deletion was requested
+     */
+    @Getter
+    @Setter
+    private String createdAt;
+
+    /*
+     * Date when the job was last updated
+     */
+    @Getter
+    @Setter
+    private String updatedAt;
+
+    /*
+     * Date when the job finished
+     */
+    @Getter
+    @Setter
+    private String finishedAt;
+
+    /*
+     * Optimistic lock version, incremented on every write
+     */
+    @Version
+    @Getter
+    @Setter
+    private Long version;
+
+
+    /*
+     * Default constructor
+     */
+    public TenantTeardownJob() {
+    }
+
+    /*
+     * Parameterized constructor
+     */
+    public TenantTeardownJob(String tenantId, String storageTarget) {
+        this.tenantId = tenantId;
+        this.storageTarget = storageTarget;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -118,6 +119,14 @@ public class User {
   @Setter
   private String updatedAt;
 
+  /*
+   * Optimistic lock version, incremented on every write
+   */
+  @Version
+  @Getter
+  @Setter
+  private Long version;
+
 
   /*
    * Default constructor
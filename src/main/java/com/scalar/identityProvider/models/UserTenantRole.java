@@ -1,6 +1,7 @@
 package com.scalar.identityProvider.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -43,6 +44,14 @@ public class UserTenantRole {
     @Setter
     private Set<GlobalRole> roles = new HashSet<>();
 
+    /*
+     * Optimistic lock version, incremented on every write
+     */
+    @Version
+    @Getter
+    @Setter
+    private Long version;
+
 
     /*
      * Default constructor
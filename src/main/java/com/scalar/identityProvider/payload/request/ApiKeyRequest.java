@@ -0,0 +1,46 @@
+package com.scalar.identityProvider.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Request payload for creating an API key
+ */
+public class ApiKeyRequest {
+
+    /*
+     * Display name of the key
+     */
+    @NotBlank
+    @Size(max = 50)
+    @Getter
+    @Setter
+    private String name;
+
+    /*
+     * Roles assigned to the key (admin, mod or user); user if empty
+     */
+    @Getter
+    @Setter
+    private Set<String> roles;
+
+
+    /*
+     * Default constructor
+     */
+    public ApiKeyRequest() {
+    }
+
+    /*
+     * Parameterized constructor
+     */
+    public ApiKeyRequest(String name, Set<String> roles) {
+        this.name = name;
+        this.roles = roles;
+    }
+}
@@ -0,0 +1,55 @@
+package com.scalar.identityProvider.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * A single (subject, tenant, permission) question of an authorization check
+ */
+public class AuthorizationCheck {
+
+	/*
+	 * ID of the user the question is about
+	 */
+	@NotBlank
+	@Getter
+	@Setter
+	private String subject;
+
+	/*
+	 * Tenant ID in which the permission is checked
+	 */
+	@NotBlank
+	@Size(max = 20)
+	@Getter
+	@Setter
+	private String tenantId;
+
+	/*
+	 * Name of the permission, e.g. USER_READ
+	 */
+	@NotBlank
+	@Size(max = 50)
+	@Getter
+	@Setter
+	private String permission;
+
+
+	/*
+	 * Default constructor
+	 */
+	public AuthorizationCheck() {
+	}
+
+	/*
+	 * Parameterized constructor
+	 */
+	public AuthorizationCheck(String subject, String tenantId, String permission) {
+		this.subject = subject;
+		this.tenantId = tenantId;
+		this.permission = permission;
+	}
+}
@@ -0,0 +1,40 @@
+package com.scalar.identityProvider.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Request payload for evaluating many authorization checks in one call
+ */
+public class AuthorizationCheckRequest {
+
+	/*
+	 * Checks to evaluate, answered in the same order
+	 */
+	@NotEmpty
+	@Size(max = 1000)
+	@Valid
+	@Getter
+	@Setter
+	private List<AuthorizationCheck> checks;
+
+
+	/*
+	 * Default constructor
+	 */
+	public AuthorizationCheckRequest() {
+	}
+
+	/*
+	 * Parameterized constructor
+	 */
+	public AuthorizationCheckRequest(List<AuthorizationCheck> checks) {
+		this.checks = checks;
+	}
+}
@@ -0,0 +1,46 @@
+package com.scalar.identityProvider.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Request payload for creating a service client
+ */
+public class ServiceClientRequest {
+
+    /*
+     * Display name of the client
+     */
+    @NotBlank
+    @Size(max = 50)
+    @Getter
+    @Setter
+    private String name;
+
+    /*
+     * Roles assigned to the client (admin, mod or user); user if empty
+     */
+    @Getter
+    @Setter
+    private Set<String> roles;
+
+
+    /*
+     * Default constructor
+     */
+    public ServiceClientRequest() {
+    }
+
+    /*
+     * Parameterized constructor
+     */
+    public ServiceClientRequest(String name, Set<String> roles) {
+        this.name = name;
+        this.roles = roles;
+    }
+}
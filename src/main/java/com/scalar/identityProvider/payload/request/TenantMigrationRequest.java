@@ -0,0 +1,34 @@
+package com.scalar.identityProvider.payload.request;
+
+import jakarta.validation.constraints.Size;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Request payload for moving a tenant to another storage target
+ */
+public class TenantMigrationRequest {
+
+	/*
+	 * Name of the storage target, null to move the tenant back to the pooled database
+	 */
+	@Size(max = 50)
+	@Getter
+	@Setter
+	private String target;
+
+
+	/*
+	 * Default constructor
+	 */
+	public TenantMigrationRequest() {
+	}
+
+	/*
+	 * Parameterized constructor
+	 */
+	public TenantMigrationRequest(String target) {
+		this.target = target;
+	}
+}
@@ -0,0 +1,38 @@
+package com.scalar.identityProvider.payload.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.scalar.identityProvider.models.ApiKey;
+
+/*
+ * Response payload for an API key, without the secret digest. The full key is only
+ * included when the key is created
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiKeyResponse(
+		String prefix,
+		String key,
+		String tenantId,
+		String name,
+		List<String> roles,
+		long usageCount,
+		String lastUsedAt,
+		String createdAt) {
+
+	public static ApiKeyResponse from(ApiKey apiKey) {
+		return from(apiKey, null);
+	}
+
+	public static ApiKeyResponse from(ApiKey apiKey, String key) {
+		return new ApiKeyResponse(
+				apiKey.getPrefix(),
+				key,
+				apiKey.getTenantId(),
+				apiKey.getName(),
+				apiKey.getRoles().stream().map(Enum::name).sorted().toList(),
+				apiKey.getUsageCount(),
+				apiKey.getLastUsedAt(),
+				apiKey.getCreatedAt());
+	}
+}
@@ -0,0 +1,23 @@
+package com.scalar.identityProvider.payload.response;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Response payload for a batch of authorization checks
+ */
+public class AuthorizationCheckResponse {
+
+	/*
+	 * Decisions in the order of the requested checks
+	 */
+	@Getter
+	@Setter
+	private List<AuthorizationDecisionResponse> decisions;
+
+	public AuthorizationCheckResponse(List<AuthorizationDecisionResponse> decisions) {
+		this.decisions = decisions;
+	}
+}
@@ -0,0 +1,45 @@
+package com.scalar.identityProvider.payload.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Response payload for the decision of a single authorization check
+ */
+public class AuthorizationDecisionResponse {
+
+	/*
+	 * ID of the user the decision is about
+	 */
+	@Getter
+	@Setter
+	private String subject;
+
+	/*
+	 * Tenant ID in which the permission was checked
+	 */
+	@Getter
+	@Setter
+	private String tenantId;
+
+	/*
+	 * Name of the checked permission
+	 */
+	@Getter
+	@Setter
+	private String permission;
+
+	/*
+	 * Whether the permission is granted
+	 */
+	@Getter
+	@Setter
+	private boolean allowed;
+
+	public AuthorizationDecisionResponse(String subject, String tenantId, String permission, boolean allowed) {
+		this.subject = subject;
+		this.tenantId = tenantId;
+		this.permission = permission;
+		this.allowed = allowed;
+	}
+}
@@ -0,0 +1,17 @@
+package com.scalar.identityProvider.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/*
+ * Response payload of the OAuth2 token endpoint (RFC 6749, section 5.1)
+ */
+public record ClientTokenResponse(
+		@JsonProperty("access_token") String accessToken,
+		@JsonProperty("token_type") String tokenType,
+		@JsonProperty("expires_in") long expiresIn,
+		@JsonProperty("tenant_id") String tenantId) {
+
+	public ClientTokenResponse(String accessToken, long expiresIn, String tenantId) {
+		this(accessToken, "Bearer", expiresIn, tenantId);
+	}
+}
@@ -1,62 +1,76 @@
 package com.scalar.identityProvider.payload.response;
 
+import java.io.IOException;
 import java.util.List;
 
-import lombok.Getter;
-import lombok.Setter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
 /*
- * Response payload for JWT authentication
+ * Response payload for JWT authentication, written by a hand-written streaming
+ * serializer since it is returned by every signin and tenant switch
  */
-public class JwtResponse {
+@JsonSerialize(using = JwtResponse.Serializer.class)
+public record JwtResponse(
+		String accessToken,
+		String tokenType,
+		String id,
+		String username,
+		String email,
+		List<String> roles) {
 
-	/*
-	 * Access token for the authenticated user
-	 */
-	@Getter
-  	@Setter
-	private String accessToken;
-
-	/*
-	 * Type of the token, typically "Bearer"
-	 */
-	@Getter
-  	@Setter
-	private String tokenType = "Bearer";
+	public JwtResponse(String accessToken, String id, String username, String email, List<String> roles) {
+		this(accessToken, "Bearer", id, username, email, roles);
+	}
 
 	/*
-	 * Unique identifier for the user
+	 * Writes the fields in declaration order with pre-encoded names, without introspection
 	 */
-	@Getter
-	@Setter
-	private String id;
+	static final class Serializer extends StdSerializer<JwtResponse> {
 
-	/*
-	 * Username of the user
-	 */
-	@Getter
-	@Setter
-	private String username;
+		private static final SerializableString ACCESS_TOKEN = new SerializedString("accessToken");
+		private static final SerializableString TOKEN_TYPE = new SerializedString("tokenType");
+		private static final SerializableString ID = new SerializedString("id");
+		private static final SerializableString USERNAME = new SerializedString("username");
+		private static final SerializableString EMAIL = new SerializedString("email");
+		private static final SerializableString ROLES = new SerializedString("roles");
 
-	/*
-	 * Email of the user
-	 */
-	@Getter
-	@Setter
-	private String email;
+		Serializer() {
+			super(JwtResponse.class);
+		}
 
-	/*
-	 * Roles assigned to the user
-	 */
-	@Getter
-	@Setter
-	private List<String> roles;
+		@Override
+		public void serialize(JwtResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject(value);
+			writeString(gen, ACCESS_TOKEN, value.accessToken());
+			writeString(gen, TOKEN_TYPE, value.tokenType());
+			writeString(gen, ID, value.id());
+			writeString(gen, USERNAME, value.username());
+			writeString(gen, EMAIL, value.email());
+			gen.writeFieldName(ROLES);
+			if (value.roles() == null) {
+				gen.writeNull();
+			} else {
+				gen.writeStartArray(value.roles(), value.roles().size());
+				for (String role : value.roles()) {
+					gen.writeString(role);
+				}
+				gen.writeEndArray();
+			}
+			gen.writeEndObject();
+		}
 
-	public JwtResponse(String accessToken, String id, String username, String email, List<String> roles) {
-		this.accessToken = accessToken;
-		this.id = id;
-		this.username = username;
-		this.email = email;
-		this.roles = roles;
+		private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+			gen.writeFieldName(name);
+			if (value == null) {
+				gen.writeNull();
+			} else {
+				gen.writeString(value);
+			}
+		}
 	}
 }
@@ -1,25 +1,87 @@
 package com.scalar.identityProvider.payload.response;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
 import lombok.Getter;
-import lombok.Setter;
 
 /*
  * Response payload for messages
  */
-public class MessageResponse {
+@JsonSerialize(using = MessageResponse.Serializer.class)
+public final class MessageResponse {
+
+	private static final SerializableString MESSAGE = new SerializedString("message");
+
+	/*
+	 * Shared instances of the constant messages, bounded by the literals in the code
+	 */
+	private static final Map<String, MessageResponse> constants = new ConcurrentHashMap<>();
 
 	/*
 	 * Message content
 	 */
 	@Getter
-  	@Setter
-	private String message;
+	private final String message;
 
+	/*
+	 * Whole JSON body, encoded once, for constant messages; null otherwise
+	 */
+	private final SerializableString encoded;
 
 	/*
 	 * Constructor to initialize the message
 	 */
 	public MessageResponse(String message) {
-	    this.message = message;
-	  }
+		this(message, null);
+	}
+
+	private MessageResponse(String message, SerializableString encoded) {
+		this.message = message;
+		this.encoded = encoded;
+	}
+
+	/*
+	 * Shared response for a constant message, whose JSON body is encoded to UTF-8 only once.
+	 * Messages built at runtime must use the constructor so the cache stays bounded.
+	 */
+	public static MessageResponse of(String message) {
+		return constants.computeIfAbsent(message, m -> new MessageResponse(m, new SerializedString(
+				"{\"message\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(m)) + "\"}")));
+	}
+
+	/*
+	 * Writes the pre-encoded body of constant messages as is
+	 */
+	static final class Serializer extends StdSerializer<MessageResponse> {
+
+		Serializer() {
+			super(MessageResponse.class);
+		}
+
+		@Override
+		public void serialize(MessageResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			if (value.encoded != null) {
+				gen.writeRawValue(value.encoded);
+				return;
+			}
+			gen.writeStartObject(value);
+			gen.writeFieldName(MESSAGE);
+			if (value.message == null) {
+				gen.writeNull();
+			} else {
+				gen.writeString(value.message);
+			}
+			gen.writeEndObject();
+		}
+	}
 }
@@ -0,0 +1,38 @@
+package com.scalar.identityProvider.payload.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.scalar.identityProvider.models.ServiceClient;
+
+/*
+ * Response payload for a service client, without the secret hash. The secret is only
+ * included when the client is created or its secret rotated
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ServiceClientResponse(
+		String clientId,
+		String clientSecret,
+		String tenantId,
+		String name,
+		List<String> roles,
+		boolean active,
+		String createdAt,
+		String updatedAt) {
+
+	public static ServiceClientResponse from(ServiceClient client) {
+		return from(client, null);
+	}
+
+	public static ServiceClientResponse from(ServiceClient client, String clientSecret) {
+		return new ServiceClientResponse(
+				client.getClientId(),
+				clientSecret,
+				client.getTenantId(),
+				client.getName(),
+				client.getRoles().stream().map(Enum::name).sorted().toList(),
+				client.isActive(),
+				client.getCreatedAt(),
+				client.getUpdatedAt());
+	}
+}
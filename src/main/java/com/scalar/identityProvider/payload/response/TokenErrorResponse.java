@@ -0,0 +1,11 @@
+package com.scalar.identityProvider.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/*
+ * Error payload of the OAuth2 token endpoint (RFC 6749, section 5.2)
+ */
+public record TokenErrorResponse(
+		String error,
+		@JsonProperty("error_description") String errorDescription) {
+}
@@ -0,0 +1,38 @@
+package com.scalar.identityProvider.payload.response;
+
+import java.util.List;
+
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+
+/*
+ * Response payload for a user account, without the password hash or the role documents
+ */
+public record UserResponse(
+		String id,
+		String username,
+		String firstName,
+		String lastName,
+		String email,
+		String tenantId,
+		List<String> roles,
+		String profilePictureUrl,
+		boolean active,
+		String createdAt,
+		String updatedAt) {
+
+	public static UserResponse from(User user) {
+		return new UserResponse(
+				user.getId(),
+				user.getUsername(),
+				user.getFirstName(),
+				user.getLastName(),
+				user.getEmail(),
+				user.getTenantId(),
+				user.getRoles().stream().map(Role::getName).map(Enum::name).sorted().toList(),
+				user.getProfilePictureUrl(),
+				user.isActive(),
+				user.getCreatedAt(),
+				user.getUpdatedAt());
+	}
+}
@@ -0,0 +1,24 @@
+package com.scalar.identityProvider.payload.response;
+
+import java.util.List;
+
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+/*
+ * Response payload for the roles of a user in a tenant, with the role names instead of the role documents
+ */
+public record UserTenantRoleResponse(
+		String id,
+		String userId,
+		String tenantId,
+		List<String> roles) {
+
+	public static UserTenantRoleResponse from(UserTenantRole userTenantRole) {
+		return new UserTenantRoleResponse(
+				userTenantRole.getId(),
+				userTenantRole.getUserId(),
+				userTenantRole.getTenantId(),
+				userTenantRole.getRoles().stream().map(GlobalRole::getName).map(Enum::name).sorted().toList());
+	}
+}
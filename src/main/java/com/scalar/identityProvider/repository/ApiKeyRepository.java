@@ -0,0 +1,30 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.ApiKey;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for database operations related to ApiKey.
+ */
+public interface ApiKeyRepository extends MongoRepository<ApiKey, String> {
+
+    /**
+     * Search for a key by its prefix.
+     *
+     * @param prefix Key prefix.
+     * @return An Optional containing the key if found.
+     */
+    Optional<ApiKey> findByPrefix(String prefix);
+
+    /**
+     * Search for all the keys of a tenant.
+     *
+     * @param tenantId Tenant ID.
+     * @return List of keys of the tenant.
+     */
+    List<ApiKey> findByTenantId(String tenantId);
+}
@@ -5,12 +5,14 @@ import com.scalar.identityProvider.models.GlobalRole;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for database operations related to GlobalRole.
  */
-public interface GlobalRoleRepository extends MongoRepository<GlobalRole, String> {
+public interface GlobalRoleRepository extends MongoRepository<GlobalRole, String>, GlobalRoleRepositoryCustom {
 
     /**
      * Search for a global role by name.
@@ -20,6 +22,22 @@ public interface GlobalRoleRepository extends MongoRepository<GlobalRole, String
      */
     Optional<GlobalRole> findByName(EmployeeRole name);
 
+    /**
+     * Search for all global roles whose name is in the given collection.
+     *
+     * @param names The names of the roles.
+     * @return List of the matching global roles.
+     */
+    List<GlobalRole> findByNameIn(Collection<EmployeeRole> names);
+
+    /**
+     * Count the global roles whose name is in the given collection.
+     *
+     * @param names The names of the roles.
+     * @return The number of matching global roles.
+     */
+    long countByNameIn(Collection<EmployeeRole> names);
+
     /**
      * Check if a global role exists by its name.
      *
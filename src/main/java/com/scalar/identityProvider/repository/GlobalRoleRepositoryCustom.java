@@ -0,0 +1,20 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.GlobalRole;
+
+import java.util.Collection;
+
+/**
+ * Custom repository fragment with bulk operations for GlobalRole documents.
+ */
+public interface GlobalRoleRepositoryCustom {
+
+    /**
+     * Insert the given global roles that do not exist yet, matched by name, in a single bulk write.
+     * Existing roles are left untouched.
+     *
+     * @param roles The roles to seed.
+     * @return The number of roles inserted.
+     */
+    int upsertAllByName(Collection<GlobalRole> roles);
+}
@@ -0,0 +1,50 @@
+package com.scalar.identityProvider.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.scalar.identityProvider.models.GlobalRole;
+
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+/**
+ * MongoTemplate based implementation of {@link GlobalRoleRepositoryCustom}.
+ */
+class GlobalRoleRepositoryCustomImpl implements GlobalRoleRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    GlobalRoleRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public int upsertAllByName(Collection<GlobalRole> roles) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GlobalRole.class);
+        for (GlobalRole role : roles) {
+            bulk.upsert(new Query(Criteria.where("name").is(role.getName())),
+                    new Update()
+                            .setOnInsert("description", role.getDescription())
+                            .setOnInsert("active", role.isActive()));
+        }
+
+        try {
+            return bulk.execute().getUpserts().size();
+        } catch (BulkOperationException e) {
+            // Another instance inserted the same roles concurrently; the unique index on name
+            // rejected our copies, which leaves the collection in the desired state.
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return e.getResult().getUpserts().size();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.ServiceClient;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for database operations related to ServiceClient.
+ */
+public interface ServiceClientRepository extends MongoRepository<ServiceClient, String> {
+
+    /**
+     * Search for a client by its client ID.
+     *
+     * @param clientId Client ID.
+     * @return An Optional containing the client if found.
+     */
+    Optional<ServiceClient> findByClientId(String clientId);
+
+    /**
+     * Search for all the clients of a tenant.
+     *
+     * @param tenantId Tenant ID.
+     * @return List of clients of the tenant.
+     */
+    List<ServiceClient> findByTenantId(String tenantId);
+}
@@ -4,6 +4,8 @@ import com.scalar.identityProvider.models.Tenant;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,6 +21,14 @@ public interface TenantRepository extends MongoRepository<Tenant, String> {
      */
     Optional<Tenant> findByTenantId(String tenantId);
 
+    /**
+     * Search for several tenants by their tenantIds in one query.
+     *
+     * @param tenantIds Tenant IDs.
+     * @return List of the tenants found.
+     */
+    List<Tenant> findByTenantIdIn(Collection<String> tenantIds);
+
     /**
      * Check if a tenantId already exists in the database.
      *
@@ -0,0 +1,21 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.TenantTeardownJob;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+/**
+ * Repository for database operations related to TenantTeardownJob.
+ */
+public interface TenantTeardownJobRepository extends MongoRepository<TenantTeardownJob, String> {
+
+    /**
+     * Search for the teardown job of a tenant.
+     *
+     * @param tenantId Tenant ID.
+     * @return An Optional containing the job if found.
+     */
+    Optional<TenantTeardownJob> findByTenantId(String tenantId);
+}
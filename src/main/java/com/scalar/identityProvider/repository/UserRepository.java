@@ -11,7 +11,7 @@ import java.util.Optional;
  * Repository interface for accessing User entities in the MongoDB database.
  * It extends MongoRepository, providing CRUD operations for User objects.
  */
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
 
   /**
    * Find all Users by their username across all tenants.
@@ -64,6 +64,16 @@ public interface UserRepository extends MongoRepository<User, String> {
    */
   Boolean existsByEmailAndTenantId(String email, String tenantId);
 
+  /**
+   * Check if an email is already used by another user in a specific tenant.
+   *
+   * @param email The email to check.
+   * @param tenantId The tenant ID.
+   * @param id The ID of the user to exclude from the check.
+   * @return A Boolean indicating whether another user uses the email (true) or not (false).
+   */
+  Boolean existsByEmailAndTenantIdAndIdNot(String email, String tenantId, String id);
+
   /**
    * Find all Users by their tenantId.
    *
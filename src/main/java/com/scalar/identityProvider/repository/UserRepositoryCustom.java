@@ -0,0 +1,56 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Custom repository fragment with targeted, single round trip updates for User documents,
+ * and lookups across tenants that must reach every storage target instead of following
+ * the tenant context.
+ */
+public interface UserRepositoryCustom {
+
+  /**
+   * Atomically update the mutable profile fields of a user in a tenant.
+   * Only the non-null arguments are written; the document is matched by id and tenantId
+   * in the same operation, so no prior read is needed.
+   *
+   * @param userId The ID of the user.
+   * @param tenantId The tenant ID the user must belong to.
+   * @param email The new email, or null to keep the current one.
+   * @param encodedPassword The new encoded password, or null to keep the current one.
+   * @param roles The new roles, or null to keep the current ones.
+   * @return true if a user was matched and updated, false otherwise.
+   */
+  boolean updateProfile(String userId, String tenantId, String email, String encodedPassword, Set<Role> roles);
+
+  /**
+   * Find the accounts of a username in every tenant, on every storage target.
+   *
+   * @param username The username.
+   * @return The accounts, at most one per tenant.
+   */
+  List<User> findByUsernameAcrossTargets(String username);
+
+  /**
+   * Find a user by ID on every storage target.
+   *
+   * @param userId The ID of the user.
+   * @return An Optional containing the user if found.
+   */
+  Optional<User> findByIdAcrossTargets(String userId);
+
+  /**
+   * Find users by ID in a set of tenants, querying only the storage targets of those tenants.
+   *
+   * @param userIds The IDs of the users.
+   * @param tenantIds The tenants the users may belong to.
+   * @return The users found; callers filter by their own (user, tenant) pairs.
+   */
+  List<User> findByIdInAcrossTenants(Collection<String> userIds, Collection<String> tenantIds);
+}
@@ -0,0 +1,87 @@
+package com.scalar.identityProvider.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.scalar.identityProvider.config.TenantMongoTemplates;
+import com.scalar.identityProvider.config.TenantRoutingMongoDatabaseFactory;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * MongoTemplate based implementation of {@link UserRepositoryCustom}.
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  private final TenantMongoTemplates tenantMongoTemplates;
+
+  private final TenantRoutingMongoDatabaseFactory routingFactory;
+
+  UserRepositoryCustomImpl(MongoTemplate mongoTemplate, TenantMongoTemplates tenantMongoTemplates,
+      TenantRoutingMongoDatabaseFactory routingFactory) {
+    this.mongoTemplate = mongoTemplate;
+    this.tenantMongoTemplates = tenantMongoTemplates;
+    this.routingFactory = routingFactory;
+  }
+
+  @Override
+  public boolean updateProfile(String userId, String tenantId, String email, String encodedPassword, Set<Role> roles) {
+    Query query = new Query(Criteria.where("id").is(userId).and("tenantId").is(tenantId));
+
+    // $set only the fields that change and bump the version in the same write
+    Update update = new Update()
+        .set("updatedAt", Instant.now().toString())
+        .inc("version", 1);
+    if (email != null) {
+      update.set("email", email);
+    }
+    if (encodedPassword != null) {
+      update.set("password", encodedPassword);
+    }
+    if (roles != null) {
+      update.set("roles", roles);
+    }
+
+    UpdateResult result = mongoTemplate.updateFirst(query, update, User.class);
+    return result.getMatchedCount() > 0;
+  }
+
+  @Override
+  public List<User> findByUsernameAcrossTargets(String username) {
+    // Accounts of tenants with dedicated storage live in their own target
+    return tenantMongoTemplates.findAcrossTargets(Query.query(Criteria.where("username").is(username)), User.class);
+  }
+
+  @Override
+  public Optional<User> findByIdAcrossTargets(String userId) {
+    return tenantMongoTemplates.findByIdAcrossTargets(userId, User.class);
+  }
+
+  @Override
+  public List<User> findByIdInAcrossTenants(Collection<String> userIds, Collection<String> tenantIds) {
+    // One query per storage target of the tenants; usually only the pooled database
+    Map<String, Set<String>> tenantIdsByTarget = new TreeMap<>();
+    for (String tenantId : tenantIds) {
+      String target = routingFactory.targetOf(tenantId);
+      tenantIdsByTarget.computeIfAbsent(target == null ? "" : target, t -> new HashSet<>()).add(tenantId);
+    }
+    Query byIds = Query.query(Criteria.where("_id").in(userIds));
+    return tenantIdsByTarget.keySet().stream()
+        .flatMap(target -> tenantMongoTemplates.forTarget(target.isEmpty() ? null : target).find(byIds, User.class).stream())
+        .toList();
+  }
+}
@@ -4,13 +4,14 @@ import com.scalar.identityProvider.models.UserTenantRole;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for database operations related to UserTenantRole.
  */
-public interface UserTenantRoleRepository extends MongoRepository<UserTenantRole, String> {
+public interface UserTenantRoleRepository extends MongoRepository<UserTenantRole, String>, UserTenantRoleRepositoryCustom {
 
     /**
      * Search for a user's role assignment in a specific tenant.
@@ -37,6 +38,24 @@ public interface UserTenantRoleRepository extends MongoRepository<UserTenantRole
      */
     List<UserTenantRole> findByTenantId(String tenantId);
 
+    /**
+     * Search for all role assignments of several users.
+     *
+     * @param userIds User IDs.
+     * @return List of role assignments of those users.
+     */
+    List<UserTenantRole> findByUserIdIn(Collection<String> userIds);
+
+    /**
+     * Search for the role assignments of several users in several tenants in one query.
+     * The result may contain combinations that were not asked for and must be filtered by the caller.
+     *
+     * @param userIds User IDs.
+     * @param tenantIds Tenant IDs.
+     * @return List of matching role assignments.
+     */
+    List<UserTenantRole> findByUserIdInAndTenantIdIn(Collection<String> userIds, Collection<String> tenantIds);
+
     /**
      * Check if a user has roles assigned in a tenant.
      *
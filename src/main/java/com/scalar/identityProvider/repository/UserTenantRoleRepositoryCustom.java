@@ -0,0 +1,22 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+import java.util.Set;
+
+/**
+ * Custom repository fragment with atomic upserts for UserTenantRole documents.
+ */
+public interface UserTenantRoleRepositoryCustom {
+
+    /**
+     * Atomically replace the roles of a user in a tenant, creating the assignment if it does not exist.
+     *
+     * @param userId User ID.
+     * @param tenantId Tenant ID.
+     * @param roles Roles to set.
+     * @return The resulting assignment.
+     */
+    UserTenantRole upsertRoles(String userId, String tenantId, Set<GlobalRole> roles);
+}
@@ -0,0 +1,46 @@
+package com.scalar.identityProvider.repository;
+
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Set;
+
+/**
+ * MongoTemplate based implementation of {@link UserTenantRoleRepositoryCustom}.
+ */
+class UserTenantRoleRepositoryCustomImpl implements UserTenantRoleRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    UserTenantRoleRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public UserTenantRole upsertRoles(String userId, String tenantId, Set<GlobalRole> roles) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("tenantId").is(tenantId));
+        // Only the id and version are projected back so the role DBRefs are not resolved again
+        query.fields().include("id", "version");
+
+        Update update = new Update()
+                .set("roles", roles)
+                .inc("version", 1);
+
+        UserTenantRole upserted = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), UserTenantRole.class);
+
+        UserTenantRole userTenantRole = new UserTenantRole(userId, tenantId);
+        if (upserted != null) {
+            userTenantRole.setId(upserted.getId());
+            userTenantRole.setVersion(upserted.getVersion());
+        }
+        userTenantRole.setRoles(roles);
+        return userTenantRole;
+    }
+}
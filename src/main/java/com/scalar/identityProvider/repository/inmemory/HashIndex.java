@@ -0,0 +1,79 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Hash index from a (possibly compound) key to the IDs of the documents having it.
+ * The key each document was indexed under is remembered, so a document mutated in place
+ * before being saved again is moved out of its old bucket.
+ *
+ * @param <K> The key type, usually a record for compound keys.
+ * @param <T> The document type.
+ */
+final class HashIndex<K, T> {
+
+    private final Function<T, K> keyFunction;
+
+    private final Map<K, Set<String>> idsByKey = new ConcurrentHashMap<>();
+
+    private final Map<String, K> keysById = new ConcurrentHashMap<>();
+
+    HashIndex(Function<T, K> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Index a document, replacing its previous entry.
+     *
+     * @param id The document ID.
+     * @param document The document.
+     */
+    void put(String id, T document) {
+        K key = keyFunction.apply(document);
+        K previous = key != null ? keysById.put(id, key) : keysById.remove(id);
+        if (previous != null && !previous.equals(key)) {
+            removeId(previous, id);
+        }
+        if (key != null) {
+            idsByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Remove a document from the index.
+     *
+     * @param id The document ID.
+     */
+    void remove(String id) {
+        K key = keysById.remove(id);
+        if (key != null) {
+            removeId(key, id);
+        }
+    }
+
+    /**
+     * Get the IDs of the documents with a key.
+     *
+     * @param key The key.
+     * @return A live view of the IDs, empty if none.
+     */
+    Set<String> get(K key) {
+        Set<String> ids = idsByKey.get(key);
+        return ids != null ? ids : Set.of();
+    }
+
+    void clear() {
+        idsByKey.clear();
+        keysById.clear();
+    }
+
+    private void removeId(K key, String id) {
+        idsByKey.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
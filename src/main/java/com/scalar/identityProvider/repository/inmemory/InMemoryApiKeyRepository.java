@@ -0,0 +1,42 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.ApiKey;
+import com.scalar.identityProvider.repository.ApiKeyRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory {@link ApiKeyRepository} with hash indexes on prefix and tenantId.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryApiKeyRepository extends InMemoryRepository<ApiKey> implements ApiKeyRepository {
+
+    private final HashIndex<String, ApiKey> byPrefix = index(ApiKey::getPrefix);
+
+    private final HashIndex<String, ApiKey> byTenant = index(ApiKey::getTenantId);
+
+    @Override
+    protected String getId(ApiKey apiKey) {
+        return apiKey.getId();
+    }
+
+    @Override
+    protected void setId(ApiKey apiKey, String id) {
+        apiKey.setId(id);
+    }
+
+    @Override
+    public Optional<ApiKey> findByPrefix(String prefix) {
+        return resolveFirst(byPrefix.get(prefix));
+    }
+
+    @Override
+    public List<ApiKey> findByTenantId(String tenantId) {
+        return resolve(byTenant.get(tenantId));
+    }
+}
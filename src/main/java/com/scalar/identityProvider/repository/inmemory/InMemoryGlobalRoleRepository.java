@@ -0,0 +1,74 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.repository.GlobalRoleRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory {@link GlobalRoleRepository} with a hash index on name.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryGlobalRoleRepository extends InMemoryRepository<GlobalRole> implements GlobalRoleRepository {
+
+    private final HashIndex<EmployeeRole, GlobalRole> byName = index(GlobalRole::getName);
+
+    @Override
+    protected String getId(GlobalRole role) {
+        return role.getId();
+    }
+
+    @Override
+    protected void setId(GlobalRole role, String id) {
+        role.setId(id);
+    }
+
+    @Override
+    public Optional<GlobalRole> findByName(EmployeeRole name) {
+        return resolveFirst(byName.get(name));
+    }
+
+    @Override
+    public List<GlobalRole> findByNameIn(Collection<EmployeeRole> names) {
+        List<GlobalRole> roles = new ArrayList<>();
+        for (EmployeeRole name : new HashSet<>(names)) {
+            roles.addAll(resolve(byName.get(name)));
+        }
+        return roles;
+    }
+
+    @Override
+    public long countByNameIn(Collection<EmployeeRole> names) {
+        long count = 0;
+        for (EmployeeRole name : new HashSet<>(names)) {
+            count += byName.get(name).size();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean existsByName(EmployeeRole name) {
+        return !byName.get(name).isEmpty();
+    }
+
+    @Override
+    public synchronized int upsertAllByName(Collection<GlobalRole> roles) {
+        int inserted = 0;
+        for (GlobalRole role : roles) {
+            if (!existsByName(role.getName())) {
+                save(role);
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+}
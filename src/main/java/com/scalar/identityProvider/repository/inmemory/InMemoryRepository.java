@@ -0,0 +1,250 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Base of the in-memory repositories used by the {@code inmemory} profile: documents by ID in a
+ * ConcurrentHashMap plus hash indexes on the keys the derived queries filter by. Reads are lock
+ * free; writes are serialized per repository so the indexes always agree with the documents.
+ * Documents are stored by reference, so callers see each other's unsaved changes, unlike with
+ * MongoDB. Query by example and sorting are not supported.
+ *
+ * @param <T> The document type.
+ */
+abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    protected final Map<String, T> documents = new ConcurrentHashMap<>();
+
+    private final List<HashIndex<?, T>> indexes = new ArrayList<>();
+
+    /**
+     * Get the ID of a document.
+     */
+    protected abstract String getId(T document);
+
+    /**
+     * Set the ID of a new document.
+     */
+    protected abstract void setId(T document, String id);
+
+    /**
+     * Hook called before a document is stored, e.g. to bump its version.
+     */
+    protected void beforeSave(T document) {
+    }
+
+    /**
+     * Create an index maintained on every write.
+     *
+     * @param keyFunction The key of a document; documents with a null key are not indexed.
+     * @return The index.
+     */
+    protected <K> HashIndex<K, T> index(Function<T, K> keyFunction) {
+        HashIndex<K, T> index = new HashIndex<>(keyFunction);
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Resolve indexed IDs to documents.
+     */
+    protected List<T> resolve(Collection<String> ids) {
+        List<T> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T document = documents.get(id);
+            if (document != null) {
+                results.add(document);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Resolve the first indexed ID to its document.
+     */
+    protected Optional<T> resolveFirst(Collection<String> ids) {
+        for (String id : ids) {
+            T document = documents.get(id);
+            if (document != null) {
+                return Optional.of(document);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized <S extends T> S save(S entity) {
+        if (getId(entity) == null) {
+            setId(entity, new ObjectId().toHexString());
+        }
+        beforeSave(entity);
+        String id = getId(entity);
+        documents.put(id, entity);
+        for (HashIndex<?, T> index : indexes) {
+            index.put(id, entity);
+        }
+        return entity;
+    }
+
+    @Override
+    public synchronized <S extends T> S insert(S entity) {
+        if (getId(entity) != null && documents.containsKey(getId(entity))) {
+            throw new DuplicateKeyException("Document with id " + getId(entity) + " already exists");
+        }
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        return Optional.ofNullable(documents.get(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(documents.values());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        List<T> results = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(results::add));
+        return results;
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public synchronized void deleteById(String id) {
+        if (documents.remove(id) != null) {
+            for (HashIndex<?, T> index : indexes) {
+                index.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(getId(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        documents.clear();
+        indexes.forEach(HashIndex::clear);
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        requireUnsorted(sort);
+        return findAll();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll());
+        }
+        requireUnsorted(pageable.getSort());
+        // Pages in ID order, which for generated ObjectIds is insertion order
+        List<T> all = findAll();
+        all.sort(Comparator.comparing(this::getId));
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw queryByExampleUnsupported();
+    }
+
+    private static void requireUnsorted(Sort sort) {
+        if (Objects.requireNonNull(sort).isSorted()) {
+            throw new UnsupportedOperationException("Sorting is not supported by the in-memory repositories");
+        }
+    }
+
+    private static UnsupportedOperationException queryByExampleUnsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory repositories");
+    }
+}
@@ -0,0 +1,46 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.repository.RoleRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * In-memory {@link RoleRepository} with hash indexes on name and (name, tenantId).
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryRoleRepository extends InMemoryRepository<Role> implements RoleRepository {
+
+    private final HashIndex<EmployeeRole, Role> byName = index(Role::getName);
+
+    private final HashIndex<NameAndTenant, Role> byNameAndTenant =
+            index(role -> new NameAndTenant(role.getName(), role.getTenantId()));
+
+    private record NameAndTenant(EmployeeRole name, String tenantId) {
+    }
+
+    @Override
+    protected String getId(Role role) {
+        return role.getId();
+    }
+
+    @Override
+    protected void setId(Role role, String id) {
+        role.setId(id);
+    }
+
+    @Override
+    public Optional<Role> findByName(EmployeeRole name) {
+        return resolveFirst(byName.get(name));
+    }
+
+    @Override
+    public Optional<Role> findByNameAndTenantId(EmployeeRole name, String tenantId) {
+        return resolveFirst(byNameAndTenant.get(new NameAndTenant(name, tenantId)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.ServiceClient;
+import com.scalar.identityProvider.repository.ServiceClientRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory {@link ServiceClientRepository} with hash indexes on clientId and tenantId.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryServiceClientRepository extends InMemoryRepository<ServiceClient>
+        implements ServiceClientRepository {
+
+    private final HashIndex<String, ServiceClient> byClientId = index(ServiceClient::getClientId);
+
+    private final HashIndex<String, ServiceClient> byTenant = index(ServiceClient::getTenantId);
+
+    @Override
+    protected String getId(ServiceClient client) {
+        return client.getId();
+    }
+
+    @Override
+    protected void setId(ServiceClient client, String id) {
+        client.setId(id);
+    }
+
+    @Override
+    public Optional<ServiceClient> findByClientId(String clientId) {
+        return resolveFirst(byClientId.get(clientId));
+    }
+
+    @Override
+    public List<ServiceClient> findByTenantId(String tenantId) {
+        return resolve(byTenant.get(tenantId));
+    }
+}
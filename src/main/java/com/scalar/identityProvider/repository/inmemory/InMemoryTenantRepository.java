@@ -0,0 +1,58 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.repository.TenantRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory {@link TenantRepository} with hash indexes on tenantId and name.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryTenantRepository extends InMemoryRepository<Tenant> implements TenantRepository {
+
+    private final HashIndex<String, Tenant> byTenantId = index(Tenant::getTenantId);
+
+    private final HashIndex<String, Tenant> byName = index(Tenant::getName);
+
+    @Override
+    protected String getId(Tenant tenant) {
+        return tenant.getId();
+    }
+
+    @Override
+    protected void setId(Tenant tenant, String id) {
+        tenant.setId(id);
+    }
+
+    @Override
+    public Optional<Tenant> findByTenantId(String tenantId) {
+        return resolveFirst(byTenantId.get(tenantId));
+    }
+
+    @Override
+    public List<Tenant> findByTenantIdIn(Collection<String> tenantIds) {
+        List<Tenant> tenants = new ArrayList<>();
+        for (String tenantId : tenantIds) {
+            tenants.addAll(resolve(byTenantId.get(tenantId)));
+        }
+        return tenants;
+    }
+
+    @Override
+    public Boolean existsByTenantId(String tenantId) {
+        return !byTenantId.get(tenantId).isEmpty();
+    }
+
+    @Override
+    public Boolean existsByName(String name) {
+        return !byName.get(name).isEmpty();
+    }
+}
@@ -0,0 +1,145 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.repository.UserRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory {@link UserRepository} with hash indexes on username, email and tenantId.
+ * There is a single storage target, so the lookups across targets are plain lookups.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    private final HashIndex<String, User> byUsername = index(User::getUsername);
+
+    private final HashIndex<TenantKey, User> byUsernameAndTenant =
+            index(user -> new TenantKey(user.getUsername(), user.getTenantId()));
+
+    private final HashIndex<String, User> byEmail = index(User::getEmail);
+
+    private final HashIndex<TenantKey, User> byEmailAndTenant =
+            index(user -> new TenantKey(user.getEmail(), user.getTenantId()));
+
+    private final HashIndex<String, User> byTenant = index(User::getTenantId);
+
+    private record TenantKey(String value, String tenantId) {
+    }
+
+    @Override
+    protected String getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void setId(User user, String id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected void beforeSave(User user) {
+        user.setVersion(user.getVersion() == null ? 0L : user.getVersion() + 1);
+    }
+
+    @Override
+    public List<User> findByUsername(String username) {
+        return resolve(byUsername.get(username));
+    }
+
+    @Override
+    public Boolean existsByUsername(String username) {
+        return !byUsername.get(username).isEmpty();
+    }
+
+    @Override
+    public Boolean existsByEmail(String email) {
+        return !byEmail.get(email).isEmpty();
+    }
+
+    @Override
+    public Optional<User> findByUsernameAndTenantId(String username, String tenantId) {
+        return resolveFirst(byUsernameAndTenant.get(new TenantKey(username, tenantId)));
+    }
+
+    @Override
+    public Boolean existsByUsernameAndTenantId(String username, String tenantId) {
+        return !byUsernameAndTenant.get(new TenantKey(username, tenantId)).isEmpty();
+    }
+
+    @Override
+    public Boolean existsByEmailAndTenantId(String email, String tenantId) {
+        return !byEmailAndTenant.get(new TenantKey(email, tenantId)).isEmpty();
+    }
+
+    @Override
+    public Boolean existsByEmailAndTenantIdAndIdNot(String email, String tenantId, String id) {
+        for (String userId : byEmailAndTenant.get(new TenantKey(email, tenantId))) {
+            if (!userId.equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<User> findByTenantId(String tenantId) {
+        return resolve(byTenant.get(tenantId));
+    }
+
+    @Override
+    public synchronized boolean updateProfile(String userId, String tenantId, String email, String encodedPassword,
+            Set<Role> roles) {
+        User user = documents.get(userId);
+        if (user == null || !Objects.equals(user.getTenantId(), tenantId)) {
+            return false;
+        }
+        if (email != null) {
+            user.setEmail(email);
+        }
+        if (encodedPassword != null) {
+            user.setPassword(encodedPassword);
+        }
+        if (roles != null) {
+            user.setRoles(new HashSet<>(roles));
+        }
+        user.setUpdatedAt(Instant.now().toString());
+        save(user);
+        return true;
+    }
+
+    @Override
+    public List<User> findByUsernameAcrossTargets(String username) {
+        return findByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByIdAcrossTargets(String userId) {
+        return findById(userId);
+    }
+
+    @Override
+    public List<User> findByIdInAcrossTenants(Collection<String> userIds, Collection<String> tenantIds) {
+        Set<String> tenants = new HashSet<>(tenantIds);
+        List<User> users = new ArrayList<>();
+        for (String userId : userIds) {
+            User user = documents.get(userId);
+            if (user != null && tenants.contains(user.getTenantId())) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+}
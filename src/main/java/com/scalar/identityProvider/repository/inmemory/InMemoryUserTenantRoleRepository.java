@@ -0,0 +1,98 @@
+package com.scalar.identityProvider.repository.inmemory;
+
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.UserTenantRole;
+import com.scalar.identityProvider.repository.UserTenantRoleRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory {@link UserTenantRoleRepository} with hash indexes on (userId, tenantId), userId and tenantId.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryUserTenantRoleRepository extends InMemoryRepository<UserTenantRole>
+        implements UserTenantRoleRepository {
+
+    private final HashIndex<Membership, UserTenantRole> byMembership =
+            index(assignment -> new Membership(assignment.getUserId(), assignment.getTenantId()));
+
+    private final HashIndex<String, UserTenantRole> byUser = index(UserTenantRole::getUserId);
+
+    private final HashIndex<String, UserTenantRole> byTenant = index(UserTenantRole::getTenantId);
+
+    private record Membership(String userId, String tenantId) {
+    }
+
+    @Override
+    protected String getId(UserTenantRole assignment) {
+        return assignment.getId();
+    }
+
+    @Override
+    protected void setId(UserTenantRole assignment, String id) {
+        assignment.setId(id);
+    }
+
+    @Override
+    protected void beforeSave(UserTenantRole assignment) {
+        assignment.setVersion(assignment.getVersion() == null ? 0L : assignment.getVersion() + 1);
+    }
+
+    @Override
+    public Optional<UserTenantRole> findByUserIdAndTenantId(String userId, String tenantId) {
+        return resolveFirst(byMembership.get(new Membership(userId, tenantId)));
+    }
+
+    @Override
+    public List<UserTenantRole> findByUserId(String userId) {
+        return resolve(byUser.get(userId));
+    }
+
+    @Override
+    public List<UserTenantRole> findByTenantId(String tenantId) {
+        return resolve(byTenant.get(tenantId));
+    }
+
+    @Override
+    public List<UserTenantRole> findByUserIdIn(Collection<String> userIds) {
+        List<UserTenantRole> assignments = new ArrayList<>();
+        for (String userId : userIds) {
+            assignments.addAll(resolve(byUser.get(userId)));
+        }
+        return assignments;
+    }
+
+    @Override
+    public List<UserTenantRole> findByUserIdInAndTenantIdIn(Collection<String> userIds, Collection<String> tenantIds) {
+        // Probes the compound index for each pair, which is what the Mongo query returns after filtering
+        List<UserTenantRole> assignments = new ArrayList<>();
+        for (String userId : new HashSet<>(userIds)) {
+            for (String tenantId : new HashSet<>(tenantIds)) {
+                assignments.addAll(resolve(byMembership.get(new Membership(userId, tenantId))));
+            }
+        }
+        return assignments;
+    }
+
+    @Override
+    public boolean existsByUserIdAndTenantId(String userId, String tenantId) {
+        return !byMembership.get(new Membership(userId, tenantId)).isEmpty();
+    }
+
+    @Override
+    public synchronized UserTenantRole upsertRoles(String userId, String tenantId, Set<GlobalRole> roles) {
+        UserTenantRole assignment = findByUserIdAndTenantId(userId, tenantId)
+                .orElseGet(() -> new UserTenantRole(userId, tenantId));
+        assignment.setRoles(new HashSet<>(roles));
+        return save(assignment);
+    }
+}
@@ -0,0 +1,171 @@
+package com.scalar.identityProvider.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aggregated logging for security rejections (bad or expired tokens, failed authentication,
+ * unauthorized requests). Request threads only increment a counter per reason and tenant and,
+ * for the first event of each key in an interval, offer an exemplar to a bounded queue; a
+ * background thread writes one summary line per key and the exemplars every interval.
+ * A client looping with an expired token therefore costs a counter increment per request
+ * instead of a synchronous log write.
+ */
+@Component
+public class SecurityEventAggregator implements DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(SecurityEventAggregator.class);
+
+  /**
+   * Tenant key used when the tenant of the event is unknown.
+   */
+  public static final String NO_TENANT = "none";
+
+  /**
+   * Tenant key used once maxKeys distinct keys are tracked.
+   */
+  public static final String OTHER_TENANT = "other";
+
+  @Value("${securityLogSummaryIntervalMs}")
+  private long summaryIntervalMs;
+
+  @Value("${securityLogMaxKeys}")
+  private int maxKeys;
+
+  @Value("${securityLogMaxExemplars}")
+  private int maxExemplars;
+
+  private final Map<EventKey, Counter> counters = new ConcurrentHashMap<>();
+
+  // Idle counters removed at the last flush; a request thread that looked one up just before the
+  // removal may still increment it, so its late counts are carried over at the next flush
+  private final Map<EventKey, Counter> retired = new HashMap<>();
+
+  private BlockingQueue<Exemplar> exemplars;
+
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("security-log").factory());
+
+  private record EventKey(String reason, String tenant) {
+  }
+
+  private record Exemplar(EventKey key, String detail, Throwable error) {
+  }
+
+  private static final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    // Whether this interval's exemplar was already taken
+    private final AtomicBoolean sampled = new AtomicBoolean();
+  }
+
+  @PostConstruct
+  void init() {
+    exemplars = new ArrayBlockingQueue<>(maxExemplars);
+    executor.scheduleWithFixedDelay(this::flush, summaryIntervalMs, summaryIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Record a security event.
+   *
+   * @param reason Short, fixed reason such as {@code jwt.expired}.
+   * @param tenantId The tenant of the event, or null if unknown.
+   * @param detail Message kept if the event is sampled as exemplar.
+   */
+  public void record(String reason, String tenantId, String detail) {
+    record(reason, tenantId, detail, null);
+  }
+
+  /**
+   * Record a security event caused by an exception.
+   *
+   * @param reason Short, fixed reason such as {@code filter.error}.
+   * @param tenantId The tenant of the event, or null if unknown.
+   * @param detail Message kept if the event is sampled as exemplar.
+   * @param error The exception, logged with its stack trace if the event is sampled.
+   */
+  public void record(String reason, String tenantId, String detail, Throwable error) {
+    String tenant = tenantId != null ? tenantId : NO_TENANT;
+    Counter counter = counterFor(reason, tenant);
+    counter.count.increment();
+    if (!counter.sampled.get() && counter.sampled.compareAndSet(false, true)) {
+      // Never waits: the exemplar is dropped if the queue is full
+      exemplars.offer(new Exemplar(new EventKey(reason, tenant), detail, error));
+    }
+  }
+
+  private Counter counterFor(String reason, String tenant) {
+    Counter counter = counters.get(new EventKey(reason, tenant));
+    if (counter != null) {
+      return counter;
+    }
+    if (counters.size() >= maxKeys) {
+      tenant = OTHER_TENANT;
+    }
+    return counters.computeIfAbsent(new EventKey(reason, tenant), key -> new Counter());
+  }
+
+  /**
+   * Write the summary of the interval and the sampled exemplars.
+   */
+  synchronized void flush() {
+    try {
+      // Counts that reached a counter after it was removed belong to this interval
+      retired.forEach((key, counter) -> {
+        long late = counter.count.sumThenReset();
+        if (late > 0) {
+          counterFor(key.reason(), key.tenant()).count.add(late);
+        }
+      });
+      retired.clear();
+
+      counters.forEach((key, counter) -> {
+        long count = counter.count.sumThenReset();
+        counter.sampled.set(false);
+        if (count > 0) {
+          logger.warn("Security events in the last {} ms: reason={} tenant={} count={}",
+              summaryIntervalMs, key.reason(), key.tenant(), count);
+        } else if (counters.remove(key, counter)) {
+          // Drop the keys that stayed idle for a whole interval so the map does not fill up
+          retired.put(key, counter);
+        }
+      });
+
+      Exemplar exemplar;
+      while ((exemplar = exemplars.poll()) != null) {
+        if (exemplar.error() != null) {
+          logger.warn("Security event exemplar: reason={} tenant={} detail={}",
+              exemplar.key().reason(), exemplar.key().tenant(), exemplar.detail(), exemplar.error());
+        } else {
+          logger.warn("Security event exemplar: reason={} tenant={} detail={}",
+              exemplar.key().reason(), exemplar.key().tenant(), exemplar.detail());
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Could not write security event summary: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+    flush();
+  }
+}
@@ -1,36 +1,111 @@
 package com.scalar.identityProvider.security;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 /**
- * Contexto de tenant para mantener el tenant actual en el hilo de ejecución.
- * Utiliza ThreadLocal para asegurar que cada hilo tenga su propio contexto de tenant.
+ * Contexto de tenant para mantener el tenant actual durante la ejecución de una operación.
+ * Utiliza un ScopedValue: el tenant se enlaza para un bloque de código, se hereda en las
+ * tareas de StructuredTaskScope y deja de estar visible al salir del bloque, sin limpieza manual.
+ * Para trabajo asíncrono en executors o CompletableFuture se usan {@code wrap}, {@link #wrapSupplier(Supplier)}
+ * y {@link #propagating(Executor)}, que capturan el tenant del hilo que envía la tarea.
  */
-public class TenantContext {
-    
-    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
-    
+public final class TenantContext {
+
+    private static final ScopedValue<String> CURRENT_TENANT = ScopedValue.newInstance();
+
+    private TenantContext() {
+    }
+
     /**
-     * Establece el tenant actual para el hilo de ejecución.
-     * 
-     * @param tenantId El ID del tenant
+     * Obtiene el tenant actual.
+     *
+     * @return El ID del tenant actual, o null si no hay ninguno enlazado
      */
-    public static void setCurrentTenant(String tenantId) {
-        currentTenant.set(tenantId);
+    public static String getCurrentTenant() {
+        return CURRENT_TENANT.isBound() ? CURRENT_TENANT.get() : null;
     }
-    
+
     /**
-     * Obtiene el tenant actual del hilo de ejecución.
-     * 
-     * @return El ID del tenant actual
+     * Ejecuta una operación con el tenant indicado como tenant actual.
+     *
+     * @param tenantId El ID del tenant, o null para ejecutar sin tenant
+     * @param operation La operación a ejecutar
      */
-    public static String getCurrentTenant() {
-        return currentTenant.get();
+    public static void runWhere(String tenantId, Runnable operation) {
+        if (tenantId == null) {
+            operation.run();
+            return;
+        }
+        ScopedValue.where(CURRENT_TENANT, tenantId).run(operation);
+    }
+
+    /**
+     * Ejecuta una operación con el tenant indicado como tenant actual y devuelve su resultado.
+     *
+     * @param tenantId El ID del tenant, o null para ejecutar sin tenant
+     * @param operation La operación a ejecutar
+     * @return El resultado de la operación
+     * @throws X La excepción lanzada por la operación
+     */
+    public static <T, X extends Throwable> T callWhere(String tenantId, ScopedValue.CallableOp<? extends T, X> operation) throws X {
+        if (tenantId == null) {
+            return operation.call();
+        }
+        return ScopedValue.where(CURRENT_TENANT, tenantId).call(operation);
     }
-    
+
+    /**
+     * Envuelve una tarea para que se ejecute con el tenant actual del hilo que la envuelve.
+     *
+     * @param task La tarea
+     * @return La tarea envuelta, o la misma tarea si no hay tenant actual
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenantId = getCurrentTenant();
+        if (tenantId == null) {
+            return task;
+        }
+        return () -> runWhere(tenantId, task);
+    }
+
+    /**
+     * Envuelve una tarea para que se ejecute con el tenant actual del hilo que la envuelve.
+     *
+     * @param task La tarea
+     * @return La tarea envuelta, o la misma tarea si no hay tenant actual
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String tenantId = getCurrentTenant();
+        if (tenantId == null) {
+            return task;
+        }
+        return () -> callWhere(tenantId, task::call);
+    }
+
+    /**
+     * Envuelve un proveedor, por ejemplo para {@code CompletableFuture.supplyAsync},
+     * para que se ejecute con el tenant actual del hilo que lo envuelve.
+     *
+     * @param supplier El proveedor
+     * @return El proveedor envuelto, o el mismo proveedor si no hay tenant actual
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        String tenantId = getCurrentTenant();
+        if (tenantId == null) {
+            return supplier;
+        }
+        return () -> callWhere(tenantId, supplier::get);
+    }
+
     /**
-     * Limpia el contexto del tenant para el hilo de ejecución.
-     * Debe llamarse al final de cada request para evitar memory leaks.
+     * Crea un executor que propaga a cada tarea el tenant actual del hilo que la envía.
+     *
+     * @param delegate El executor que ejecuta las tareas
+     * @return El executor que propaga el tenant
      */
-    public static void clear() {
-        currentTenant.remove();
+    public static Executor propagating(Executor delegate) {
+        return command -> delegate.execute(wrap(command));
     }
 }
@@ -1,13 +1,30 @@
 package com.scalar.identityProvider.security;
 
+import com.scalar.identityProvider.metrics.ObservedPasswordEncoder; // Import for timed password hashing
+import com.scalar.identityProvider.models.Permission; // Import for fine-grained permissions
+import com.scalar.identityProvider.security.apikey.ApiKeyAuthFilter; // Import for API key authentication filter
+import com.scalar.identityProvider.security.authorization.PermissionAuthorizationManager; // Import for permission mask checks
+import com.scalar.identityProvider.security.authorization.RequiresPermission; // Import for permission annotation
 import com.scalar.identityProvider.security.jwt.AuthEntryPointJwt; // Import for unauthorized access handler
 import com.scalar.identityProvider.security.jwt.AuthTokenFilter; // Import for JWT token filter
+import com.scalar.identityProvider.security.ratelimit.RateLimitFilter; // Import for rate limiting filter
+import com.scalar.identityProvider.security.ratelimit.RateLimitProperties; // Import for rate limit configuration
 import com.scalar.identityProvider.security.services.UserDetailsServiceImpl; // Import for user details service implementation
+import io.micrometer.observation.Observation; // Import for the authentication observation
+import io.micrometer.observation.ObservationRegistry; // Import for password hashing and authentication observations
+import org.springframework.aop.Advisor; // Import for method security advisor
+import org.springframework.aop.support.ComposablePointcut; // Import for combining pointcuts
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut; // Import for annotation pointcuts
 import org.springframework.beans.factory.annotation.Autowired; // Import for dependency injection
+import org.springframework.beans.factory.config.BeanDefinition; // Import for infrastructure bean role
+import org.springframework.boot.context.properties.EnableConfigurationProperties; // Import for configuration properties
 import org.springframework.context.annotation.Bean; // Import for Spring configuration
 import org.springframework.context.annotation.Configuration; // Import for configuration class
+import org.springframework.context.annotation.Role; // Import for bean role
+import org.springframework.core.env.Environment; // Import for the management port lookup
 import org.springframework.security.authentication.AuthenticationManager; // Import for authentication manager
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider; // Import for authentication provider
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor; // Import for method authorization interceptor
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration; // Import for authentication configuration
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity; // Import for method security
 import org.springframework.security.config.annotation.web.builders.HttpSecurity; // Import for HTTP security configuration
@@ -17,12 +34,14 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder; // Impo
 import org.springframework.security.crypto.password.PasswordEncoder; // Import for password encoder interface
 import org.springframework.security.web.SecurityFilterChain; // Import for security filter chain
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter; // Import for username/password authentication filter
+import org.springframework.security.web.util.matcher.RequestMatcher; // Import for the management port matcher
 
 /**
  * Security configuration class to set up Spring Security.
  */
 @Configuration // Marks the class as a source of bean definitions
 @EnableMethodSecurity // Enables method-level security annotations
+@EnableConfigurationProperties(RateLimitProperties.class) // Binds the rate-limit.* properties
 public class WebSecurityConfig {
 
   @Autowired
@@ -31,6 +50,12 @@ public class WebSecurityConfig {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler; // Injects the entry point for unauthorized requests
 
+  @Autowired
+  private ObservationRegistry observationRegistry; // Injects the registry used to observe authentication and password hashing
+
+  @Autowired
+  private Environment environment; // Injects the environment holding the management port
+
   /**
    * Creates a bean for the authentication JWT token filter.
    *
@@ -41,6 +66,26 @@ public class WebSecurityConfig {
     return new AuthTokenFilter(); // Returns a new instance of AuthTokenFilter
   }
 
+  /**
+   * Creates a bean for the API key authentication filter.
+   *
+   * @return ApiKeyAuthFilter instance
+   */
+  @Bean
+  public ApiKeyAuthFilter apiKeyAuthFilter() {
+    return new ApiKeyAuthFilter(); // Returns a new instance of ApiKeyAuthFilter
+  }
+
+  /**
+   * Creates a bean for the rate limiting filter.
+   *
+   * @return RateLimitFilter instance
+   */
+  @Bean
+  public RateLimitFilter rateLimitFilter() {
+    return new RateLimitFilter(); // Returns a new instance of RateLimitFilter
+  }
+
   /**
    * Creates a bean for the DAO authentication provider.
    *
@@ -64,7 +109,10 @@ public class WebSecurityConfig {
    */
   @Bean
   public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
-    return authConfig.getAuthenticationManager(); // Returns the authentication manager from the configuration
+    AuthenticationManager authenticationManager = authConfig.getAuthenticationManager();
+    // Observed as auth.authenticate so the user lookup and password match appear as its child spans
+    return authentication -> Observation.createNotStarted("auth.authenticate", observationRegistry)
+        .observe(() -> authenticationManager.authenticate(authentication));
   }
 
   /**
@@ -74,7 +122,23 @@ public class WebSecurityConfig {
    */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder(); // Returns a new instance of BCryptPasswordEncoder
+    // BCrypt, timed as the auth.password observation
+    return new ObservedPasswordEncoder(new BCryptPasswordEncoder(), observationRegistry);
+  }
+
+  /**
+   * Creates the method interceptor enforcing @RequiresPermission with permission masks.
+   *
+   * @return Advisor instance
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static Advisor requiresPermissionAuthorizationAdvisor() {
+    // Match annotated methods as well as methods of annotated classes
+    ComposablePointcut pointcut = new ComposablePointcut(AnnotationMatchingPointcut.forMethodAnnotation(RequiresPermission.class))
+            .union(new AnnotationMatchingPointcut(RequiresPermission.class, true));
+
+    return new AuthorizationManagerBeforeMethodInterceptor(pointcut, new PermissionAuthorizationManager());
   }
 
   /**
@@ -96,14 +160,18 @@ public class WebSecurityConfig {
             // Set session policy to stateless
             .authorizeHttpRequests(auth -> auth
                     // Configure authorization for HTTP requests
-                    .requestMatchers("/api/auth/signup", "/api/auth/signin").permitAll()
-                    // Allow public access to signup and signin only
+                    .requestMatchers("/api/auth/signup", "/api/auth/signin", "/api/auth/token").permitAll()
+                    // Allow public access to signup, signin and the client_credentials token endpoint only
                     .requestMatchers("/api/tenants/**").permitAll()
                     // Allow public access to tenant endpoints
                     .requestMatchers("/api/test/**").permitAll()
                     // Allow public access to test endpoints
-                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
-                    // Admin endpoints require ADMIN role
+                    .requestMatchers("/actuator/health").permitAll()
+                    // Allow health checks
+                    .requestMatchers(onManagementPort("/actuator/prometheus")).permitAll()
+                    // Allow Prometheus scrapes, only through the internal management port
+                    .requestMatchers("/api/admin/**").access(PermissionAuthorizationManager.hasPermissions(Permission.ADMIN_CONSOLE))
+                    // Admin endpoints require the admin console permission
                     .anyRequest().authenticated());
     // Require authentication for any other request
 
@@ -113,6 +181,29 @@ public class WebSecurityConfig {
     http.addFilterBefore(authenticationJwtTokenFilter(),
             UsernamePasswordAuthenticationFilter.class);
 
+    // Add the API key filter after the JWT token filter, for requests without an access token
+    http.addFilterAfter(apiKeyAuthFilter(), AuthTokenFilter.class);
+
+    // Add the rate limiting filter ahead of the JWT token filter
+    http.addFilterBefore(rateLimitFilter(), AuthTokenFilter.class);
+
     return http.build(); // Build and return the security filter chain
   }
+
+  /**
+   * Matches a path only when the request arrived on the management port. The port actually bound
+   * ({@code local.management.port}) is preferred, so a random management port works too.
+   *
+   * @param path The path within the context path
+   * @return RequestMatcher instance
+   */
+  private RequestMatcher onManagementPort(String path) {
+    return request -> {
+      Integer managementPort = environment.getProperty("local.management.port", Integer.class,
+          environment.getProperty("management.server.port", Integer.class));
+      return managementPort != null
+          && managementPort == request.getLocalPort()
+          && path.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    };
+  }
 }
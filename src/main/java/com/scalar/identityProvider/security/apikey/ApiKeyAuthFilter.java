@@ -0,0 +1,83 @@
+package com.scalar.identityProvider.security.apikey;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.scalar.identityProvider.metrics.TenantTagLimiter;
+import com.scalar.identityProvider.security.SecurityEventAggregator;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.services.ApiKeyDetails;
+import com.scalar.identityProvider.services.ApiKeyService;
+
+/**
+ * Filter that authenticates requests carrying an API key in the {@value #HEADER} header.
+ * It runs after {@link com.scalar.identityProvider.security.jwt.AuthTokenFilter} and only when the
+ * request was not already authenticated with an access token; the tenant of the key is bound for
+ * the rest of the request.
+ */
+public class ApiKeyAuthFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-API-Key";
+
+  @Autowired // Validates keys against the in-memory prefix map
+  private ApiKeyService apiKeyService;
+
+  @Autowired // Bounds the tenant tag on request metrics
+  private TenantTagLimiter tenantTagLimiter;
+
+  @Autowired // Aggregates rejected keys into periodic log summaries
+  private SecurityEventAggregator securityEventAggregator;
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain)
+          throws ServletException, IOException {
+    String key = request.getHeader(HEADER);
+    if (!StringUtils.hasText(key) || SecurityContextHolder.getContext().getAuthentication() != null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    Optional<ApiKeyDetails> principal = apiKeyService.authenticate(key);
+    if (principal.isEmpty()) {
+      // Left unauthenticated; protected endpoints answer 401 through the entry point
+      securityEventAggregator.record("apikey.invalid", null, "Unknown or revoked API key");
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    ApiKeyDetails apiKey = principal.get();
+    UsernamePasswordAuthenticationToken authentication =
+        new UsernamePasswordAuthenticationToken(apiKey, null, apiKey.getAuthorities());
+    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+    request.setAttribute(TenantTagLimiter.REQUEST_ATTRIBUTE, tenantTagLimiter.tagFor(apiKey.getTenantId()));
+
+    // Continue the filter chain with the tenant of the key bound for the rest of the request
+    try {
+      TenantContext.callWhere(apiKey.getTenantId(), () -> {
+        filterChain.doFilter(request, response);
+        return null;
+      });
+    } catch (ServletException | IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServletException(e);
+    }
+  }
+}
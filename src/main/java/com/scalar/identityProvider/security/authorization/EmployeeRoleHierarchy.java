@@ -0,0 +1,141 @@
+package com.scalar.identityProvider.security.authorization;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Role hierarchy for employee roles: SUPER_ADMIN > ADMIN > MODERATOR > USER.
+ * <p>
+ * The transitive closure of every combination of roles is computed once when the class is
+ * loaded. Principals share the resulting immutable authority sets and permission masks, so
+ * a principal holding ADMIN carries ROLE_ADMIN, ROLE_MODERATOR and ROLE_USER and any role
+ * check is a single membership test.
+ */
+public final class EmployeeRoleHierarchy {
+
+  private static final EmployeeRole[] ROLES = EmployeeRole.values();
+
+  /*
+   * Roles directly implied by each role
+   */
+  private static final Map<EmployeeRole, Set<EmployeeRole>> IMPLIED_ROLES = new EnumMap<>(EmployeeRole.class);
+
+  /*
+   * Reachable roles of each single role
+   */
+  private static final Map<EmployeeRole, Set<EmployeeRole>> REACHABLE_ROLES = new EnumMap<>(EmployeeRole.class);
+
+  /*
+   * Reachable authorities and permissions indexed by the bit combination of the held roles
+   */
+  private static final Set<GrantedAuthority>[] REACHABLE_AUTHORITIES;
+  private static final long[] REACHABLE_PERMISSIONS;
+
+  static {
+    IMPLIED_ROLES.put(EmployeeRole.ROLE_SUPER_ADMIN, EnumSet.of(EmployeeRole.ROLE_ADMIN));
+    IMPLIED_ROLES.put(EmployeeRole.ROLE_ADMIN, EnumSet.of(EmployeeRole.ROLE_MODERATOR));
+    IMPLIED_ROLES.put(EmployeeRole.ROLE_MODERATOR, EnumSet.of(EmployeeRole.ROLE_USER));
+    IMPLIED_ROLES.put(EmployeeRole.ROLE_USER, EnumSet.noneOf(EmployeeRole.class));
+
+    for (EmployeeRole role : ROLES) {
+      REACHABLE_ROLES.put(role, Collections.unmodifiableSet(closureOf(role)));
+    }
+
+    int combinations = 1 << ROLES.length;
+    @SuppressWarnings("unchecked")
+    Set<GrantedAuthority>[] authorities = new Set[combinations];
+    long[] permissions = new long[combinations];
+    for (int combination = 0; combination < combinations; combination++) {
+      Set<EmployeeRole> reachable = EnumSet.noneOf(EmployeeRole.class);
+      for (EmployeeRole role : ROLES) {
+        if ((combination & (1 << role.ordinal())) != 0) {
+          reachable.addAll(REACHABLE_ROLES.get(role));
+        }
+      }
+
+      // Highest role first, which is also the order exposed in token responses
+      Set<GrantedAuthority> combinationAuthorities = new LinkedHashSet<>();
+      for (int i = ROLES.length - 1; i >= 0; i--) {
+        if (reachable.contains(ROLES[i])) {
+          combinationAuthorities.add(RolePermissions.authorityOf(ROLES[i]));
+        }
+      }
+      authorities[combination] = Collections.unmodifiableSet(combinationAuthorities);
+      permissions[combination] = RolePermissions.maskOf(reachable);
+    }
+    REACHABLE_AUTHORITIES = authorities;
+    REACHABLE_PERMISSIONS = permissions;
+  }
+
+  private EmployeeRoleHierarchy() {
+  }
+
+  /**
+   * Get the roles reachable from a role, including the role itself.
+   *
+   * @param role The employee role.
+   * @return The immutable set of reachable roles.
+   */
+  public static Set<EmployeeRole> reachableRoles(EmployeeRole role) {
+    return REACHABLE_ROLES.get(role);
+  }
+
+  /**
+   * Get the canonical authority set reachable from the held roles.
+   *
+   * @param roles The held roles.
+   * @return The shared immutable authority set.
+   */
+  public static Set<GrantedAuthority> reachableAuthorities(Collection<EmployeeRole> roles) {
+    return REACHABLE_AUTHORITIES[combinationOf(roles)];
+  }
+
+  /**
+   * Get the permission mask reachable from the held roles.
+   *
+   * @param roles The held roles.
+   * @return The permission mask.
+   */
+  public static long reachablePermissions(Collection<EmployeeRole> roles) {
+    return REACHABLE_PERMISSIONS[combinationOf(roles)];
+  }
+
+  /**
+   * Encode a collection of roles as a bit combination of their ordinals.
+   */
+  private static int combinationOf(Collection<EmployeeRole> roles) {
+    int combination = 0;
+    for (EmployeeRole role : roles) {
+      if (role != null) {
+        combination |= 1 << role.ordinal();
+      }
+    }
+    return combination;
+  }
+
+  /**
+   * Compute the transitive closure of the roles implied by a role.
+   */
+  private static Set<EmployeeRole> closureOf(EmployeeRole role) {
+    Set<EmployeeRole> reachable = EnumSet.of(role);
+    Deque<EmployeeRole> pending = new ArrayDeque<>(IMPLIED_ROLES.get(role));
+    while (!pending.isEmpty()) {
+      EmployeeRole next = pending.pop();
+      if (reachable.add(next)) {
+        pending.addAll(IMPLIED_ROLES.get(next));
+      }
+    }
+    return reachable;
+  }
+}
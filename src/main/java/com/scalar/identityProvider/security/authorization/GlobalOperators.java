@@ -0,0 +1,55 @@
+package com.scalar.identityProvider.security.authorization;
+
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.security.services.UserDetailsImpl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Operator accounts, the only principals holding permissions that act on every tenant.
+ * <p>
+ * Roles are assigned per tenant, and a tenant admin manages the roles of its own tenant, so no
+ * role can carry a global permission. Operators are configured by account ID
+ * ({@code globalOperatorIds}) instead: an ID cannot be claimed again by signing up a deleted
+ * tenant with the same name and username.
+ */
+@Component
+public class GlobalOperators {
+
+  /**
+   * Permissions that act on tenants other than the current one, only granted to operators.
+   */
+  public static final long GLOBAL_PERMISSIONS = Permission.maskOf(
+      Permission.GLOBAL_MEMBERSHIP_MANAGE,
+      Permission.TENANT_DELETE,
+      Permission.TENANT_STORAGE_MANAGE);
+
+  @Value("${globalOperatorIds}")
+  private Set<String> operatorIds;
+
+  /**
+   * Check whether an account is a configured operator.
+   *
+   * @param accountId The ID of the account.
+   * @return true if the account is an operator.
+   */
+  public boolean isOperator(String accountId) {
+    return operatorIds.contains(accountId);
+  }
+
+  /**
+   * Add the global permissions to the principal of an operator account.
+   *
+   * @param principal The principal built from the roles of the account in a tenant.
+   * @return The principal with the global permissions if it is an operator, otherwise the same principal.
+   */
+  public UserDetailsImpl grant(UserDetailsImpl principal) {
+    if (!isOperator(principal.getId())) {
+      return principal;
+    }
+    return principal.withPermissions(principal.getPermissions() | GLOBAL_PERMISSIONS);
+  }
+}
@@ -0,0 +1,85 @@
+package com.scalar.identityProvider.security.authorization;
+
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.security.services.UserDetailsImpl;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Authorization manager that checks {@link RequiresPermission} against the permission mask
+ * of the principal. The required mask of each method is resolved once and cached, so a
+ * check is a map lookup and a bitwise comparison.
+ */
+public final class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+  private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+  private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+  private final Map<Method, Long> requiredMasks = new ConcurrentHashMap<>();
+
+  @Override
+  public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+    Long required = requiredMasks.get(invocation.getMethod());
+    if (required == null) {
+      required = requiredMasks.computeIfAbsent(invocation.getMethod(),
+          method -> resolveRequiredMask(method, invocation.getThis()));
+    }
+    return isGranted(authentication.get(), required) ? GRANTED : DENIED;
+  }
+
+  /**
+   * Create an authorization manager requiring the given permissions, usable for request matchers.
+   *
+   * @param permissions The required permissions.
+   * @return The authorization manager.
+   */
+  public static <T> AuthorizationManager<T> hasPermissions(Permission... permissions) {
+    long required = Permission.maskOf(permissions);
+    return (authentication, object) -> isGranted(authentication.get(), required) ? GRANTED : DENIED;
+  }
+
+  /**
+   * Check whether an authentication holds every permission of the required mask.
+   *
+   * @param authentication The current authentication.
+   * @param required The required permission mask.
+   * @return true if all permissions are held, false otherwise.
+   */
+  public static boolean isGranted(Authentication authentication, long required) {
+    if (authentication == null || !authentication.isAuthenticated()) {
+      return false;
+    }
+    if (!(authentication.getPrincipal() instanceof UserDetailsImpl principal)) {
+      return false;
+    }
+    return (principal.getPermissions() & required) == required;
+  }
+
+  /**
+   * Resolve the permission mask required by a method, looking at the method and then its class.
+   */
+  private static long resolveRequiredMask(Method method, Object target) {
+    Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass();
+    Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+
+    RequiresPermission annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RequiresPermission.class);
+    if (annotation == null) {
+      annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequiresPermission.class);
+    }
+    if (annotation == null || annotation.value().length == 0) {
+      throw new IllegalStateException("No @RequiresPermission found on " + specificMethod);
+    }
+    return Permission.maskOf(annotation.value());
+  }
+}
@@ -0,0 +1,24 @@
+package com.scalar.identityProvider.security.authorization;
+
+import com.scalar.identityProvider.models.Permission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Require the authenticated principal to hold all the given permissions in its current tenant.
+ * Checked by {@link PermissionAuthorizationManager} with a single mask comparison.
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresPermission {
+
+  /**
+   * The permissions required to invoke the method.
+   */
+  Permission[] value();
+}
@@ -0,0 +1,86 @@
+package com.scalar.identityProvider.security.authorization;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Permission;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compiled mapping from employee roles to the permission masks they grant directly.
+ * The masks and authorities are built once and shared by every principal; use
+ * {@link EmployeeRoleHierarchy} for the masks including inherited permissions.
+ */
+public final class RolePermissions {
+
+  private static final Map<EmployeeRole, Long> MASKS = new EnumMap<>(EmployeeRole.class);
+
+  private static final Map<EmployeeRole, GrantedAuthority> AUTHORITIES = new EnumMap<>(EmployeeRole.class);
+
+  static {
+    // Permissions granted directly by each role; inherited ones come from EmployeeRoleHierarchy
+    MASKS.put(EmployeeRole.ROLE_USER, Permission.maskOf(
+        Permission.CONTENT_READ));
+    MASKS.put(EmployeeRole.ROLE_MODERATOR, Permission.maskOf(
+        Permission.CONTENT_MODERATE));
+    MASKS.put(EmployeeRole.ROLE_ADMIN, Permission.maskOf(
+        Permission.ADMIN_CONSOLE,
+        Permission.USER_READ,
+        Permission.USER_CREATE,
+        Permission.USER_UPDATE,
+        Permission.USER_DELETE,
+        Permission.MEMBERSHIP_READ,
+        Permission.MEMBERSHIP_MANAGE,
+        Permission.AUTHORIZATION_CHECK,
+        Permission.CLIENT_MANAGE,
+        Permission.API_KEY_MANAGE));
+    // Operations on any tenant (TENANT_DELETE, TENANT_STORAGE_MANAGE) come from GlobalOperators,
+    // never from a role: roles are held per tenant
+    MASKS.put(EmployeeRole.ROLE_SUPER_ADMIN, Permission.maskOf());
+
+    for (EmployeeRole role : EmployeeRole.values()) {
+      AUTHORITIES.put(role, new SimpleGrantedAuthority(role.name()));
+    }
+  }
+
+  private RolePermissions() {
+  }
+
+  /**
+   * Get the permission mask granted directly by a role.
+   *
+   * @param role The employee role.
+   * @return The permission mask.
+   */
+  public static long maskOf(EmployeeRole role) {
+    return MASKS.getOrDefault(role, 0L);
+  }
+
+  /**
+   * Get the combined permission mask granted directly by several roles.
+   *
+   * @param roles The employee roles.
+   * @return The permission mask.
+   */
+  public static long maskOf(Collection<EmployeeRole> roles) {
+    long mask = 0L;
+    for (EmployeeRole role : roles) {
+      mask |= maskOf(role);
+    }
+    return mask;
+  }
+
+  /**
+   * Get the shared authority instance for a role.
+   *
+   * @param role The employee role.
+   * @return The granted authority.
+   */
+  public static GrantedAuthority authorityOf(EmployeeRole role) {
+    return AUTHORITIES.get(role);
+  }
+}
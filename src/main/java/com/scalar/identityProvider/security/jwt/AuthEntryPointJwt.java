@@ -6,19 +6,22 @@ import jakarta.servlet.ServletException; // Import ServletException for servlet-
 import jakarta.servlet.http.HttpServletRequest; // Import HttpServletRequest for handling HTTP requests
 import jakarta.servlet.http.HttpServletResponse; // Import HttpServletResponse for handling HTTP responses
 
-import org.slf4j.Logger; // Import Logger for logging errors and information
-import org.slf4j.LoggerFactory; // Import LoggerFactory for creating Logger instances
+import org.springframework.beans.factory.annotation.Autowired; // Import Autowired for dependency injection
 import org.springframework.security.core.AuthenticationException; // Import AuthenticationException for authentication errors
 import org.springframework.security.web.AuthenticationEntryPoint; // Import AuthenticationEntryPoint for handling unauthorized access
 import org.springframework.stereotype.Component; // Import Component for Spring component scanning
 
+import com.scalar.identityProvider.security.SecurityEventAggregator; // Import for aggregated error logging
+import com.scalar.identityProvider.security.TenantContext; // Import TenantContext for tenant management
+
 /**
  * Custom implementation of AuthenticationEntryPoint to handle unauthorized access.
  */
 @Component // Indicate that this class is a Spring component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
-	private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class); // Logger for logging errors
+	@Autowired // Aggregates unauthorized requests into periodic log summaries
+	private SecurityEventAggregator securityEventAggregator;
 
 	/**
 	 * Handle unauthorized access attempts.
@@ -32,8 +35,9 @@ public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 	@Override
 	public void commence(HttpServletRequest request, HttpServletResponse response,
 						 AuthenticationException authException) throws IOException, ServletException {
-		// Log the unauthorized access attempt with the exception message
-		logger.error("Unauthorized error: {}", authException.getMessage());
+		// Count the unauthorized access attempt; the aggregator logs a summary and a sampled exemplar
+		securityEventAggregator.record("unauthorized", TenantContext.getCurrentTenant(),
+				request.getMethod() + " " + request.getRequestURI() + ": " + authException.getMessage());
 
 		// Send an HTTP response with a 401 Unauthorized status and an error message
 		response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Error: Unauthorized");
@@ -7,32 +7,50 @@ import jakarta.servlet.ServletException; // Import ServletException for servlet-
 import jakarta.servlet.http.HttpServletRequest; // Import HttpServletRequest for handling HTTP requests
 import jakarta.servlet.http.HttpServletResponse; // Import HttpServletResponse for handling HTTP responses
 
-import org.slf4j.Logger; // Import Logger for logging errors and information
-import org.slf4j.LoggerFactory; // Import LoggerFactory for creating Logger instances
+import io.micrometer.observation.Observation; // Import Observation for timing the filter
+import io.micrometer.observation.ObservationRegistry; // Import ObservationRegistry for creating observations
+
 import org.springframework.beans.factory.annotation.Autowired; // Import Autowired for dependency injection
 import org.springframework.lang.NonNull; // Import NonNull for null safety
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken; // Import for creating authentication tokens
 import org.springframework.security.core.context.SecurityContextHolder; // Import for managing security context
 import org.springframework.security.core.userdetails.UserDetails; // Import for user details
+import org.springframework.security.core.userdetails.UsernameNotFoundException; // Import for unknown service clients
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource; // Import for authentication details
 import org.springframework.util.StringUtils; // Import StringUtils for string utility methods
 import org.springframework.web.filter.OncePerRequestFilter; // Import OncePerRequestFilter to ensure the filter is applied once per request
 
+import com.scalar.identityProvider.metrics.TenantTagLimiter; // Import TenantTagLimiter for bounded tenant tags
+import com.scalar.identityProvider.security.SecurityEventAggregator; // Import for aggregated error logging
 import com.scalar.identityProvider.security.services.UserDetailsServiceImpl; // Import custom user details service
+import com.scalar.identityProvider.security.session.AccessTokenService; // Import for verifying JWT and opaque tokens
+import com.scalar.identityProvider.security.session.ResolvedToken; // Import for tokens verified by an earlier filter
+import com.scalar.identityProvider.security.session.SessionSubject; // Import for the verified token subject
 import com.scalar.identityProvider.security.TenantContext; // Import TenantContext for tenant management
+import com.scalar.identityProvider.services.ServiceClientService; // Import for service client principals
 
 /**
- * Filter to validate the JWT token and set user authentication in the security context.
+ * Filter to validate the access token (JWT or opaque handle) and set user authentication in the security context.
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
 
-  @Autowired // Automatically inject JwtUtils to handle JWT operations
-  private JwtUtils jwtUtils;
+  @Autowired // Verifies JWTs and resolves opaque handles
+  private AccessTokenService accessTokenService;
 
   @Autowired // Automatically inject UserDetailsServiceImpl to load user details
   private UserDetailsServiceImpl userDetailsService;
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class); // Logger for logging errors
+  @Autowired // Loads the principal of service client tokens
+  private ServiceClientService serviceClientService;
+
+  @Autowired // Registry for the auth.filter observation
+  private ObservationRegistry observationRegistry;
+
+  @Autowired // Bounds the tenant tag on request metrics
+  private TenantTagLimiter tenantTagLimiter;
+
+  @Autowired // Aggregates authentication errors into periodic log summaries
+  private SecurityEventAggregator securityEventAggregator;
 
   /**
    * Filter method to process the JWT token and set authentication.
@@ -49,19 +67,36 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       @NonNull HttpServletResponse response,
       @NonNull FilterChain filterChain)
           throws ServletException, IOException {
+    String tenantId = null;
+    String tokenTenantId = null;
+    Observation observation = Observation.start("auth.filter", observationRegistry);
+    // In scope, so token verification and the user lookup are its child spans
+    Observation.Scope scope = observation.openScope();
+    String outcome = "anonymous";
     try {
-      // Parse and validate the JWT token from the request
+      // Parse and validate the token from the request, once: the rate limiting filter may already have
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        // Get the username and tenantId from the validated JWT token
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-        String tenantId = jwtUtils.getTenantIdFromJwtToken(jwt);
-
-        // Set the tenant context
-        TenantContext.setCurrentTenant(tenantId);
-
-        // Load user details from the username
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      SessionSubject subject = jwt != null ? resolve(request, jwt) : null;
+      if (jwt != null && subject == null) {
+        outcome = "rejected";
+      }
+      if (subject != null) {
+        // Get the username and tenantId from the validated token
+        String username = subject.username();
+        tokenTenantId = subject.tenantId();
+
+        // Load the service client from memory, the account the token was pinned to with its
+        // assigned roles, or the user details from the username within the tenant of the token
+        UserDetails userDetails;
+        if (subject.client()) {
+          userDetails = serviceClientService.loadDetails(username, tokenTenantId)
+              .orElseThrow(() -> new UsernameNotFoundException("Service client not found: " + username));
+        } else if (subject.accountId() != null) {
+          userDetails = userDetailsService.loadAssignedUser(subject.accountId(), username, tokenTenantId);
+        } else {
+          String userTenantId = tokenTenantId;
+          userDetails = TenantContext.callWhere(userTenantId, () -> userDetailsService.loadUserByUsername(username));
+        }
 
         // Create an authentication token with the user details
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
@@ -72,17 +107,52 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         // Set the authentication in the security context
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        tenantId = tokenTenantId;
+        outcome = "authenticated";
       }
     } catch (Exception e) {
-      // Log any errors that occur during authentication
-      logger.error("Cannot set user authentication: {}", e);
+      // Count the error and leave the log line to the aggregator instead of the request thread
+      securityEventAggregator.record("auth.filter_error", tokenTenantId, "Cannot set user authentication: " + e, e);
+      outcome = "error";
     } finally {
-      // Clear tenant context after request processing
-      TenantContext.clear();
+      // Tag with the verified tenant only, bounded so the series count stays fixed
+      String tenantTag = tenantTagLimiter.tagFor(tenantId);
+      request.setAttribute(TenantTagLimiter.REQUEST_ATTRIBUTE, tenantTag);
+      observation.lowCardinalityKeyValue("outcome", outcome);
+      observation.lowCardinalityKeyValue("tenant", tenantTag);
+      if (tenantId != null) {
+        observation.highCardinalityKeyValue("tenant.id", tenantId);
+      }
+      scope.close();
+      observation.stop();
+    }
+
+    // Continue the filter chain with the tenant bound for the rest of the request
+    try {
+      TenantContext.callWhere(tenantId, () -> {
+        filterChain.doFilter(request, response);
+        return null;
+      });
+    } catch (ServletException | IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServletException(e);
     }
+  }
 
-    // Continue the filter chain
-    filterChain.doFilter(request, response);
+  /**
+   * Verify a token, or reuse the result of the filter that verified it earlier in the request.
+   *
+   * @param request The HTTP request.
+   * @param token The access token.
+   * @return The subject of the token, or null if it is invalid.
+   */
+  private SessionSubject resolve(HttpServletRequest request, String token) {
+    if (request.getAttribute(ResolvedToken.REQUEST_ATTRIBUTE) instanceof ResolvedToken resolved
+        && resolved.token().equals(token)) {
+      return resolved.subject();
+    }
+    return accessTokenService.verify(token);
   }
 
   /**
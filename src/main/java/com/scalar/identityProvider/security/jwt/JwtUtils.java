@@ -2,17 +2,24 @@ package com.scalar.identityProvider.security.jwt;
 
 import java.security.Key; // Import Key for cryptographic operations
 import java.util.Date; // Import Date for handling date and time
+import java.util.Map; // Import Map for rejection counters by reason
 
-import org.slf4j.Logger; // Import Logger for logging errors and information
-import org.slf4j.LoggerFactory; // Import LoggerFactory for creating Logger instances
+import org.springframework.beans.factory.annotation.Autowired; // Import Autowired for dependency injection
 import org.springframework.beans.factory.annotation.Value; // Import Value for dependency injection
 import org.springframework.security.core.Authentication; // Import Authentication for handling user authentication
 import org.springframework.stereotype.Component; // Import Component for Spring component scanning
+import jakarta.annotation.PostConstruct; // Import PostConstruct for one-time initialization
 import com.scalar.identityProvider.security.services.UserDetailsImpl; // Import custom user details implementation
+import com.scalar.identityProvider.security.SecurityEventAggregator; // Import for aggregated rejection logging
 import com.scalar.identityProvider.security.TenantContext; // Import TenantContext for tenant management
 import io.jsonwebtoken.*; // Import the JJWT library classes for handling JWT
 import io.jsonwebtoken.io.Decoders; // Import Decoders for decoding JWT secret
 import io.jsonwebtoken.security.Keys; // Import Keys for creating keys for JWT signing
+import io.jsonwebtoken.security.SignatureException; // Import SignatureException for invalid signatures
+import io.micrometer.core.instrument.Counter; // Import Counter for rejection metrics
+import io.micrometer.core.instrument.MeterRegistry; // Import MeterRegistry for registering metrics
+import io.micrometer.observation.Observation; // Import Observation for timing token verification
+import io.micrometer.observation.ObservationRegistry; // Import ObservationRegistry for creating observations
 
 /**
  * Utility class for managing JSON Web Tokens (JWT).
@@ -20,14 +27,56 @@ import io.jsonwebtoken.security.Keys; // Import Keys for creating keys for JWT s
 @Component // Indicate that this class is a Spring component
 public class JwtUtils {
 
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class); // Logger for logging errors
-
   @Value("${jwtSecret}") // Inject the JWT secret from application properties
   private String jwtSecret;
 
   @Value("${jwtExpirationMs}") // Inject the JWT expiration time from application properties
   private int jwtExpirationMs;
 
+  private Key signingKey; // Signing key decoded once from the secret
+
+  private JwtParser jwtParser; // Thread-safe parser reused for every token
+
+  @Autowired // Registry for the auth.jwt.verify and auth.token.generate observations
+  private ObservationRegistry observationRegistry;
+
+  @Autowired // Registry for the auth.jwt.rejected counters
+  private MeterRegistry meterRegistry;
+
+  private Map<String, Counter> rejectionCounters; // auth.jwt.rejected counters by reason
+
+  @Autowired // Aggregates rejections into periodic log summaries
+  private SecurityEventAggregator securityEventAggregator;
+
+  /**
+   * Decode the secret and build the parser once instead of on every call.
+   */
+  @PostConstruct
+  void init() {
+    signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    rejectionCounters = Map.of(
+        "signature", rejectionCounter("signature"),
+        "malformed", rejectionCounter("malformed"),
+        "expired", rejectionCounter("expired"),
+        "unsupported", rejectionCounter("unsupported"),
+        "empty", rejectionCounter("empty"),
+        "invalid", rejectionCounter("invalid"));
+  }
+
+  /**
+   * Register the rejection counter for a reason.
+   *
+   * @param reason The rejection reason tag.
+   * @return The counter.
+   */
+  private Counter rejectionCounter(String reason) {
+    return Counter.builder("auth.jwt.rejected")
+        .description("JWT tokens rejected by the authentication filter")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
   /**
    * Generate a JWT token based on the provided authentication.
    *
@@ -41,25 +90,81 @@ public class JwtUtils {
     // Get the current tenant from context
     String tenantId = TenantContext.getCurrentTenant();
 
-    // Build and return the JWT token
-    return Jwts.builder()
-            .setSubject((userPrincipal.getUsername())) // Set the subject (username)
-            .claim("tenantId", tenantId) // Add tenantId as a claim
-            .setIssuedAt(new Date()) // Set the issue date
-            .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs)) // Set the expiration date
-            .signWith(key(), SignatureAlgorithm.HS256)
-            // Sign the token using the secret key and algorithm
-            .compact(); // Compact the JWT into a string
+    return generateTenantScopedToken(userPrincipal.getUsername(), tenantId);
+  }
+
+  /**
+   * Mint a JWT token for a user in a tenant.
+   * Used for token exchange when switching tenants: the caller already holds a valid
+   * access token and a verified membership, so no password verification is involved.
+   *
+   * @param username The username of the user.
+   * @param tenantId The tenant the token is scoped to.
+   * @return The generated JWT token as a string.
+   */
+  public String generateTenantScopedToken(String username, String tenantId) {
+    return generateTenantScopedToken(username, tenantId, false);
+  }
+
+  /**
+   * Mint a JWT token for a user or a service client in a tenant.
+   * Tokens of service clients carry the {@code client} claim, so their subject (the client ID)
+   * is never looked up as a username.
+   *
+   * @param subject The username of the user, or the client ID of a service client.
+   * @param tenantId The tenant the token is scoped to.
+   * @param client Whether the subject is a service client.
+   * @return The generated JWT token as a string.
+   */
+  public String generateTenantScopedToken(String subject, String tenantId, boolean client) {
+    return generateTenantScopedToken(subject, tenantId, client, null);
+  }
+
+  /**
+   * Mint a JWT token for a user, through the roles assigned to their own account in another
+   * tenant, or for a service client in a tenant.
+   * Tokens issued for assigned roles carry the {@code accountId} claim, so the principal is the
+   * account with that ID and never a same-name account that lives in the tenant.
+   *
+   * @param subject The username of the user, or the client ID of a service client.
+   * @param tenantId The tenant the token is scoped to.
+   * @param client Whether the subject is a service client.
+   * @param accountId The ID of the user's own account, or null when the account lives in the tenant.
+   * @return The generated JWT token as a string.
+   */
+  public String generateTenantScopedToken(String subject, String tenantId, boolean client, String accountId) {
+    Observation observation = Observation.createNotStarted("auth.token.generate", observationRegistry);
+    if (tenantId != null) {
+      observation.highCardinalityKeyValue("tenant.id", tenantId);
+    }
+    return observation.observe(() -> {
+      Date now = new Date();
+
+      // Build and return the JWT token
+      JwtBuilder builder = Jwts.builder()
+              .setSubject(subject) // Set the subject (username or client ID)
+              .claim("tenantId", tenantId) // Add tenantId as a claim
+              .setIssuedAt(now) // Set the issue date
+              .setExpiration(new Date(now.getTime() + jwtExpirationMs)); // Set the expiration date
+      if (client) {
+        builder.claim("client", true); // Mark tokens of service clients
+      }
+      if (accountId != null) {
+        builder.claim("accountId", accountId); // Pin tokens of assigned roles to the account
+      }
+
+      // Sign the token using the secret key and algorithm and compact it into a string
+      return builder.signWith(key(), SignatureAlgorithm.HS256).compact();
+    });
   }
 
   /**
-   * Create a signing key from the JWT secret.
+   * Get the signing key derived from the JWT secret.
    *
    * @return The signing key as a Key object.
    */
   private Key key() {
-    // Decode the JWT secret and create a signing key
-    return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    return signingKey;
   }
 
   /**
@@ -70,8 +175,7 @@ public class JwtUtils {
    */
   public String getUserNameFromJwtToken(String token) {
     // Parse the JWT token and return the subject (username)
-    return Jwts.parserBuilder().setSigningKey(key()).build()
-            .parseClaimsJws(token).getBody().getSubject();
+    return jwtParser.parseClaimsJws(token).getBody().getSubject();
   }
 
   /**
@@ -82,8 +186,7 @@ public class JwtUtils {
    */
   public String getTenantIdFromJwtToken(String token) {
     // Parse the JWT token and return the tenantId claim
-    return Jwts.parserBuilder().setSigningKey(key()).build()
-            .parseClaimsJws(token).getBody().get("tenantId", String.class);
+    return jwtParser.parseClaimsJws(token).getBody().get("tenantId", String.class);
   }
 
   /**
@@ -93,20 +196,58 @@ public class JwtUtils {
    * @return True if the token is valid, false otherwise.
    */
   public boolean validateJwtToken(String authToken) {
+    return validateAndGetClaims(authToken) != null;
+  }
+
+  /**
+   * Validate the given JWT token and return its claims, so callers parse the token only once.
+   * Verification is timed as the auth.jwt.verify observation and every rejection is counted
+   * in auth.jwt.rejected by reason.
+   *
+   * @param authToken The JWT token to validate.
+   * @return The verified claims, or null if the token is invalid.
+   */
+  public Claims validateAndGetClaims(String authToken) {
+    Observation observation = Observation.start("auth.jwt.verify", observationRegistry);
     try {
       // Parse the token and verify its signature
-      Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-      return true; // Token is valid
+      Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+      observation.lowCardinalityKeyValue("outcome", "valid");
+      String tenantId = claims.get("tenantId", String.class);
+      if (tenantId != null) {
+        observation.highCardinalityKeyValue("tenant.id", tenantId);
+      }
+      return claims; // Token is valid
+    } catch (SignatureException e) {
+      reject(observation, "signature", null, e);
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage()); // Log invalid token error
+      reject(observation, "malformed", null, e);
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage()); // Log expired token error
+      reject(observation, "expired", e.getClaims().get("tenantId", String.class), e);
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage()); // Log unsupported token error
+      reject(observation, "unsupported", null, e);
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage()); // Log empty claims error
+      reject(observation, "empty", null, e);
+    } catch (JwtException e) {
+      reject(observation, "invalid", null, e);
+    } finally {
+      observation.stop();
     }
 
-    return false; // Token is invalid
+    return null; // Token is invalid
+  }
+
+  /**
+   * Record a rejected token. The log line is aggregated instead of written on the request thread.
+   *
+   * @param observation The verification observation.
+   * @param reason The rejection reason tag.
+   * @param tenantId The tenant of the token if its signature was verified, or null.
+   * @param e The rejection cause.
+   */
+  private void reject(Observation observation, String reason, String tenantId, Exception e) {
+    observation.lowCardinalityKeyValue("outcome", "rejected");
+    rejectionCounters.get(reason).increment();
+    securityEventAggregator.record("jwt." + reason, tenantId, e.getMessage());
   }
 }
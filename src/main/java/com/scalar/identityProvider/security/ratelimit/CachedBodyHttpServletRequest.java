@@ -0,0 +1,91 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads the body once so a filter can inspect it and the controller can
+ * still read it. At most {@code maxBytes} are kept; a longer body is only flagged as too large,
+ * and the request must then be rejected instead of passed on.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private final boolean tooLarge;
+
+    CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        // One byte past the limit is enough to tell that the body does not fit
+        byte[] read = request.getInputStream().readNBytes(maxBytes + 1);
+        this.tooLarge = read.length > maxBytes;
+        this.body = tooLarge ? new byte[0] : read;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    boolean isTooLarge() {
+        return tooLarge;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream input = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                // The whole body is in memory, so it is available at once
+                try {
+                    if (!isFinished()) {
+                        readListener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        readListener.onAllDataRead();
+                    }
+                } catch (IOException e) {
+                    readListener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() {
+                return input.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return input.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        Charset charset = getCharacterEncoding() != null
+                ? Charset.forName(getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
@@ -0,0 +1,142 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded admission with one queue per tenant, served by stride scheduling: every tenant with
+ * waiters advances its pass by {@code 1 / weight} per admission and the lowest pass goes next.
+ * A tenant that floods the queue only lengthens its own queue, so it never starves the others.
+ */
+final class FairAdmissionQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<String, TenantQueue> queues = new HashMap<>();
+
+    private final int maxQueuedPerTenant;
+
+    private int available;
+
+    // Pass of the last admitted tenant; tenants that become active start here
+    private double virtualTime;
+
+    FairAdmissionQueue(int permits, int maxQueuedPerTenant) {
+        this.available = permits;
+        this.maxQueuedPerTenant = maxQueuedPerTenant;
+    }
+
+    /**
+     * Wait for a permit on behalf of a tenant. Every successful call must be paired with {@link #release()}.
+     *
+     * @param tenantId The tenant ID.
+     * @param weight The share of the tenant relative to the others.
+     * @param timeoutNanos Longest time to wait.
+     * @return true if a permit was acquired.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean acquire(String tenantId, int weight, long timeoutNanos) throws InterruptedException {
+        CompletableFuture<Void> ticket = new CompletableFuture<>();
+        TenantQueue queue;
+        lock.lock();
+        try {
+            if (available > 0 && queues.isEmpty()) {
+                available--;
+                return true;
+            }
+            queue = queues.computeIfAbsent(tenantId, id -> new TenantQueue(id, virtualTime));
+            if (queue.waiters.size() >= maxQueuedPerTenant) {
+                return false;
+            }
+            queue.weight = Math.max(1, weight);
+            queue.waiters.add(ticket);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            ticket.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException | InterruptedException e) {
+            if (!withdraw(queue, ticket)) {
+                // The permit was handed over while giving up; keep it so the caller releases it
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+            if (e instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return a permit, handing it to the next tenant in line if any.
+     */
+    void release() {
+        lock.lock();
+        try {
+            TenantQueue next = null;
+            for (TenantQueue queue : queues.values()) {
+                if (next == null || queue.pass < next.pass) {
+                    next = queue;
+                }
+            }
+            if (next == null) {
+                available++;
+                return;
+            }
+            CompletableFuture<Void> ticket = next.waiters.poll();
+            virtualTime = next.pass;
+            next.pass += 1.0 / next.weight;
+            if (next.waiters.isEmpty()) {
+                queues.remove(next.tenantId);
+            }
+            ticket.complete(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean withdraw(TenantQueue queue, CompletableFuture<Void> ticket) {
+        lock.lock();
+        try {
+            if (ticket.isDone()) {
+                return false;
+            }
+            queue.waiters.remove(ticket);
+            if (queue.waiters.isEmpty()) {
+                queues.remove(queue.tenantId, queue);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class TenantQueue {
+
+        private final String tenantId;
+
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+        private double pass;
+
+        private int weight = 1;
+
+        private TenantQueue(String tenantId, double pass) {
+            this.tenantId = tenantId;
+            this.pass = pass;
+        }
+    }
+}
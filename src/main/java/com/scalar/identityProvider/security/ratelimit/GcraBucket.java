@@ -0,0 +1,49 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket using the generic cell rate algorithm: the whole bucket state is the
+ * theoretical arrival time of the next request, updated with a single compare-and-set.
+ */
+final class GcraBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    GcraBucket(long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Take one token.
+     *
+     * @param now The current time in nanoseconds.
+     * @param intervalNanos Nanoseconds between two requests at the sustained rate.
+     * @param burst Requests allowed back to back.
+     * @return 0 when the request is allowed, otherwise the nanoseconds until it would be.
+     */
+    long tryAcquire(long now, long intervalNanos, int burst) {
+        long tolerance = intervalNanos * burst;
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket is full again, so dropping it loses no state.
+     *
+     * @param now The current time in nanoseconds.
+     * @return true if the bucket is idle.
+     */
+    boolean isIdle(long now) {
+        return theoreticalArrival.get() - now <= 0;
+    }
+}
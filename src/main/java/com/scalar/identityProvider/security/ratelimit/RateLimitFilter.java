@@ -0,0 +1,237 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.identityProvider.services.ApiKeyService;
+import com.scalar.identityProvider.services.ServiceClientService;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.security.apikey.ApiKeyAuthFilter;
+import com.scalar.identityProvider.security.services.ApiKeyDetails;
+import com.scalar.identityProvider.security.session.AccessTokenService;
+import com.scalar.identityProvider.security.session.ResolvedToken;
+import com.scalar.identityProvider.security.session.SessionSubject;
+
+/**
+ * Filter that rate limits requests per tenant and per username before they reach authentication.
+ * The tenant and username come from the sign-in body, the bearer token or the API key; token requests
+ * of service clients are limited by the tenant of the client and by its client ID, and those with an
+ * unknown client ID share one bucket. Sign-ins, which pay for a password hash verification,
+ * additionally go through the weighted-fair admission queue.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private static final String SIGNIN_PATH = "/api/auth/signin";
+
+  private static final String TOKEN_PATH = "/api/auth/token";
+
+  // Sign-in bodies are a username, a password and a tenantId; anything larger is not read
+  private static final int MAX_SIGNIN_BODY_BYTES = 8 * 1024;
+
+  @Autowired // Limits configuration
+  private RateLimitProperties properties;
+
+  @Autowired // Token buckets and admission queue
+  private RateLimiter rateLimiter;
+
+  @Autowired // Verifies bearer tokens, JWT or opaque
+  private AccessTokenService accessTokenService;
+
+  @Autowired // Reads the tenant of API keys
+  private ApiKeyService apiKeyService;
+
+  @Autowired // Reads the tenant of service clients
+  private ServiceClientService serviceClientService;
+
+  @Autowired // Reads sign-in bodies and writes rejections
+  private ObjectMapper objectMapper;
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain)
+          throws ServletException, IOException {
+    if (!properties.isEnabled()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    HttpServletRequest filteredRequest = request;
+    String tenantId = null;
+    String username = null;
+
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    boolean signin = "POST".equals(request.getMethod()) && SIGNIN_PATH.equals(path);
+    if ("POST".equals(request.getMethod()) && TOKEN_PATH.equals(path)) {
+      String clientId = clientIdOf(request);
+      if (clientId != null) {
+        tenantId = serviceClientService.findTenantId(clientId).orElse(null);
+        username = clientId;
+        if (tenantId == null) {
+          long wait = rateLimiter.tryAcquireUnknown();
+          if (wait > 0) {
+            reject(response, wait);
+            return;
+          }
+        }
+      }
+    } else if (signin) {
+      if (request.getContentLengthLong() > MAX_SIGNIN_BODY_BYTES) {
+        rejectTooLarge(response);
+        return;
+      }
+      // Keep the body so the controller can still read it
+      CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request, MAX_SIGNIN_BODY_BYTES);
+      if (cachedRequest.isTooLarge()) {
+        rejectTooLarge(response);
+        return;
+      }
+      filteredRequest = cachedRequest;
+      JsonNode body = readBody(cachedRequest.getBody());
+      tenantId = textOf(body, "tenantId");
+      username = textOf(body, "username");
+    } else {
+      SessionSubject subject = bearerSubject(request);
+      if (subject != null) {
+        tenantId = subject.tenantId();
+        username = subject.username();
+      } else {
+        ApiKeyDetails apiKey = apiKeySubject(request);
+        if (apiKey != null) {
+          tenantId = apiKey.getTenantId();
+          username = apiKey.getUsername();
+        }
+      }
+    }
+
+    if (tenantId == null && !signin) {
+      filterChain.doFilter(filteredRequest, response);
+      return;
+    }
+
+    // A sign-in without a usable tenantId still reaches the controller, so it takes the unknown bucket
+    long wait = tenantId == null ? rateLimiter.tryAcquireUnknown() : rateLimiter.tryAcquire(tenantId, username);
+    if (wait > 0) {
+      reject(response, wait);
+      return;
+    }
+
+    if (!signin) {
+      filterChain.doFilter(filteredRequest, response);
+      return;
+    }
+
+    boolean admitted;
+    try {
+      admitted = rateLimiter.admitSignin(tenantId);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      admitted = false;
+    }
+    if (!admitted) {
+      reject(response, TimeUnit.SECONDS.toNanos(1));
+      return;
+    }
+    try {
+      filterChain.doFilter(filteredRequest, response);
+    } finally {
+      rateLimiter.releaseSignin();
+    }
+  }
+
+  /**
+   * Answer with 429 and the seconds to wait in Retry-After.
+   */
+  private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+    long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), MessageResponse.of("Error: Too many requests!"));
+  }
+
+  /**
+   * Answer with 413 to a sign-in body over {@link #MAX_SIGNIN_BODY_BYTES}.
+   */
+  private void rejectTooLarge(HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), MessageResponse.of("Error: Request body too large!"));
+  }
+
+  private JsonNode readBody(byte[] body) {
+    try {
+      return objectMapper.readTree(body);
+    } catch (IOException e) {
+      return null; // Malformed bodies are rejected by the controller
+    }
+  }
+
+  /**
+   * Read a field as the controller will bind it: Jackson coerces numbers and booleans to strings,
+   * so {"tenantId":123} signs in to tenant "123" and must be limited as such.
+   */
+  private static String textOf(JsonNode body, String field) {
+    if (body == null || !body.path(field).isValueNode() || body.get(field).isNull()) {
+      return null;
+    }
+    return body.get(field).asText();
+  }
+
+  /**
+   * Verify the bearer token, once for the whole request: the result is kept for AuthTokenFilter.
+   */
+  private SessionSubject bearerSubject(HttpServletRequest request) {
+    String headerAuth = request.getHeader("Authorization");
+    if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+      String token = headerAuth.substring(7);
+      SessionSubject subject = accessTokenService.verify(token);
+      request.setAttribute(ResolvedToken.REQUEST_ATTRIBUTE, new ResolvedToken(token, subject));
+      return subject;
+    }
+    return null;
+  }
+
+  /**
+   * Read the client ID of a token request, from HTTP Basic credentials or the client_id form parameter.
+   */
+  private static String clientIdOf(HttpServletRequest request) {
+    String headerAuth = request.getHeader("Authorization");
+    if (headerAuth != null && headerAuth.regionMatches(true, 0, "Basic ", 0, 6)) {
+      String decoded;
+      try {
+        decoded = new String(Base64.getDecoder().decode(headerAuth.substring(6).trim()), StandardCharsets.UTF_8);
+      } catch (IllegalArgumentException e) {
+        return null; // Rejected by the controller
+      }
+      int colon = decoded.indexOf(':');
+      return colon > 0 ? URLDecoder.decode(decoded.substring(0, colon), StandardCharsets.UTF_8) : null;
+    }
+    String clientId = request.getParameter("client_id");
+    return StringUtils.hasText(clientId) ? clientId : null;
+  }
+
+  private ApiKeyDetails apiKeySubject(HttpServletRequest request) {
+    String key = request.getHeader(ApiKeyAuthFilter.HEADER);
+    return StringUtils.hasText(key) ? apiKeyService.peek(key).orElse(null) : null;
+  }
+}
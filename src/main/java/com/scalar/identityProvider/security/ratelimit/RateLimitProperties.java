@@ -0,0 +1,122 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Rate limits per tenant tier and per username, and the sign-in admission queue.
+ * The tier of a tenant is read from {@code Tenant.rateLimitTier}.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /*
+     * Whether requests are rate limited at all
+     */
+    @Getter
+    @Setter
+    private boolean enabled = true;
+
+    /*
+     * Tier used for tenants without a tier or with an unknown one
+     */
+    @Getter
+    @Setter
+    private String defaultTier = "standard";
+
+    /*
+     * Limits per tier name
+     */
+    @Getter
+    @Setter
+    private Map<String, Tier> tiers = new LinkedHashMap<>(Map.of(
+            "standard", new Tier(20, 40, 1),
+            "premium", new Tier(100, 200, 4)));
+
+    /*
+     * Limit per username within a tenant
+     */
+    @Getter
+    @Setter
+    private Limit username = new Limit(5, 10);
+
+    /*
+     * Sign-ins verified concurrently; the rest wait in the weighted-fair queue
+     */
+    @Getter
+    @Setter
+    private int maxConcurrentSignins = 16;
+
+    /*
+     * Sign-ins one tenant may have waiting before new ones are rejected
+     */
+    @Getter
+    @Setter
+    private int maxQueuedPerTenant = 64;
+
+    /*
+     * Longest time a sign-in waits for admission
+     */
+    @Getter
+    @Setter
+    private long queueTimeoutMs = 2000;
+
+    /*
+     * How long the tier of a tenant is cached
+     */
+    @Getter
+    @Setter
+    private long tierCacheTtlMs = 60000;
+
+    /*
+     * Buckets kept in memory before idle ones are swept
+     */
+    @Getter
+    @Setter
+    private int maxTrackedKeys = 100000;
+
+    /**
+     * A token bucket: a sustained rate and the burst allowed on top of it.
+     */
+    public static class Limit {
+
+        @Getter
+        @Setter
+        private double requestsPerSecond;
+
+        @Getter
+        @Setter
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * The limit of a tier and its share of the sign-in admission queue.
+     */
+    public static class Tier extends Limit {
+
+        @Getter
+        @Setter
+        private int weight = 1;
+
+        public Tier() {
+        }
+
+        public Tier(double requestsPerSecond, int burst, int weight) {
+            super(requestsPerSecond, burst);
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.scalar.identityProvider.security.ratelimit;
+
+import com.scalar.identityProvider.events.TenantChangedEvent;
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.repository.TenantRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per tenant and per username, with the tenant limits taken from its tier.
+ * Buckets live in concurrent maps and are updated without locks; full buckets are swept when
+ * the number of tracked keys exceeds {@code rate-limit.max-tracked-keys}.
+ * <p>
+ * Tenant IDs that do not exist are cached as unknown and all share one bucket with the default
+ * tier, so requests with random IDs neither query the repository every time nor evict the
+ * buckets of real tenants.
+ */
+@Component
+public class RateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private final ConcurrentHashMap<String, GcraBucket> tenantBuckets = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, GcraBucket> usernameBuckets = new ConcurrentHashMap<>();
+
+    // Key of the bucket and admission queue shared by unknown tenants; no tenant ID contains NUL
+    private static final String UNKNOWN_TENANT = "\u0000unknown";
+
+    private final ConcurrentHashMap<String, CachedTier> tiers = new ConcurrentHashMap<>();
+
+    // Tenant IDs without a tenant, with the System.nanoTime() until which that is trusted
+    private final ConcurrentHashMap<String, Long> unknownTenants = new ConcurrentHashMap<>();
+
+    private FairAdmissionQueue signinQueue;
+
+    @PostConstruct
+    void init() {
+        signinQueue = new FairAdmissionQueue(properties.getMaxConcurrentSignins(), properties.getMaxQueuedPerTenant());
+    }
+
+    private record CachedTier(RateLimitProperties.Tier tier, long expiresAt) {
+    }
+
+    /**
+     * Take a token from the tenant bucket and, if a username is known, from its bucket.
+     *
+     * @param tenantId The tenant ID.
+     * @param username The username, or null.
+     * @return 0 when the request is allowed, otherwise the nanoseconds until it would be.
+     */
+    public long tryAcquire(String tenantId, String username) {
+        long now = System.nanoTime();
+        RateLimitProperties.Tier tier = tierOf(tenantId, now);
+        if (tier == null) {
+            return tryAcquireUnknown(now);
+        }
+
+        long wait = bucket(tenantBuckets, tenantId, now).tryAcquire(now, intervalNanos(tier), tier.getBurst());
+        if (wait > 0 || username == null) {
+            return wait;
+        }
+        RateLimitProperties.Limit limit = properties.getUsername();
+        return bucket(usernameBuckets, tenantId + '\u0000' + username, now)
+                .tryAcquire(now, intervalNanos(limit), limit.getBurst());
+    }
+
+    /**
+     * Take a token from the bucket shared by unknown tenants, for requests whose tenant cannot be
+     * resolved, such as token requests with a client ID that does not exist.
+     *
+     * @return 0 when the request is allowed, otherwise the nanoseconds until it would be.
+     */
+    public long tryAcquireUnknown() {
+        return tryAcquireUnknown(System.nanoTime());
+    }
+
+    private long tryAcquireUnknown(long now) {
+        return bucket(tenantBuckets, UNKNOWN_TENANT, now)
+                .tryAcquire(now, intervalNanos(defaultTier()), defaultTier().getBurst());
+    }
+
+    /**
+     * Wait for a sign-in slot in the weighted-fair admission queue.
+     * Every successful call must be paired with {@link #releaseSignin()}.
+     *
+     * @param tenantId The tenant ID, or null if the sign-in carries none; it queues as an unknown tenant.
+     * @return true if admitted before the queue timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean admitSignin(String tenantId) throws InterruptedException {
+        RateLimitProperties.Tier tier = tenantId == null ? null : tierOf(tenantId, System.nanoTime());
+        String queueKey = tier == null ? UNKNOWN_TENANT : tenantId;
+        int weight = (tier == null ? defaultTier() : tier).getWeight();
+        return signinQueue.acquire(queueKey, weight, TimeUnit.MILLISECONDS.toNanos(properties.getQueueTimeoutMs()));
+    }
+
+    /**
+     * Free a sign-in slot taken with {@link #admitSignin(String)}.
+     */
+    public void releaseSignin() {
+        signinQueue.release();
+    }
+
+    /**
+     * Forget the cached tier and bucket of a deleted tenant.
+     *
+     * @param event The tenant deletion event.
+     */
+    @EventListener
+    public void onTenantDeleted(TenantDeletedEvent event) {
+        tiers.remove(event.tenantId());
+        tenantBuckets.remove(event.tenantId());
+    }
+
+    /**
+     * Forget the cached tier of a created or updated tenant, so a new tenant stops counting as
+     * unknown and a changed tier applies right away.
+     *
+     * @param event The tenant change event.
+     */
+    @EventListener
+    public void onTenantChanged(TenantChangedEvent event) {
+        tiers.remove(event.tenantId());
+        unknownTenants.remove(event.tenantId());
+    }
+
+    /**
+     * Get the tier of a tenant.
+     *
+     * @return The tier, or null if the tenant does not exist.
+     */
+    private RateLimitProperties.Tier tierOf(String tenantId, long now) {
+        CachedTier cached = tiers.get(tenantId);
+        if (cached != null && cached.expiresAt() - now > 0) {
+            return cached.tier();
+        }
+        Long unknownUntil = unknownTenants.get(tenantId);
+        if (unknownUntil != null && unknownUntil - now > 0) {
+            return null;
+        }
+        long expiresAt = now + TimeUnit.MILLISECONDS.toNanos(properties.getTierCacheTtlMs());
+        Optional<Tenant> tenant = tenantRepository.findByTenantId(tenantId);
+        if (tenant.isEmpty()) {
+            if (unknownTenants.size() >= properties.getMaxTrackedKeys()) {
+                unknownTenants.values().removeIf(until -> until - now <= 0);
+                if (unknownTenants.size() >= properties.getMaxTrackedKeys()) {
+                    unknownTenants.clear();
+                }
+            }
+            unknownTenants.put(tenantId, expiresAt);
+            return null;
+        }
+        RateLimitProperties.Tier tier = properties.getTiers().get(tenant.get().getRateLimitTier());
+        if (tier == null) {
+            tier = defaultTier();
+        }
+        if (tiers.size() >= properties.getMaxTrackedKeys()) {
+            tiers.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        }
+        tiers.put(tenantId, new CachedTier(tier, expiresAt));
+        return tier;
+    }
+
+    private RateLimitProperties.Tier defaultTier() {
+        return properties.getTiers().get(properties.getDefaultTier());
+    }
+
+    private GcraBucket bucket(ConcurrentHashMap<String, GcraBucket> buckets, String key, long now) {
+        GcraBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxTrackedKeys()) {
+            sweep(buckets, now);
+        }
+        return buckets.computeIfAbsent(key, k -> new GcraBucket(now));
+    }
+
+    private static void sweep(Map<String, GcraBucket> buckets, long now) {
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private static long intervalNanos(RateLimitProperties.Limit limit) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRequestsPerSecond());
+    }
+}
@@ -0,0 +1,44 @@
+package com.scalar.identityProvider.security.services;
+
+import java.util.Set; // Import Set for role names
+
+import com.scalar.identityProvider.models.ApiKey; // Import ApiKey model
+import com.scalar.identityProvider.models.EmployeeRole; // Import EmployeeRole enum
+import com.scalar.identityProvider.models.Permission; // Import Permission enum
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy; // Import precomputed role hierarchy closure
+
+/**
+ * Principal of a request authenticated with an API key.
+ * The username is the public part of the key (idp_ and its prefix); a key has no email or password.
+ * A key never gets the permissions to manage credentials, whatever its roles, so a leaked key
+ * cannot mint new keys or service clients.
+ */
+public class ApiKeyDetails extends UserDetailsImpl {
+	private static final long serialVersionUID = 1L; // Serializable version identifier
+
+	// Permissions removed from the mask of every key
+	private static final long CREDENTIAL_PERMISSIONS = Permission.maskOf(Permission.CLIENT_MANAGE, Permission.API_KEY_MANAGE);
+
+	private final String tenantId; // Tenant the key belongs to
+
+	private ApiKeyDetails(String id, String keyName, String tenantId, Set<EmployeeRole> roles) {
+		super(id, keyName, null, null,
+				EmployeeRoleHierarchy.reachableAuthorities(roles), // Key authorities
+				EmployeeRoleHierarchy.reachablePermissions(roles) & ~CREDENTIAL_PERMISSIONS); // Permission mask
+		this.tenantId = tenantId; // Set tenant ID
+	}
+
+	/**
+	 * Builds an ApiKeyDetails instance from an ApiKey object.
+	 *
+	 * @param apiKey The ApiKey object.
+	 * @return An ApiKeyDetails instance.
+	 */
+	public static ApiKeyDetails build(ApiKey apiKey) {
+		return new ApiKeyDetails(apiKey.getId(), "idp_" + apiKey.getPrefix(), apiKey.getTenantId(), apiKey.getRoles());
+	}
+
+	public String getTenantId() {
+		return tenantId; // Return tenant ID
+	}
+}
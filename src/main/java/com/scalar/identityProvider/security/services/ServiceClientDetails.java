@@ -0,0 +1,38 @@
+package com.scalar.identityProvider.security.services;
+
+import java.util.Set; // Import Set for role names
+
+import com.scalar.identityProvider.models.EmployeeRole; // Import EmployeeRole enum
+import com.scalar.identityProvider.models.ServiceClient; // Import ServiceClient model
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy; // Import precomputed role hierarchy closure
+
+/**
+ * Principal of a request authenticated with a service client token (client_credentials grant).
+ * The username is the client ID; a client has no email or password.
+ */
+public class ServiceClientDetails extends UserDetailsImpl {
+	private static final long serialVersionUID = 1L; // Serializable version identifier
+
+	private final String tenantId; // Tenant the client belongs to
+
+	private ServiceClientDetails(String id, String clientId, String tenantId, Set<EmployeeRole> roles) {
+		super(id, clientId, null, null,
+				EmployeeRoleHierarchy.reachableAuthorities(roles), // Client authorities
+				EmployeeRoleHierarchy.reachablePermissions(roles)); // Permission mask
+		this.tenantId = tenantId; // Set tenant ID
+	}
+
+	/**
+	 * Builds a ServiceClientDetails instance from a ServiceClient object.
+	 *
+	 * @param client The ServiceClient object.
+	 * @return A ServiceClientDetails instance.
+	 */
+	public static ServiceClientDetails build(ServiceClient client) {
+		return new ServiceClientDetails(client.getId(), client.getClientId(), client.getTenantId(), client.getRoles());
+	}
+
+	public String getTenantId() {
+		return tenantId; // Return tenant ID
+	}
+}
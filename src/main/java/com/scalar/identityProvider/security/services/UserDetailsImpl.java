@@ -1,13 +1,15 @@
 package com.scalar.identityProvider.security.services;
 
 import java.util.Collection; // Import Collection for holding authorities
-import java.util.List; // Import List for storing roles
+import java.util.EnumSet; // Import EnumSet for collecting role names
 import java.util.Objects; // Import Objects for object comparison
-import java.util.stream.Collectors; // Import Collectors for stream operations
+import java.util.Set; // Import Set for role names
 
+import com.scalar.identityProvider.models.EmployeeRole; // Import EmployeeRole enum
+import com.scalar.identityProvider.models.Role; // Import Role model
 import com.scalar.identityProvider.models.User; // Import User model
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy; // Import precomputed role hierarchy closure
 import org.springframework.security.core.GrantedAuthority; // Import GrantedAuthority for user authorities
-import org.springframework.security.core.authority.SimpleGrantedAuthority; // Import SimpleGrantedAuthority for role representation
 import org.springframework.security.core.userdetails.UserDetails; // Import UserDetails for Spring Security
 import com.fasterxml.jackson.annotation.JsonIgnore; // Import JsonIgnore to prevent serialization of sensitive data
 
@@ -26,6 +28,8 @@ public class UserDetailsImpl implements UserDetails {
 
 	private Collection<? extends GrantedAuthority> authorities; // Collection of user's authorities (roles)
 
+	private long permissions; // Permission mask of the user in the current tenant
+
 	/**
 	 * Constructor to initialize UserDetailsImpl.
 	 *
@@ -37,11 +41,27 @@ public class UserDetailsImpl implements UserDetails {
 	 */
 	public UserDetailsImpl(String id, String username, String email, String password,
 						   Collection<? extends GrantedAuthority> authorities) {
+		this(id, username, email, password, authorities, permissionsOf(authorities));
+	}
+
+	/**
+	 * Constructor to initialize UserDetailsImpl with a precompiled permission mask.
+	 *
+	 * @param id           The unique identifier of the user.
+	 * @param username     The username of the user.
+	 * @param email        The email of the user.
+	 * @param password     The password of the user.
+	 * @param authorities  The collection of user's authorities.
+	 * @param permissions  The permission mask granted by the authorities.
+	 */
+	public UserDetailsImpl(String id, String username, String email, String password,
+						   Collection<? extends GrantedAuthority> authorities, long permissions) {
 		this.id = id; // Set user ID
 		this.username = username; // Set username
 		this.email = email; // Set email
 		this.password = password; // Set password
 		this.authorities = authorities; // Set authorities
+		this.permissions = permissions; // Set permission mask
 	}
 
 	/**
@@ -51,10 +71,14 @@ public class UserDetailsImpl implements UserDetails {
 	 * @return A UserDetailsImpl instance.
 	 */
 	public static UserDetailsImpl build(User user) {
-		// Map the roles of the user to GrantedAuthority
-		List<GrantedAuthority> authorities = user.getRoles().stream()
-				.map(role -> new SimpleGrantedAuthority(role.getName().name())) // Convert each role to SimpleGrantedAuthority
-				.collect(Collectors.toList()); // Collect into a list
+		// Collect the distinct role names of the user
+		Set<EmployeeRole> roleNames = EnumSet.noneOf(EmployeeRole.class);
+		for (Role role : user.getRoles()) {
+			roleNames.add(role.getName());
+		}
+
+		// Resolve the shared, canonical set of authorities reachable through the role hierarchy
+		Set<GrantedAuthority> authorities = EmployeeRoleHierarchy.reachableAuthorities(roleNames);
 
 		// Return a new UserDetailsImpl object
 		return new UserDetailsImpl(
@@ -62,7 +86,44 @@ public class UserDetailsImpl implements UserDetails {
 				user.getUsername(), // Username
 				user.getEmail(), // Email
 				user.getPassword(), // Password
-				authorities); // User authorities
+				authorities, // User authorities
+				EmployeeRoleHierarchy.reachablePermissions(roleNames)); // Permission mask
+	}
+
+	/**
+	 * Builds a UserDetailsImpl instance from a User object with the roles assigned to it in
+	 * another tenant instead of the roles of the account itself.
+	 *
+	 * @param user The User object.
+	 * @param assignedRoles The roles assigned to the user in the tenant of the token.
+	 * @return A UserDetailsImpl instance.
+	 */
+	public static UserDetailsImpl build(User user, Set<EmployeeRole> assignedRoles) {
+		return new UserDetailsImpl(
+				user.getId(), // User ID
+				user.getUsername(), // Username
+				user.getEmail(), // Email
+				user.getPassword(), // Password
+				EmployeeRoleHierarchy.reachableAuthorities(assignedRoles), // Authorities of the assigned roles
+				EmployeeRoleHierarchy.reachablePermissions(assignedRoles)); // Permission mask
+	}
+
+	/**
+	 * Compile the permission mask granted by a collection of role authorities.
+	 *
+	 * @param authorities The role authorities.
+	 * @return The permission mask.
+	 */
+	private static long permissionsOf(Collection<? extends GrantedAuthority> authorities) {
+		Set<EmployeeRole> roleNames = EnumSet.noneOf(EmployeeRole.class);
+		for (GrantedAuthority authority : authorities) {
+			for (EmployeeRole role : EmployeeRole.values()) {
+				if (role.name().equals(authority.getAuthority())) {
+					roleNames.add(role);
+				}
+			}
+		}
+		return EmployeeRoleHierarchy.reachablePermissions(roleNames);
 	}
 
 	@Override
@@ -78,6 +139,20 @@ public class UserDetailsImpl implements UserDetails {
 		return email; // Return email
 	}
 
+	public long getPermissions() {
+		return permissions; // Return permission mask
+	}
+
+	/**
+	 * Copy of this principal with another permission mask.
+	 *
+	 * @param permissions The permission mask of the copy.
+	 * @return A UserDetailsImpl instance.
+	 */
+	public UserDetailsImpl withPermissions(long permissions) {
+		return new UserDetailsImpl(id, username, email, password, authorities, permissions);
+	}
+
 	@Override
 	public String getPassword() {
 		return password; // Return password
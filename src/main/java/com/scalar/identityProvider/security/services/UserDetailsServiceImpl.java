@@ -1,8 +1,17 @@
 package com.scalar.identityProvider.security.services;
 
+import java.util.EnumSet; // Import EnumSet for collecting assigned roles
+import java.util.Set; // Import Set for assigned roles
+
+import com.scalar.identityProvider.models.EmployeeRole; // Import EmployeeRole enum
+import com.scalar.identityProvider.models.GlobalRole; // Import GlobalRole for assigned roles
 import com.scalar.identityProvider.models.User; // Import User model
 import com.scalar.identityProvider.repository.UserRepository; // Import UserRepository for user database operations
+import com.scalar.identityProvider.repository.UserTenantRoleRepository; // Import UserTenantRoleRepository for roles assigned in other tenants
 import com.scalar.identityProvider.security.TenantContext; // Import TenantContext for tenant management
+import com.scalar.identityProvider.security.authorization.GlobalOperators; // Import GlobalOperators for operator accounts
+import io.micrometer.observation.Observation; // Import Observation for timing user lookups
+import io.micrometer.observation.ObservationRegistry; // Import ObservationRegistry for creating observations
 import org.springframework.beans.factory.annotation.Autowired; // Import for dependency injection
 import org.springframework.security.core.userdetails.UserDetails; // Import UserDetails interface
 import org.springframework.security.core.userdetails.UserDetailsService; // Import UserDetailsService interface
@@ -19,6 +28,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 	@Autowired // Automatically injects UserRepository bean
 	UserRepository userRepository;
 
+	@Autowired // Registry for the auth.user.load observation
+	ObservationRegistry observationRegistry;
+
+	@Autowired // Automatically injects UserTenantRoleRepository for the roles assigned to an account in other tenants
+	UserTenantRoleRepository userTenantRoleRepository;
+
+	@Autowired // Adds the global permissions of operator accounts
+	GlobalOperators globalOperators;
+
 	/**
 	 * Loads user details by username.
 	 *
@@ -36,11 +54,45 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 			throw new UsernameNotFoundException("Tenant context not found for username: " + username);
 		}
 
-		// Attempt to find the user by username and tenantId
-		User user = userRepository.findByUsernameAndTenantId(username, tenantId)
+		// Attempt to find the user by username and tenantId, timed as auth.user.load
+		User user = Observation.createNotStarted("auth.user.load", observationRegistry)
+				.observe(() -> userRepository.findByUsernameAndTenantId(username, tenantId))
 				.orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username + " and tenant: " + tenantId));
 
-		// Return UserDetails implementation for the found user
-		return UserDetailsImpl.build(user);
+		// Return UserDetails implementation for the found user, with the global permissions of an operator
+		return globalOperators.grant(UserDetailsImpl.build(user));
+	}
+
+	/**
+	 * Loads the account a token issued through switch-tenant was pinned to, with the roles
+	 * assigned to that account in the tenant of the token. The roles are read from the repository
+	 * on every call, not from the per-instance MembershipIndex, so a revoked or downgraded
+	 * assignment stops authorizing requests on every instance at once.
+	 *
+	 * @param accountId The ID of the user's own account.
+	 * @param username The username in the token, which must be the one of the account.
+	 * @param tenantId The tenant of the token.
+	 * @return UserDetails containing user information and the assigned roles.
+	 * @throws UsernameNotFoundException if the account is gone or no longer has roles in the tenant.
+	 */
+	public UserDetails loadAssignedUser(String accountId, String username, String tenantId) throws UsernameNotFoundException {
+		// The account lives in its own tenant, possibly in another storage target
+		User user = Observation.createNotStarted("auth.user.load", observationRegistry)
+				.observe(() -> userRepository.findByIdAcrossTargets(accountId))
+				.filter(found -> found.getUsername().equals(username))
+				.orElseThrow(() -> new UsernameNotFoundException("User Not Found with id: " + accountId));
+
+		// Only the roles assigned to this account count, never those of a same-name account
+		Set<EmployeeRole> roles = EnumSet.noneOf(EmployeeRole.class);
+		userTenantRoleRepository.findByUserIdAndTenantId(accountId, tenantId)
+				.ifPresent(assignment -> {
+					for (GlobalRole role : assignment.getRoles()) {
+						roles.add(role.getName());
+					}
+				});
+		if (roles.isEmpty()) {
+			throw new UsernameNotFoundException("User " + username + " has no roles in tenant: " + tenantId);
+		}
+		return globalOperators.grant(UserDetailsImpl.build(user, roles));
 	}
 }
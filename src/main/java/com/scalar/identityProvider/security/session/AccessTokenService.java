@@ -0,0 +1,136 @@
+package com.scalar.identityProvider.security.session;
+
+import io.jsonwebtoken.Claims;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scalar.identityProvider.security.SecurityEventAggregator;
+import com.scalar.identityProvider.security.jwt.JwtUtils;
+
+/**
+ * Issues and resolves access tokens in the mode selected by {@code authTokenMode}:
+ * {@code jwt} (default) signs a JWT carrying the username and tenantId, {@code opaque}
+ * returns a 32 character handle to a session in the {@link OpaqueSessionStore}.
+ * Both kinds are accepted in either mode (a JWT always contains dots, a handle never does),
+ * so switching modes does not log anyone out.
+ */
+@Component
+public class AccessTokenService {
+
+  @Value("${authTokenMode}")
+  private String tokenMode;
+
+  @Value("${jwtExpirationMs}")
+  private long expirationMs;
+
+  @Autowired
+  private JwtUtils jwtUtils;
+
+  @Autowired
+  private OpaqueSessionStore opaqueSessionStore;
+
+  @Autowired // Aggregates rejected handles into periodic log summaries
+  private SecurityEventAggregator securityEventAggregator;
+
+  /**
+   * Issue an access token for a user in a tenant.
+   *
+   * @param username The username of the user.
+   * @param tenantId The tenant the token is scoped to.
+   * @return The access token.
+   */
+  public String issue(String username, String tenantId) {
+    return issue(new SessionSubject(username, tenantId));
+  }
+
+  /**
+   * Issue an access token for the roles assigned to a user's own account in another tenant.
+   *
+   * @param username The username of the user.
+   * @param accountId The ID of the user's own account, the one the roles are assigned to.
+   * @param tenantId The tenant the token is scoped to.
+   * @return The access token.
+   */
+  public String issueForAssignment(String username, String accountId, String tenantId) {
+    return issue(new SessionSubject(username, tenantId, false, accountId));
+  }
+
+  /**
+   * Issue an access token for a service client in its tenant (client_credentials grant).
+   *
+   * @param clientId The client ID of the service client.
+   * @param tenantId The tenant of the client.
+   * @return The access token.
+   */
+  public String issueForClient(String clientId, String tenantId) {
+    return issue(new SessionSubject(clientId, tenantId, true));
+  }
+
+  /**
+   * Get the lifetime of the issued tokens.
+   *
+   * @return The lifetime in seconds.
+   */
+  public long getExpiresInSeconds() {
+    return expirationMs / 1000;
+  }
+
+  private String issue(SessionSubject subject) {
+    if ("opaque".equals(tokenMode)) {
+      return opaqueSessionStore.create(subject);
+    }
+    return jwtUtils.generateTenantScopedToken(subject.username(), subject.tenantId(), subject.client(),
+        subject.accountId());
+  }
+
+  /**
+   * Verify an access token, counting and logging (aggregated) the rejections.
+   *
+   * @param token The access token.
+   * @return The subject of the token, or null if it is invalid.
+   */
+  public SessionSubject verify(String token) {
+    if (isJwt(token)) {
+      return subjectOf(jwtUtils.validateAndGetClaims(token));
+    }
+    SessionSubject subject = opaqueSessionStore.resolve(token);
+    if (subject == null) {
+      securityEventAggregator.record("session.unknown", null, "Unknown or expired opaque token");
+    }
+    return subject;
+  }
+
+  /**
+   * Revoke an access token on every instance. Only opaque tokens can be revoked; a JWT stays
+   * valid until it expires.
+   *
+   * @param token The access token.
+   * @return true if the token was an opaque handle and its session is revoked.
+   */
+  public boolean revoke(String token) {
+    return !isJwt(token) && opaqueSessionStore.revoke(token);
+  }
+
+  /**
+   * Revoke every opaque token issued so far in a tenant, on every instance.
+   *
+   * @param tenantId The tenant ID.
+   */
+  public void revokeTenant(String tenantId) {
+    opaqueSessionStore.revokeTenant(tenantId);
+  }
+
+  private static SessionSubject subjectOf(Claims claims) {
+    if (claims == null) {
+      return null;
+    }
+    return new SessionSubject(claims.getSubject(), claims.get("tenantId", String.class),
+        Boolean.TRUE.equals(claims.get("client", Boolean.class)), claims.get("accountId", String.class));
+  }
+
+  private static boolean isJwt(String token) {
+    return token.indexOf('.') >= 0;
+  }
+}
@@ -0,0 +1,686 @@
+package com.scalar.identityProvider.security.session;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.io.Decoders;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.scalar.identityProvider.models.OpaqueSession;
+import com.scalar.identityProvider.models.OpaqueSessionRevocation;
+
+/**
+ * Store of the sessions behind opaque access tokens.
+ * <p>
+ * A handle is 128 random bits followed by a 64 bit tag, the truncated HMAC-SHA256 of the random
+ * bits under a key derived from {@code jwtSecret}, sent as 32 base64url characters. The tag lets
+ * a handle that is not in memory be rejected without querying MongoDB unless this service issued
+ * it. Sessions are identified by the SHA-256 of the random bits: its hex form is the id of the
+ * stored {@link OpaqueSession}, and its first 128 bits key the in-memory tables, so a revocation
+ * that only carries the digest still finds the session in memory.
+ * <p>
+ * In memory, sessions live in open-addressing hash tables split into segments with their own
+ * lock. Each slot is 32 bytes in a ByteBuffer (heap or direct, see {@code opaqueSessionOffHeap}):
+ * the digest prefix, the expiration and a state; a parallel array holds the {@link SessionSubject}
+ * of each slot. Subjects are interned, so the sessions of one user share one instance, and the
+ * interner forgets the subjects without live sessions at every sweep. Lookups are lock free in
+ * the common case (optimistic reads).
+ * <p>
+ * New sessions are queued and inserted into the {@code opaque_sessions} collection in batches
+ * (write-behind). The collection has a TTL index on expiresAt. A handle missing from memory is
+ * looked up there, so the other instances and a restarted one recognize it too. Sessions issued
+ * shortly before a crash may be lost; their clients sign in again. Without MongoDB (inmemory
+ * profile) sessions are kept in memory only.
+ * <p>
+ * Revoking a session (sign-out) or every session of a tenant (teardown) deletes the stored
+ * sessions and records the revocation in {@code opaque_session_revocations}. The other instances
+ * poll that collection every {@code opaqueSessionRevocationPollMs} and drop the revoked sessions
+ * from memory, and a session loaded from MongoDB is checked against it.
+ */
+@Component
+public class OpaqueSessionStore implements DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(OpaqueSessionStore.class);
+
+  private static final int SLOT_BYTES = 32;
+  private static final int HI = 0;
+  private static final int LO = 8;
+  private static final int EXPIRES_AT = 16;
+  private static final int STATE = 24;
+
+  // States of a used slot; an empty slot is all zeros. Probing continues past a removed slot
+  private static final int LIVE = 1;
+  private static final int REMOVED = -1;
+
+  private static final int SEGMENTS = 64;
+
+  private static final int INITIAL_SEGMENT_CAPACITY = 1024;
+
+  private static final int RANDOM_BYTES = 16;
+
+  private static final int TAG_BYTES = 8;
+
+  private static final Base64.Encoder HANDLE_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  // 192 bits, a whole number of base64 characters
+  private static final int HANDLE_LENGTH = (RANDOM_BYTES + TAG_BYTES) * 8 / 6;
+
+  private static final String TENANT_REVOCATION = "tenant:";
+
+  // Revocations are polled again for this long after they were first seen, to cover clock skew
+  // between instances and writes still in flight at the previous poll; applying one twice is harmless
+  private static final long REVOCATION_OVERLAP_MS = 10_000;
+
+  private static final MessageDigest SHA_256;
+
+  static {
+    try {
+      SHA_256 = MessageDigest.getInstance("SHA-256");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Value("${jwtExpirationMs}")
+  private long sessionTtlMs;
+
+  @Value("${jwtSecret}")
+  private String jwtSecret;
+
+  @Value("${opaqueSessionOffHeap}")
+  private boolean offHeap;
+
+  @Value("${opaqueSessionFlushIntervalMs}")
+  private long flushIntervalMs;
+
+  @Value("${opaqueSessionWriteQueueSize}")
+  private int writeQueueSize;
+
+  @Value("${opaqueSessionRevocationPollMs}")
+  private long revocationPollMs;
+
+  // Absent in the inmemory profile
+  @Autowired(required = false)
+  private MongoTemplate mongoTemplate;
+
+  private final SecureRandom random = new SecureRandom();
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  private final Map<SessionSubject, SessionSubject> interned = new ConcurrentHashMap<>();
+
+  // Keyed with a key derived from jwtSecret; cloned for every use since a Mac is not thread safe
+  private Mac tagMac;
+
+  private BlockingQueue<OpaqueSession> pendingWrites;
+
+  // Only read and written by the executor thread
+  private long lastRevocationPoll;
+
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("opaque-sessions").factory());
+
+  @PostConstruct
+  void init() {
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+    }
+    tagMac = tagMac(jwtSecret);
+    pendingWrites = new ArrayBlockingQueue<>(writeQueueSize);
+    lastRevocationPoll = System.currentTimeMillis();
+    executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    executor.scheduleWithFixedDelay(this::sweep, sessionTtlMs, Math.max(sessionTtlMs / 4, 1000), TimeUnit.MILLISECONDS);
+    if (mongoTemplate != null) {
+      executor.scheduleWithFixedDelay(this::pollRevocations, revocationPollMs, revocationPollMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Create a session and return its handle.
+   *
+   * @param subject The user or service client and the tenant the session is scoped to.
+   * @return The opaque handle.
+   */
+  public String create(SessionSubject subject) {
+    byte[] handle = new byte[RANDOM_BYTES];
+    byte[] digest;
+    do {
+      random.nextBytes(handle);
+      digest = sha256(handle);
+    } while (toLong(digest, 0) == 0); // 0 marks an empty slot
+    long hi = toLong(digest, 0);
+    long lo = toLong(digest, 8);
+    long expiresAt = System.currentTimeMillis() + sessionTtlMs;
+
+    segmentFor(hi).put(hi, lo, expiresAt, intern(subject));
+    if (mongoTemplate != null && !pendingWrites.offer(new OpaqueSession(HexFormat.of().formatHex(digest),
+        subject.username(), subject.tenantId(), subject.client(), subject.accountId(), new Date(expiresAt)))) {
+      logger.warn("Opaque session write-behind queue is full; the session is kept in memory only");
+    }
+
+    byte[] token = new byte[RANDOM_BYTES + TAG_BYTES];
+    System.arraycopy(handle, 0, token, 0, RANDOM_BYTES);
+    long tag = tagOf(handle);
+    for (int i = 0; i < TAG_BYTES; i++) {
+      token[RANDOM_BYTES + i] = (byte) (tag >>> (56 - 8 * i));
+    }
+    return HANDLE_ENCODER.encodeToString(token);
+  }
+
+  /**
+   * Resolve a handle to the user and tenant of its session.
+   *
+   * @param handle The opaque handle.
+   * @return The subject of the session, or null if the handle is unknown, forged, expired or revoked.
+   */
+  public SessionSubject resolve(String handle) {
+    Handle decoded = decode(handle);
+    if (decoded == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    SessionSubject subject = segmentFor(decoded.hi()).get(decoded.hi(), decoded.lo(), now);
+    if (subject != null || mongoTemplate == null) {
+      return subject;
+    }
+    // Only a handle this service issued is worth a query
+    if (decoded.tag() != tagOf(decoded.random())) {
+      return null;
+    }
+    return load(decoded, now);
+  }
+
+  /**
+   * Revoke the session of a handle, on every instance.
+   *
+   * @param handle The opaque handle.
+   * @return true if the handle was well formed; revoking an unknown or expired session is a no-op.
+   */
+  public boolean revoke(String handle) {
+    Handle decoded = decode(handle);
+    if (decoded == null) {
+      return false;
+    }
+    segmentFor(decoded.hi()).remove(decoded.hi(), decoded.lo());
+    if (mongoTemplate == null) {
+      return true;
+    }
+    String id = HexFormat.of().formatHex(decoded.digest());
+    pendingWrites.removeIf(session -> session.getId().equals(id));
+    long now = System.currentTimeMillis();
+    mongoTemplate.save(new OpaqueSessionRevocation(id, null, new Date(now), new Date(now + sessionTtlMs)));
+    mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)), OpaqueSession.class);
+    return true;
+  }
+
+  /**
+   * Revoke every session issued so far in a tenant, on every instance.
+   *
+   * @param tenantId The tenant ID.
+   */
+  public void revokeTenant(String tenantId) {
+    long now = System.currentTimeMillis();
+    removeTenant(tenantId, now);
+    if (mongoTemplate == null) {
+      return;
+    }
+    pendingWrites.removeIf(session -> tenantId.equals(session.getTenantId()));
+    mongoTemplate.save(new OpaqueSessionRevocation(TENANT_REVOCATION + tenantId, tenantId, new Date(now),
+        new Date(now + sessionTtlMs)));
+    mongoTemplate.remove(Query.query(Criteria.where("tenantId").is(tenantId)), OpaqueSession.class);
+  }
+
+  /**
+   * Number of live sessions in memory, including expired ones not swept yet.
+   *
+   * @return The number of sessions.
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * The parts of a well-formed handle, and the digest that identifies its session.
+   */
+  private record Handle(byte[] random, long tag, byte[] digest, long hi, long lo) {
+  }
+
+  private Handle decode(String handle) {
+    if (handle == null || handle.length() != HANDLE_LENGTH) {
+      return null;
+    }
+    // Shift the 192 bits of the 32 characters through three longs: the two halves of the
+    // random part and the tag
+    long first = 0;
+    long second = 0;
+    long tag = 0;
+    for (int i = 0; i < HANDLE_LENGTH; i++) {
+      int value = base64UrlValue(handle.charAt(i));
+      if (value < 0) {
+        return null;
+      }
+      first = (first << 6) | (second >>> 58);
+      second = (second << 6) | (tag >>> 58);
+      tag = (tag << 6) | value;
+    }
+    byte[] randomPart = new byte[RANDOM_BYTES];
+    for (int i = 0; i < 8; i++) {
+      randomPart[i] = (byte) (first >>> (56 - 8 * i));
+      randomPart[8 + i] = (byte) (second >>> (56 - 8 * i));
+    }
+    byte[] digest = sha256(randomPart);
+    long hi = toLong(digest, 0);
+    return hi == 0 ? null : new Handle(randomPart, tag, digest, hi, toLong(digest, 8));
+  }
+
+  /**
+   * Load a session issued by another instance or before a restart.
+   */
+  private SessionSubject load(Handle handle, long now) {
+    String id = HexFormat.of().formatHex(handle.digest());
+    OpaqueSession session;
+    try {
+      session = mongoTemplate.findById(id, OpaqueSession.class);
+      if (session == null || session.getExpiresAt().getTime() <= now || isRevoked(id, session)) {
+        return null;
+      }
+    } catch (DataAccessException e) {
+      logger.warn("Could not load opaque session: {}", e.getMessage());
+      return null;
+    }
+    SessionSubject subject = intern(new SessionSubject(session.getUsername(), session.getTenantId(),
+        session.isClient(), session.getAccountId()));
+    segmentFor(handle.hi()).put(handle.hi(), handle.lo(), session.getExpiresAt().getTime(), subject);
+    return subject;
+  }
+
+  /**
+   * Check a stored session against the revocations, for one written back after it was revoked.
+   */
+  private boolean isRevoked(String id, OpaqueSession session) {
+    long issuedAt = session.getExpiresAt().getTime() - sessionTtlMs;
+    Query query = Query.query(Criteria.where("_id").in(id, TENANT_REVOCATION + session.getTenantId()));
+    for (OpaqueSessionRevocation revocation : mongoTemplate.find(query, OpaqueSessionRevocation.class)) {
+      if (revocation.getTenantId() == null || revocation.getRevokedAt().getTime() >= issuedAt) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drop from memory the sessions revoked on other instances since the last poll.
+   */
+  void pollRevocations() {
+    long now = System.currentTimeMillis();
+    Query recent = Query.query(Criteria.where("revokedAt").gte(new Date(lastRevocationPoll - REVOCATION_OVERLAP_MS)));
+    try {
+      for (OpaqueSessionRevocation revocation : mongoTemplate.find(recent, OpaqueSessionRevocation.class)) {
+        if (revocation.getTenantId() != null) {
+          removeTenant(revocation.getTenantId(), revocation.getRevokedAt().getTime());
+        } else {
+          long hi = HexFormat.fromHexDigitsToLong(revocation.getId(), 0, 16);
+          long lo = HexFormat.fromHexDigitsToLong(revocation.getId(), 16, 32);
+          segmentFor(hi).remove(hi, lo);
+        }
+      }
+      lastRevocationPoll = now;
+    } catch (DataAccessException e) {
+      logger.warn("Could not poll opaque session revocations: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Remove from memory the sessions of a tenant issued up to a time.
+   */
+  private void removeTenant(String tenantId, long revokedAt) {
+    long maxExpiresAt = revokedAt + sessionTtlMs;
+    for (Segment segment : segments) {
+      segment.removeTenant(tenantId, maxExpiresAt);
+    }
+  }
+
+  private SessionSubject intern(SessionSubject subject) {
+    SessionSubject existing = interned.putIfAbsent(subject, subject);
+    return existing != null ? existing : subject;
+  }
+
+  /**
+   * Insert the queued sessions in one batch.
+   */
+  void flush() {
+    List<OpaqueSession> batch = new ArrayList<>();
+    pendingWrites.drainTo(batch);
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      mongoTemplate.insert(batch, OpaqueSession.class);
+    } catch (DataAccessException e) {
+      logger.warn("Could not persist {} opaque sessions: {}", batch.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * Remove the expired sessions from memory, and the interned subjects no live session refers to.
+   */
+  void sweep() {
+    long now = System.currentTimeMillis();
+    Set<SessionSubject> live = new HashSet<>();
+    for (Segment segment : segments) {
+      segment.removeExpired(now, live);
+    }
+    // A subject interned by a session created meanwhile may be dropped too; that session keeps
+    // its instance and a later one simply interns a new one
+    interned.keySet().retainAll(live);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+    if (mongoTemplate != null) {
+      flush();
+    }
+  }
+
+  private Segment segmentFor(long hi) {
+    return segments[(int) (hi >>> 58)];
+  }
+
+  /**
+   * Create the MAC of the handle tags, with a key of its own derived from the JWT secret so a tag
+   * never matches a MAC computed with the JWT signing key.
+   */
+  private static Mac tagMac(String jwtSecret) {
+    try {
+      Mac derivation = Mac.getInstance("HmacSHA256");
+      derivation.init(new SecretKeySpec(Decoders.BASE64.decode(jwtSecret), "HmacSHA256"));
+      byte[] tagKey = derivation.doFinal("opaque-session-handle-tag".getBytes(StandardCharsets.UTF_8));
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(tagKey, "HmacSHA256"));
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private long tagOf(byte[] randomPart) {
+    try {
+      return toLong(((Mac) tagMac.clone()).doFinal(randomPart), 0);
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] sha256(byte[] bytes) {
+    try {
+      return ((MessageDigest) SHA_256.clone()).digest(bytes);
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static long toLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xFF);
+    }
+    return value;
+  }
+
+  private static int base64UrlValue(char c) {
+    if (c >= 'A' && c <= 'Z') {
+      return c - 'A';
+    } else if (c >= 'a' && c <= 'z') {
+      return c - 'a' + 26;
+    } else if (c >= '0' && c <= '9') {
+      return c - '0' + 52;
+    } else if (c == '-') {
+      return 62;
+    } else if (c == '_') {
+      return 63;
+    }
+    return -1;
+  }
+
+  /**
+   * One open-addressing table with linear probing, and the subjects of its slots. Writers take
+   * the write lock; readers use an optimistic read and retry under the read lock if a writer
+   * interfered.
+   */
+  private final class Segment {
+
+    private final StampedLock lock = new StampedLock();
+
+    private ByteBuffer slots;
+
+    private SessionSubject[] subjects;
+
+    private int live;
+
+    // Live plus removed slots, which lengthen probe sequences until the next rehash
+    private int used;
+
+    private Segment(int capacity) {
+      slots = allocate(capacity);
+      subjects = new SessionSubject[capacity];
+    }
+
+    SessionSubject get(long hi, long lo, long now) {
+      long stamp = lock.tryOptimisticRead();
+      SessionSubject subject = find(slots, subjects, hi, lo, now);
+      if (!lock.validate(stamp)) {
+        stamp = lock.readLock();
+        try {
+          subject = find(slots, subjects, hi, lo, now);
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+      return subject;
+    }
+
+    void put(long hi, long lo, long expiresAt, SessionSubject subject) {
+      long stamp = lock.writeLock();
+      try {
+        if ((used + 1) * 2 > capacity(slots)) {
+          // Grow when mostly live, otherwise just drop the removed slots
+          rehash(live * 4 > capacity(slots) ? capacity(slots) * 2 : capacity(slots));
+        }
+        int mask = capacity(slots) - 1;
+        for (int i = index(hi, mask); ; i = (i + 1) & mask) {
+          int offset = i * SLOT_BYTES;
+          long slotHi = slots.getLong(offset + HI);
+          if (slotHi == 0 || (slotHi == hi && slots.getLong(offset + LO) == lo)) {
+            if (slotHi == 0) {
+              used++;
+              live++;
+            } else if (slots.getInt(offset + STATE) == REMOVED) {
+              live++;
+            }
+            write(slots, offset, hi, lo, expiresAt);
+            subjects[i] = subject;
+            return;
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void remove(long hi, long lo) {
+      long stamp = lock.writeLock();
+      try {
+        int mask = capacity(slots) - 1;
+        for (int i = index(hi, mask), probes = 0; probes <= mask; probes++, i = (i + 1) & mask) {
+          int offset = i * SLOT_BYTES;
+          long slotHi = slots.getLong(offset + HI);
+          if (slotHi == 0) {
+            return;
+          }
+          if (slotHi == hi && slots.getLong(offset + LO) == lo) {
+            if (slots.getInt(offset + STATE) == LIVE) {
+              removeAt(i);
+            }
+            return;
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void removeTenant(String tenantId, long maxExpiresAt) {
+      long stamp = lock.writeLock();
+      try {
+        for (int i = 0; i < subjects.length; i++) {
+          int offset = i * SLOT_BYTES;
+          if (slots.getInt(offset + STATE) == LIVE && slots.getLong(offset + EXPIRES_AT) <= maxExpiresAt
+              && tenantId.equals(subjects[i].tenantId())) {
+            removeAt(i);
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void removeExpired(long now, Set<SessionSubject> liveSubjects) {
+      long stamp = lock.writeLock();
+      try {
+        for (int i = 0; i < subjects.length; i++) {
+          int offset = i * SLOT_BYTES;
+          if (slots.getInt(offset + STATE) != LIVE) {
+            continue;
+          }
+          if (slots.getLong(offset + EXPIRES_AT) <= now) {
+            removeAt(i);
+          } else {
+            liveSubjects.add(subjects[i]);
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    int size() {
+      long stamp = lock.readLock();
+      try {
+        return live;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    private void removeAt(int i) {
+      slots.putInt(i * SLOT_BYTES + STATE, REMOVED);
+      subjects[i] = null;
+      live--;
+    }
+
+    private SessionSubject find(ByteBuffer table, SessionSubject[] tableSubjects, long hi, long lo, long now) {
+      // The capacity is read from the buffer itself so an optimistic read never mixes two tables;
+      // if it saw the subjects of another table, validation fails and the lookup is retried
+      int capacity = capacity(table);
+      if (tableSubjects.length != capacity) {
+        return null;
+      }
+      int mask = capacity - 1;
+      int i = index(hi, mask);
+      for (int probes = 0; probes < capacity; probes++, i = (i + 1) & mask) {
+        int offset = i * SLOT_BYTES;
+        long slotHi = table.getLong(offset + HI);
+        if (slotHi == 0) {
+          return null;
+        }
+        if (slotHi == hi && table.getLong(offset + LO) == lo) {
+          return table.getInt(offset + STATE) == LIVE && table.getLong(offset + EXPIRES_AT) > now
+              ? tableSubjects[i] : null;
+        }
+      }
+      return null;
+    }
+
+    private void rehash(int capacity) {
+      ByteBuffer old = slots;
+      SessionSubject[] oldSubjects = subjects;
+      ByteBuffer table = allocate(capacity);
+      SessionSubject[] tableSubjects = new SessionSubject[capacity];
+      int mask = capacity - 1;
+      for (int j = 0; j < oldSubjects.length; j++) {
+        int offset = j * SLOT_BYTES;
+        if (old.getInt(offset + STATE) != LIVE) {
+          continue;
+        }
+        long hi = old.getLong(offset + HI);
+        int i = index(hi, mask);
+        while (table.getLong(i * SLOT_BYTES + HI) != 0) {
+          i = (i + 1) & mask;
+        }
+        write(table, i * SLOT_BYTES, hi, old.getLong(offset + LO), old.getLong(offset + EXPIRES_AT));
+        tableSubjects[i] = oldSubjects[j];
+      }
+      slots = table;
+      subjects = tableSubjects;
+      used = live;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+      return offHeap ? ByteBuffer.allocateDirect(capacity * SLOT_BYTES) : ByteBuffer.allocate(capacity * SLOT_BYTES);
+    }
+
+    private static int capacity(ByteBuffer table) {
+      return table.capacity() / SLOT_BYTES;
+    }
+
+    private static int index(long hi, int mask) {
+      // The top bits chose the segment; the digest is uniform, so the low bits index the slot
+      return (int) hi & mask;
+    }
+
+    private static void write(ByteBuffer table, int offset, long hi, long lo, long expiresAt) {
+      table.putLong(offset + HI, hi);
+      table.putLong(offset + LO, lo);
+      table.putLong(offset + EXPIRES_AT, expiresAt);
+      table.putInt(offset + STATE, LIVE);
+    }
+  }
+}
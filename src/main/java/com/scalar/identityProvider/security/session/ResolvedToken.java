@@ -0,0 +1,16 @@
+package com.scalar.identityProvider.security.session;
+
+/**
+ * An access token already verified earlier in the filter chain, kept as a request attribute so
+ * later filters do not verify it again.
+ *
+ * @param token The access token as sent in the Authorization header.
+ * @param subject The subject of the token, or null if it was rejected.
+ */
+public record ResolvedToken(String token, SessionSubject subject) {
+
+  /**
+   * Request attribute holding the ResolvedToken of the bearer token.
+   */
+  public static final String REQUEST_ATTRIBUTE = ResolvedToken.class.getName();
+}
@@ -0,0 +1,21 @@
+package com.scalar.identityProvider.security.session;
+
+/**
+ * The user or service client and tenant an access token was issued to, whether a JWT or an opaque handle.
+ *
+ * @param username The username of the user, or the client ID of a service client.
+ * @param tenantId The tenant the token is scoped to.
+ * @param client Whether the token was issued to a service client (client_credentials grant).
+ * @param accountId The ID of the user's own account when the token was issued for roles assigned
+ *                  in another tenant (switch-tenant), or null when the account lives in the tenant.
+ */
+public record SessionSubject(String username, String tenantId, boolean client, String accountId) {
+
+  public SessionSubject(String username, String tenantId) {
+    this(username, tenantId, false, null);
+  }
+
+  public SessionSubject(String username, String tenantId, boolean client) {
+    this(username, tenantId, client, null);
+  }
+}
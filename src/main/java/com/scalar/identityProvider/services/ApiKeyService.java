@@ -0,0 +1,346 @@
+package com.scalar.identityProvider.services;
+
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.models.ApiKey;
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.repository.ApiKeyRepository;
+import com.scalar.identityProvider.repository.TenantRepository;
+import com.scalar.identityProvider.security.services.ApiKeyDetails;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servicio para las API keys de integraciones, con el formato {@code idp_<prefijo>_<secreto>}.
+ * <p>
+ * El prefijo (96 bits en hexadecimal) es público y se indexa; del secreto (256 bits aleatorios)
+ * solo se guarda su SHA-256, suficiente por su entropía. Todas las keys se mantienen en memoria
+ * por prefijo, así que validar una es una búsqueda en un mapa y un hash, sin consultar la base
+ * de datos ni siquiera para prefijos desconocidos. Las escrituras de esta instancia se aplican
+ * al momento; las de otras instancias al recargar. Cada {@code apiKeyRefreshIntervalMs} ms se
+ * lee el contador compartido de {@link ResourceVersions}, que se incrementa en cada alta o
+ * revocación y al desactivar o eliminar un tenant, y solo se recargan todas las keys si ha
+ * cambiado. Las keys de tenants inactivos o inexistentes no se cargan.
+ * <p>
+ * Los usos se cuentan en memoria y se escriben agregados por key cada
+ * {@code apiKeyUsageFlushIntervalMs} ms; una caída pierde como mucho los de un intervalo.
+ */
+@Service
+public class ApiKeyService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyService.class);
+
+    private static final String KEY_PREFIX = "idp_";
+
+    private static final int PREFIX_BYTES = 12;
+
+    private static final int SECRET_BYTES = 32;
+
+    private static final int PREFIX_LENGTH = PREFIX_BYTES * 2;
+
+    // idp_ + prefijo + _ + secreto en base64url sin relleno
+    private static final int KEY_LENGTH = KEY_PREFIX.length() + PREFIX_LENGTH + 1 + (SECRET_BYTES * 4 + 2) / 3;
+
+    private static final Base64.Encoder SECRET_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    // Ancho fijo para que $max compare las fechas como texto
+    private static final DateTimeFormatter LAST_USED_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    // Ausente en el perfil inmemory
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Value("${apiKeyRefreshIntervalMs}")
+    private long refreshIntervalMs;
+
+    @Value("${apiKeyUsageFlushIntervalMs}")
+    private long usageFlushIntervalMs;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // MessageDigest no es thread safe; cada hilo usa el suyo
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(ApiKeyService::newDigest);
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Usage> usages = new ConcurrentHashMap<>();
+
+    // Versión de las keys en la última recarga; -1 para que la primera siempre cargue
+    private long loadedVersion = -1;
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("api-keys").factory());
+
+    /**
+     * API key recién creada, con la key completa en claro.
+     *
+     * @param apiKey El documento de la key.
+     * @param key La key, que no se vuelve a poder consultar.
+     */
+    public record IssuedKey(ApiKey apiKey, String key) {
+    }
+
+    private record Entry(String id, byte[] secretDigest, ApiKeyDetails details) {
+    }
+
+    private static final class Usage {
+
+        private final LongAdder count = new LongAdder();
+
+        private volatile long lastUsedAt;
+    }
+
+    @PostConstruct
+    void init() {
+        executor.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::flushUsage, usageFlushIntervalMs, usageFlushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Crea una API key en un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @param name El nombre de la key.
+     * @param roles Los roles de la key en el tenant.
+     * @return La key creada.
+     */
+    public synchronized IssuedKey create(String tenantId, String name, Set<EmployeeRole> roles) {
+        String prefix = HexFormat.of().formatHex(randomBytes(PREFIX_BYTES));
+        String secret = SECRET_ENCODER.encodeToString(randomBytes(SECRET_BYTES));
+        ApiKey apiKey = new ApiKey(prefix, tenantId, name, HexFormat.of().formatHex(digest(secret)), roles);
+        apiKey.setCreatedAt(Instant.now().toString());
+        ApiKey saved = apiKeyRepository.save(apiKey);
+        entries.put(prefix, entryOf(saved));
+        resourceVersions.apiKeysChanged();
+        return new IssuedKey(saved, KEY_PREFIX + prefix + "_" + secret);
+    }
+
+    /**
+     * Obtiene las API keys de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @return Lista de keys del tenant.
+     */
+    public List<ApiKey> findByTenantId(String tenantId) {
+        return apiKeyRepository.findByTenantId(tenantId);
+    }
+
+    /**
+     * Revoca una API key de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @param prefix El prefijo de la key.
+     * @return true si la key existía en el tenant.
+     */
+    public synchronized boolean revoke(String tenantId, String prefix) {
+        Optional<ApiKey> apiKey = apiKeyRepository.findByPrefix(prefix)
+                .filter(existing -> existing.getTenantId().equals(tenantId));
+        apiKey.ifPresent(existing -> {
+            apiKeyRepository.delete(existing);
+            entries.remove(prefix);
+            usages.remove(existing.getId());
+            resourceVersions.apiKeysChanged();
+        });
+        return apiKey.isPresent();
+    }
+
+    /**
+     * Valida una API key y cuenta el uso.
+     *
+     * @param key La key presentada.
+     * @return Un Optional con el principal si la key es válida.
+     */
+    public Optional<ApiKeyDetails> authenticate(String key) {
+        Entry entry = verify(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Usage usage = usages.computeIfAbsent(entry.id(), id -> new Usage());
+        usage.count.increment();
+        usage.lastUsedAt = System.currentTimeMillis();
+        return Optional.of(entry.details());
+    }
+
+    /**
+     * Valida una API key sin contar el uso, para quien solo necesita su tenant (p. ej. el rate limiting).
+     *
+     * @param key La key presentada.
+     * @return Un Optional con el principal si la key es válida.
+     */
+    public Optional<ApiKeyDetails> peek(String key) {
+        return Optional.ofNullable(verify(key)).map(Entry::details);
+    }
+
+    @EventListener
+    public synchronized void onTenantDeleted(TenantDeletedEvent event) {
+        entries.values().removeIf(entry -> entry.details().getTenantId().equals(event.tenantId()));
+    }
+
+    private Entry verify(String key) {
+        if (key == null || key.length() != KEY_LENGTH || !key.startsWith(KEY_PREFIX)
+                || key.charAt(KEY_PREFIX.length() + PREFIX_LENGTH) != '_') {
+            return null;
+        }
+        Entry entry = entries.get(key.substring(KEY_PREFIX.length(), KEY_PREFIX.length() + PREFIX_LENGTH));
+        if (entry == null) {
+            return null;
+        }
+        byte[] presented = digest(key.substring(KEY_PREFIX.length() + PREFIX_LENGTH + 1));
+        return MessageDigest.isEqual(presented, entry.secretDigest()) ? entry : null;
+    }
+
+    /**
+     * Recarga todas las keys, si el contador compartido ha cambiado desde la última recarga, para
+     * recoger las creadas o revocadas en otras instancias y descartar las de tenants desactivados.
+     */
+    synchronized void refresh() {
+        long version;
+        List<ApiKey> apiKeys;
+        Set<String> activeTenants = new HashSet<>();
+        try {
+            // Se lee antes de cargar: un cambio posterior provoca otra recarga en la siguiente pasada
+            version = resourceVersions.apiKeysVersion();
+            if (version == loadedVersion) {
+                return;
+            }
+            apiKeys = apiKeyRepository.findAll();
+            Set<String> tenantIds = new HashSet<>();
+            for (ApiKey apiKey : apiKeys) {
+                tenantIds.add(apiKey.getTenantId());
+            }
+            for (Tenant tenant : tenantRepository.findByTenantIdIn(tenantIds)) {
+                if (tenant.isActive()) {
+                    activeTenants.add(tenant.getTenantId());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría la tarea periódica
+            logger.warn("Could not load API keys: {}", e.getMessage());
+            return;
+        }
+        Map<String, Entry> loaded = new HashMap<>();
+        Set<String> ids = new HashSet<>();
+        for (ApiKey apiKey : apiKeys) {
+            // Un tenant en eliminación ya no admite signin, ni tampoco sus keys
+            if (!activeTenants.contains(apiKey.getTenantId())) {
+                continue;
+            }
+            loaded.put(apiKey.getPrefix(), entryOf(apiKey));
+            ids.add(apiKey.getId());
+        }
+        entries.putAll(loaded);
+        entries.keySet().retainAll(loaded.keySet());
+        // Los usos de keys revocadas en otras instancias ya no se pueden escribir
+        usages.keySet().retainAll(ids);
+        loadedVersion = version;
+    }
+
+    /**
+     * Escribe los usos acumulados, una actualización por key en un único bulk write.
+     */
+    void flushUsage() {
+        BulkOperations bulk = null;
+        int updates = 0;
+        for (Map.Entry<String, Usage> usage : usages.entrySet()) {
+            long count = usage.getValue().count.sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            String lastUsedAt = LAST_USED_FORMAT.format(Instant.ofEpochMilli(usage.getValue().lastUsedAt));
+            if (mongoTemplate == null) {
+                apiKeyRepository.findById(usage.getKey()).ifPresent(apiKey -> {
+                    apiKey.setUsageCount(apiKey.getUsageCount() + count);
+                    apiKey.setLastUsedAt(lastUsedAt);
+                    apiKeyRepository.save(apiKey);
+                });
+                continue;
+            }
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiKey.class);
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(usage.getKey())),
+                    new Update().inc("usageCount", count).max("lastUsedAt", lastUsedAt));
+            updates++;
+        }
+        if (bulk == null) {
+            return;
+        }
+        try {
+            bulk.execute();
+        } catch (DataAccessException e) {
+            logger.warn("Could not persist the usage of {} API keys: {}", updates, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        flushUsage();
+    }
+
+    private Entry entryOf(ApiKey apiKey) {
+        return new Entry(apiKey.getId(), HexFormat.of().parseHex(apiKey.getSecretDigest()), ApiKeyDetails.build(apiKey));
+    }
+
+    private byte[] digest(String secret) {
+        return digests.get().digest(secret.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.scalar.identityProvider.services;
+
+import com.scalar.identityProvider.events.MembershipChangedEvent;
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.models.UserTenantRole;
+import com.scalar.identityProvider.payload.request.AuthorizationCheck;
+import com.scalar.identityProvider.payload.response.AuthorizationDecisionResponse;
+import com.scalar.identityProvider.repository.UserRepository;
+import com.scalar.identityProvider.repository.UserTenantRoleRepository;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio que resuelve lotes de consultas de autorización (usuario, tenant, permiso).
+ * Solo se evalúan las consultas del tenant actual; las de otros tenants se deniegan sin
+ * consultar nada, para que el permiso de un tenant no sirva para inspeccionar los demás.
+ * Las máscaras de permisos de cada membresía se cachean con un TTL corto y se invalidan
+ * cuando llega un {@link MembershipChangedEvent}.
+ */
+@Service
+public class AuthorizationDecisionService {
+
+    @Autowired
+    private UserTenantRoleRepository userTenantRoleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Value("${authzDecisionCacheTtlMs}")
+    private long cacheTtlMs;
+
+    @Value("${authzDecisionCacheMaxEntries}")
+    private int cacheMaxEntries;
+
+    private final ConcurrentHashMap<MembershipKey, CachedMask> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Evalúa un lote de consultas de autorización.
+     * Todas las membresías que no están en caché se cargan con una consulta por colección.
+     * Las consultas de un tenant distinto del actual se deniegan.
+     *
+     * @param checks Las consultas a evaluar.
+     * @return Las decisiones en el mismo orden que las consultas.
+     */
+    public List<AuthorizationDecisionResponse> decide(List<AuthorizationCheck> checks) {
+        Observation observation = Observation.createNotStarted("auth.authz.decide", observationRegistry)
+                .highCardinalityKeyValue("authz.checks", String.valueOf(checks.size()));
+        return observation.observe(() -> {
+            List<AuthorizationDecisionResponse> decisions = doDecide(checks);
+            observation.highCardinalityKeyValue("authz.allowed",
+                    String.valueOf(decisions.stream().filter(AuthorizationDecisionResponse::isAllowed).count()));
+            return decisions;
+        });
+    }
+
+    private List<AuthorizationDecisionResponse> doDecide(List<AuthorizationCheck> checks) {
+        String currentTenant = TenantContext.getCurrentTenant();
+        Set<MembershipKey> keys = new LinkedHashSet<>();
+        for (AuthorizationCheck check : checks) {
+            if (check.getTenantId().equals(currentTenant)) {
+                keys.add(new MembershipKey(check.getSubject(), check.getTenantId()));
+            }
+        }
+
+        Map<MembershipKey, Long> masks = resolveMasks(keys);
+
+        List<AuthorizationDecisionResponse> decisions = new ArrayList<>(checks.size());
+        for (AuthorizationCheck check : checks) {
+            long mask = masks.getOrDefault(new MembershipKey(check.getSubject(), check.getTenantId()), 0L);
+            Permission permission = parsePermission(check.getPermission());
+            boolean allowed = permission != null && (mask & permission.mask()) != 0;
+            decisions.add(new AuthorizationDecisionResponse(
+                    check.getSubject(), check.getTenantId(), check.getPermission(), allowed));
+        }
+        return decisions;
+    }
+
+    /**
+     * Invalida la máscara cacheada de una membresía cuando cambian sus roles.
+     *
+     * @param event El evento de cambio de membresía.
+     */
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        cache.remove(new MembershipKey(event.userId(), event.tenantId()));
+    }
+
+    /**
+     * Invalida todas las máscaras cacheadas de un tenant eliminado.
+     *
+     * @param event El evento de eliminación del tenant.
+     */
+    @EventListener
+    public void onTenantDeleted(TenantDeletedEvent event) {
+        cache.keySet().removeIf(key -> key.tenantId().equals(event.tenantId()));
+    }
+
+    /**
+     * Obtiene las máscaras de permisos de las membresías, usando la caché cuando es posible.
+     */
+    private Map<MembershipKey, Long> resolveMasks(Set<MembershipKey> keys) {
+        long now = System.nanoTime();
+        Map<MembershipKey, Long> masks = new HashMap<>();
+        Set<MembershipKey> misses = new HashSet<>();
+
+        for (MembershipKey key : keys) {
+            CachedMask cached = cache.get(key);
+            if (cached != null && cached.expiresAt() - now > 0) {
+                masks.put(key, cached.mask());
+            } else {
+                misses.add(key);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<MembershipKey, Set<EmployeeRole>> roles = loadRoles(misses);
+            long expiresAt = now + cacheTtlMs * 1_000_000L;
+            for (MembershipKey key : misses) {
+                long mask = EmployeeRoleHierarchy.reachablePermissions(roles.getOrDefault(key, Set.of()));
+                masks.put(key, mask);
+                cache(key, new CachedMask(mask, expiresAt));
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Carga los roles de varias membresías: los asignados por tenant y los propios de la cuenta
+     * del usuario cuando pertenece a ese tenant.
+     */
+    private Map<MembershipKey, Set<EmployeeRole>> loadRoles(Set<MembershipKey> keys) {
+        Set<String> userIds = new HashSet<>();
+        Set<String> tenantIds = new HashSet<>();
+        for (MembershipKey key : keys) {
+            userIds.add(key.userId());
+            tenantIds.add(key.tenantId());
+        }
+
+        Map<MembershipKey, Set<EmployeeRole>> roles = new HashMap<>();
+        for (UserTenantRole assignment : userTenantRoleRepository.findByUserIdInAndTenantIdIn(userIds, tenantIds)) {
+            MembershipKey key = new MembershipKey(assignment.getUserId(), assignment.getTenantId());
+            if (keys.contains(key)) {
+                Set<EmployeeRole> names = roles.computeIfAbsent(key, k -> EnumSet.noneOf(EmployeeRole.class));
+                for (GlobalRole role : assignment.getRoles()) {
+                    names.add(role.getName());
+                }
+            }
+        }
+        // Una consulta por destino de almacenamiento de los tenants; normalmente solo la base de datos compartida
+        for (User user : userRepository.findByIdInAcrossTenants(userIds, tenantIds)) {
+            MembershipKey key = new MembershipKey(user.getId(), user.getTenantId());
+            if (keys.contains(key)) {
+                Set<EmployeeRole> names = roles.computeIfAbsent(key, k -> EnumSet.noneOf(EmployeeRole.class));
+                for (Role role : user.getRoles()) {
+                    names.add(role.getName());
+                }
+            }
+        }
+        return roles;
+    }
+
+    private void cache(MembershipKey key, CachedMask value) {
+        if (cache.size() >= cacheMaxEntries) {
+            long now = System.nanoTime();
+            cache.values().removeIf(cached -> cached.expiresAt() - now <= 0);
+            if (cache.size() >= cacheMaxEntries) {
+                cache.clear();
+            }
+        }
+        cache.put(key, value);
+    }
+
+    private Permission parsePermission(String name) {
+        try {
+            return Permission.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record MembershipKey(String userId, String tenantId) {
+    }
+
+    private record CachedMask(long mask, long expiresAt) {
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,8 +23,13 @@ public class GlobalRoleService {
 
     /**
      * Initialize all global system roles.
+     * When every role already exists this costs a single count query, otherwise the
+     * missing roles are inserted with one bulk upsert, so it is safe to run from many
+     * instances at once.
+     *
+     * @return The number of roles inserted.
      */
-    public void initializeGlobalRoles() {
+    public int initializeGlobalRoles() {
         List<EmployeeRole> rolesToCreate = Arrays.asList(
                 EmployeeRole.ROLE_USER,
                 EmployeeRole.ROLE_MODERATOR,
@@ -31,13 +37,14 @@ public class GlobalRoleService {
                 EmployeeRole.ROLE_SUPER_ADMIN
         );
 
-        for (EmployeeRole roleName : rolesToCreate) {
-            if (!globalRoleRepository.existsByName(roleName)) {
-                String description = getRoleDescription(roleName);
-                GlobalRole role = new GlobalRole(roleName, description);
-                globalRoleRepository.save(role);
-            }
+        if (globalRoleRepository.countByNameIn(rolesToCreate) == rolesToCreate.size()) {
+            return 0;
         }
+
+        List<GlobalRole> roles = rolesToCreate.stream()
+                .map(roleName -> new GlobalRole(roleName, getRoleDescription(roleName)))
+                .toList();
+        return globalRoleRepository.upsertAllByName(roles);
     }
 
     /**
@@ -50,6 +57,16 @@ public class GlobalRoleService {
         return globalRoleRepository.findByName(roleName);
     }
 
+    /**
+     * Get all global roles matching the given names in a single query.
+     *
+     * @param roleNames The names of the roles.
+     * @return List of the matching roles.
+     */
+    public List<GlobalRole> findByNames(Collection<EmployeeRole> roleNames) {
+        return globalRoleRepository.findByNameIn(roleNames);
+    }
+
     /**
      * Get all active global roles.
      *
@@ -0,0 +1,263 @@
+package com.scalar.identityProvider.services;
+
+import com.scalar.identityProvider.events.MembershipChangedEvent;
+import com.scalar.identityProvider.events.UserAccountChangedEvent;
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.models.UserTenantRole;
+import com.scalar.identityProvider.repository.UserRepository;
+import com.scalar.identityProvider.repository.UserTenantRoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de username a las membresías del usuario en cada tenant.
+ * Cada entrada se carga con dos consultas la primera vez que se pide y se invalida
+ * cuando se publica un {@link UserAccountChangedEvent} o un {@link MembershipChangedEvent};
+ * el TTL acota cuánto tarda en verse una escritura hecha por otra instancia.
+ */
+@Component
+public class MembershipIndex {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTenantRoleRepository userTenantRoleRepository;
+
+    @Value("${membershipIndexTtlMs}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, String> usernamesByUserId = new ConcurrentHashMap<>();
+
+    // Se incrementa en cada invalidación para no guardar entradas cargadas antes de ella
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Membresía de un usuario en un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @param accountUserId El ID de la cuenta del usuario en el tenant, o null si solo tiene roles asignados.
+     * @param accountEmail El email de la cuenta del usuario en el tenant, o null si no tiene cuenta.
+     * @param accountRoles Los roles propios de la cuenta, los que se cargan al autenticar.
+     * @param assignedRoles Los roles asignados en el tenant por ID de cuenta del usuario.
+     * @param roles Los roles del usuario en el tenant, de su cuenta y de las asignaciones.
+     */
+    public record TenantMembership(String tenantId, String accountUserId, String accountEmail,
+                                   Set<EmployeeRole> accountRoles, Map<String, Set<EmployeeRole>> assignedRoles,
+                                   Set<EmployeeRole> roles) {
+
+        public boolean hasAccount() {
+            return accountUserId != null;
+        }
+    }
+
+    private record Entry(Map<String, TenantMembership> memberships, long expiresAt) {
+    }
+
+    /**
+     * Obtiene las membresías de un usuario ordenadas por tenantId.
+     *
+     * @param username El username del usuario.
+     * @return Las membresías por tenantId.
+     */
+    public Map<String, TenantMembership> getMemberships(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null || entry.expiresAt() - System.nanoTime() <= 0) {
+            entry = load(username);
+        }
+        return entry.memberships();
+    }
+
+    /**
+     * Verifica si un usuario tiene cuenta en un tenant.
+     *
+     * @param username El username del usuario.
+     * @param tenantId El ID del tenant.
+     * @return true si el usuario tiene cuenta en el tenant.
+     */
+    public boolean hasAccount(String username, String tenantId) {
+        TenantMembership membership = getMemberships(username).get(tenantId);
+        return membership != null && membership.hasAccount();
+    }
+
+    /**
+     * Resuelve la cuenta de un usuario, prefiriendo la del tenant indicado
+     * y si no la del menor tenantId para que el resultado sea estable.
+     *
+     * @param username El username del usuario.
+     * @param preferredTenantId El tenant preferido, puede ser null.
+     * @return Un Optional con el ID de la cuenta.
+     */
+    public Optional<String> resolveAccountId(String username, String preferredTenantId) {
+        Map<String, TenantMembership> memberships = getMemberships(username);
+        if (preferredTenantId != null) {
+            TenantMembership preferred = memberships.get(preferredTenantId);
+            if (preferred != null && preferred.hasAccount()) {
+                return Optional.of(preferred.accountUserId());
+            }
+        }
+        return memberships.values().stream()
+                .filter(TenantMembership::hasAccount)
+                .map(TenantMembership::accountUserId)
+                .findFirst();
+    }
+
+    /**
+     * Obtiene la membresía de un usuario en un tenant.
+     *
+     * @param username El username del usuario.
+     * @param tenantId El ID del tenant.
+     * @return Un Optional con la membresía si existe.
+     */
+    public Optional<TenantMembership> getMembership(String username, String tenantId) {
+        return Optional.ofNullable(getMemberships(username).get(tenantId));
+    }
+
+    /**
+     * Verifica si una cuenta tiene roles asignados en un tenant.
+     *
+     * @param username El username del usuario.
+     * @param userId El ID de la cuenta.
+     * @param tenantId El ID del tenant.
+     * @return true si la cuenta tiene roles asignados en el tenant.
+     */
+    public boolean hasAssignedRoles(String username, String userId, String tenantId) {
+        return getAssignedRoles(username, userId, tenantId).isPresent();
+    }
+
+    /**
+     * Obtiene los roles asignados a una cuenta concreta en un tenant. Los de otras cuentas con el
+     * mismo username no cuentan: cada cuenta es de una persona distinta.
+     *
+     * @param username El username del usuario.
+     * @param userId El ID de la cuenta.
+     * @param tenantId El ID del tenant.
+     * @return Un Optional con los roles si la cuenta tiene roles asignados en el tenant.
+     */
+    public Optional<Set<EmployeeRole>> getAssignedRoles(String username, String userId, String tenantId) {
+        TenantMembership membership = getMemberships(username).get(tenantId);
+        return membership == null ? Optional.empty() : Optional.ofNullable(membership.assignedRoles().get(userId));
+    }
+
+    /**
+     * Obtiene los tenants a los que puede cambiar una cuenta: el suyo y aquellos donde
+     * tiene roles asignados.
+     *
+     * @param username El username del usuario.
+     * @param userId El ID de la cuenta.
+     * @return Los IDs de los tenants ordenados.
+     */
+    public Set<String> getSwitchableTenantIds(String username, String userId) {
+        Set<String> tenantIds = new TreeSet<>();
+        getMemberships(username).values().forEach(membership -> {
+            if (userId.equals(membership.accountUserId()) || membership.assignedRoles().containsKey(userId)) {
+                tenantIds.add(membership.tenantId());
+            }
+        });
+        return tenantIds;
+    }
+
+    @EventListener
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        String username = usernamesByUserId.get(event.userId());
+        if (username != null) {
+            invalidate(username);
+        }
+    }
+
+    private void invalidate(String username) {
+        invalidations.incrementAndGet();
+        entries.remove(username);
+    }
+
+    private Entry load(String username) {
+        long stamp = invalidations.get();
+        long now = System.nanoTime();
+
+        Map<String, Builder> builders = new TreeMap<>();
+        Set<String> userIds = new HashSet<>();
+        // Las cuentas de tenants con almacenamiento dedicado están en su propio destino
+        for (User user : userRepository.findByUsernameAcrossTargets(username)) {
+            userIds.add(user.getId());
+            Builder builder = builders.computeIfAbsent(user.getTenantId(), Builder::new);
+            builder.accountUserId = user.getId();
+            builder.accountEmail = user.getEmail();
+            for (Role role : user.getRoles()) {
+                builder.accountRoles.add(role.getName());
+                builder.roles.add(role.getName());
+            }
+        }
+        if (!userIds.isEmpty()) {
+            for (UserTenantRole assignment : userTenantRoleRepository.findByUserIdIn(userIds)) {
+                Builder builder = builders.computeIfAbsent(assignment.getTenantId(), Builder::new);
+                Set<EmployeeRole> assigned = builder.assignedRoles
+                        .computeIfAbsent(assignment.getUserId(), userId -> EnumSet.noneOf(EmployeeRole.class));
+                for (GlobalRole role : assignment.getRoles()) {
+                    assigned.add(role.getName());
+                    builder.roles.add(role.getName());
+                }
+            }
+        }
+
+        Map<String, TenantMembership> memberships = new TreeMap<>();
+        builders.forEach((tenantId, builder) -> memberships.put(tenantId, builder.build()));
+        Entry entry = new Entry(Collections.unmodifiableMap(memberships), now + ttlMs * 1_000_000L);
+
+        if (invalidations.get() == stamp) {
+            entries.put(username, entry);
+            userIds.forEach(userId -> usernamesByUserId.put(userId, username));
+        }
+        return entry;
+    }
+
+    private static final class Builder {
+
+        private final String tenantId;
+
+        private String accountUserId;
+
+        private String accountEmail;
+
+        private final Set<EmployeeRole> accountRoles = EnumSet.noneOf(EmployeeRole.class);
+
+        private final Map<String, Set<EmployeeRole>> assignedRoles = new HashMap<>();
+
+        private final Set<EmployeeRole> roles = EnumSet.noneOf(EmployeeRole.class);
+
+        private Builder(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        private TenantMembership build() {
+            Map<String, Set<EmployeeRole>> assigned = new HashMap<>();
+            assignedRoles.forEach((userId, names) -> assigned.put(userId, Collections.unmodifiableSet(names)));
+            return new TenantMembership(tenantId, accountUserId, accountEmail,
+                    Collections.unmodifiableSet(accountRoles), Map.copyOf(assigned),
+                    Collections.unmodifiableSet(roles));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.scalar.identityProvider.services;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.scalar.identityProvider.events.MembershipChangedEvent;
+import com.scalar.identityProvider.events.TenantChangedEvent;
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.events.UserAccountChangedEvent;
+import com.scalar.identityProvider.repository.UserRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versión de los recursos que los front-ends consultan constantemente, para
+ * generar ETags sin leer los datos (solo los contadores). Cada escritura publicada como evento
+ * incrementa el contador del tenant o del username (repartidos en franjas para acotar su número);
+ * los cambios de roles asignados en otros tenants incrementan el del username de la cuenta. Las API keys tienen
+ * su propio contador, con el que cada instancia sabe si debe recargarlas.
+ * <p>
+ * Los contadores se comparten entre instancias en la colección {@code resource_versions}: un
+ * {@code $inc} por cambio y una lectura por _id en cada consulta, de modo que todas las
+ * instancias dan el mismo ETag y una escritura hecha en una se ve de inmediato en las demás.
+ * En el perfil inmemory los contadores son locales, como los datos que describen.
+ * Son ETags débiles: el JSON es equivalente aunque vaya comprimido.
+ */
+@Component
+public class ResourceVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersions.class);
+
+    static final String COLLECTION = "resource_versions";
+
+    private static final int STRIPES = 1024;
+
+    // Cualquier cambio de tenant, para los listados
+    private static final String TENANTS = "tenants";
+
+    // Cualquier alta o revocación de API key
+    private static final String API_KEYS = "api-keys";
+
+    // Ausente en el perfil inmemory
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    // Resuelve el username de la cuenta de un cambio de membresía
+    @Autowired
+    private UserRepository userRepository;
+
+    // Contadores del perfil inmemory; se pierden al reiniciar, como los datos, así que sus ETags
+    // llevan el arranque del proceso
+    private final Map<String, AtomicLong> localCounters = new ConcurrentHashMap<>();
+
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * ETag del listado de tenants.
+     *
+     * @return El ETag.
+     */
+    public String tenantsEtag() {
+        return etag(TENANTS);
+    }
+
+    /**
+     * ETag de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @return El ETag.
+     */
+    public String tenantEtag(String tenantId) {
+        return etag(tenantKey(tenantId));
+    }
+
+    /**
+     * ETag de los tenants de un usuario, que cambia con sus cuentas y con los documentos de los tenants.
+     *
+     * @param username El username del usuario.
+     * @return El ETag.
+     */
+    public String userTenantsEtag(String username) {
+        return etag(usernameKey(username), TENANTS);
+    }
+
+    /**
+     * Versión actual de las API keys, que cambia cada vez que se crea o revoca una en cualquier instancia.
+     *
+     * @return La versión.
+     */
+    public long apiKeysVersion() {
+        return versions(API_KEYS)[0];
+    }
+
+    /**
+     * Registra que se ha creado o revocado una API key.
+     */
+    public void apiKeysChanged() {
+        increment(API_KEYS);
+    }
+
+    @EventListener
+    public void onTenantChanged(TenantChangedEvent event) {
+        increment(tenantKey(event.tenantId()), TENANTS);
+    }
+
+    @EventListener
+    public void onTenantDeleted(TenantDeletedEvent event) {
+        increment(tenantKey(event.tenantId()), TENANTS);
+    }
+
+    @EventListener
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        increment(usernameKey(event.username()));
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        // Si la cuenta ya no existe, su eliminación publicó un UserAccountChangedEvent
+        userRepository.findByIdAcrossTargets(event.userId())
+                .ifPresent(user -> increment(usernameKey(user.getUsername())));
+    }
+
+    /**
+     * Obtiene la versión actual de varios contadores; los que no existen valen 0.
+     */
+    private long[] versions(String... keys) {
+        long[] versions = new long[keys.length];
+        if (mongoTemplate == null) {
+            for (int i = 0; i < keys.length; i++) {
+                AtomicLong counter = localCounters.get(keys[i]);
+                versions[i] = counter == null ? 0 : counter.get();
+            }
+            return versions;
+        }
+        Map<String, Long> found = new HashMap<>();
+        for (Document document : collection().find(Filters.in("_id", List.of(keys)))) {
+            found.put(document.getString("_id"), document.get("version", Number.class).longValue());
+        }
+        for (int i = 0; i < keys.length; i++) {
+            versions[i] = found.getOrDefault(keys[i], 0L);
+        }
+        return versions;
+    }
+
+    private void increment(String... keys) {
+        if (mongoTemplate == null) {
+            for (String key : keys) {
+                localCounters.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+            }
+            return;
+        }
+        List<WriteModel<Document>> updates = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", key), Updates.inc("version", 1L),
+                    new UpdateOptions().upsert(true)));
+        }
+        try {
+            collection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        } catch (RuntimeException e) {
+            // La escritura ya se hizo; no se deshace porque falle su contador
+            logger.warn("Could not increment resource versions {}: {}", List.of(keys), e.getMessage());
+        }
+    }
+
+    private String etag(String... keys) {
+        StringBuilder etag = new StringBuilder("W/\"");
+        if (mongoTemplate == null) {
+            etag.append(Long.toHexString(startedAt)).append('-');
+        }
+        long[] versions = versions(keys);
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            etag.append(Long.toHexString(versions[i]));
+        }
+        return etag.append('"').toString();
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    private static String tenantKey(String tenantId) {
+        return "tenant:" + stripe(tenantId);
+    }
+
+    private static String usernameKey(String username) {
+        return "username:" + stripe(username);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
@@ -3,6 +3,7 @@ package com.scalar.identityProvider.services;
 import com.scalar.identityProvider.models.EmployeeRole;
 import com.scalar.identityProvider.models.Role;
 import com.scalar.identityProvider.repository.RoleRepository;
+import com.scalar.identityProvider.security.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,11 +21,16 @@ public class RoleInitializationService {
     private RoleRepository roleRepository;
 
     /**
-     * Inicializa los roles básicos para un tenant específico.
+     * Inicializa los roles básicos para un tenant específico,
+     * en el destino de almacenamiento del tenant.
      *
      * @param tenantId El ID del tenant.
      */
     public void initializeRolesForTenant(String tenantId) {
+        TenantContext.runWhere(tenantId, () -> createMissingRoles(tenantId));
+    }
+
+    private void createMissingRoles(String tenantId) {
         List<EmployeeRole> rolesToCreate = Arrays.asList(
                 EmployeeRole.ROLE_USER,
                 EmployeeRole.ROLE_MODERATOR,
@@ -0,0 +1,218 @@
+package com.scalar.identityProvider.services;
+
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.ServiceClient;
+import com.scalar.identityProvider.repository.ServiceClientRepository;
+import com.scalar.identityProvider.security.client.ClientSecretHasher;
+import com.scalar.identityProvider.security.services.ServiceClientDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio para las cuentas de servicio (clientes del grant client_credentials) de cada tenant.
+ * Los datos de cada cliente se guardan en memoria la primera vez que se piden, de modo que
+ * emitir un token o autenticar una petición con él no consulta la base de datos; las escrituras
+ * de esta instancia los invalidan y el TTL acota cuánto tarda en verse una hecha por otra.
+ * Los clientIds que no existen también se recuerdan durante el TTL, en un mapa acotado, para
+ * que pedir tokens con IDs inventados no consulte la base de datos en cada petición.
+ */
+@Service
+public class ServiceClientService {
+
+    @Autowired
+    private ServiceClientRepository serviceClientRepository;
+
+    @Autowired
+    private ClientSecretHasher clientSecretHasher;
+
+    @Value("${serviceClientCacheTtlMs}")
+    private long ttlMs;
+
+    // Máximo de clientIds desconocidos recordados
+    private static final int MAX_UNKNOWN_CLIENTS = 10_000;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // ClientIds sin cliente activo, con el System.nanoTime() hasta el que se da por bueno
+    private final ConcurrentHashMap<String, Long> unknownClients = new ConcurrentHashMap<>();
+
+    // Se incrementa en cada invalidación para no guardar entradas cargadas antes de ella
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Cliente recién creado o con el secreto renovado, con el secreto en claro.
+     *
+     * @param client El cliente.
+     * @param clientSecret El secreto, que no se vuelve a poder consultar.
+     */
+    public record IssuedClient(ServiceClient client, String clientSecret) {
+    }
+
+    private record Entry(ServiceClient client, ServiceClientDetails details, long expiresAt) {
+    }
+
+    /**
+     * Crea un cliente en un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @param name El nombre del cliente.
+     * @param roles Los roles del cliente en el tenant.
+     * @return El cliente con su secreto.
+     */
+    public IssuedClient create(String tenantId, String name, Set<EmployeeRole> roles) {
+        String secret = clientSecretHasher.newSecret();
+        ServiceClient client = new ServiceClient(clientSecretHasher.newClientId(), tenantId, name,
+                clientSecretHasher.hash(secret), roles);
+        String now = Instant.now().toString();
+        client.setCreatedAt(now);
+        client.setUpdatedAt(now);
+        ServiceClient saved = serviceClientRepository.save(client);
+        unknownClients.remove(saved.getClientId());
+        return new IssuedClient(saved, secret);
+    }
+
+    /**
+     * Obtiene los clientes de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @return Lista de clientes del tenant.
+     */
+    public List<ServiceClient> findByTenantId(String tenantId) {
+        return serviceClientRepository.findByTenantId(tenantId);
+    }
+
+    /**
+     * Renueva el secreto de un cliente de un tenant; el anterior deja de servir para pedir tokens.
+     *
+     * @param tenantId El ID del tenant.
+     * @param clientId El ID del cliente.
+     * @return Un Optional con el cliente y su nuevo secreto, vacío si no existe en el tenant.
+     */
+    public Optional<IssuedClient> rotateSecret(String tenantId, String clientId) {
+        return findInTenant(tenantId, clientId).map(client -> {
+            String secret = clientSecretHasher.newSecret();
+            client.setSecretHash(clientSecretHasher.hash(secret));
+            client.setUpdatedAt(Instant.now().toString());
+            ServiceClient saved = serviceClientRepository.save(client);
+            invalidate(clientId);
+            return new IssuedClient(saved, secret);
+        });
+    }
+
+    /**
+     * Elimina un cliente de un tenant. Los tokens ya emitidos dejan de aceptarse cuando expira
+     * la entrada en memoria de cada instancia.
+     *
+     * @param tenantId El ID del tenant.
+     * @param clientId El ID del cliente.
+     * @return true si el cliente existía en el tenant.
+     */
+    public boolean delete(String tenantId, String clientId) {
+        Optional<ServiceClient> client = findInTenant(tenantId, clientId);
+        client.ifPresent(existing -> {
+            serviceClientRepository.delete(existing);
+            invalidate(clientId);
+        });
+        return client.isPresent();
+    }
+
+    /**
+     * Verifica las credenciales de un cliente con un HMAC del secreto, sin BCrypt.
+     *
+     * @param clientId El ID del cliente.
+     * @param clientSecret El secreto presentado.
+     * @return Un Optional con el cliente si existe, está activo y el secreto es correcto.
+     */
+    public Optional<ServiceClient> authenticate(String clientId, String clientSecret) {
+        return entry(clientId)
+                .map(Entry::client)
+                .filter(client -> clientSecretHasher.matches(clientSecret, client.getSecretHash()));
+    }
+
+    /**
+     * Carga el principal de una petición autenticada con un token de cliente.
+     *
+     * @param clientId El ID del cliente.
+     * @param tenantId El tenant del token.
+     * @return Un Optional con el principal si el cliente sigue activo en ese tenant.
+     */
+    public Optional<ServiceClientDetails> loadDetails(String clientId, String tenantId) {
+        return entry(clientId)
+                .filter(entry -> entry.client().getTenantId().equals(tenantId))
+                .map(Entry::details);
+    }
+
+    /**
+     * Obtiene el tenant de un cliente, sin verificar su secreto; sirve para aplicar el límite de
+     * peticiones del tenant antes de autenticarlo.
+     *
+     * @param clientId El ID del cliente.
+     * @return Un Optional con el ID del tenant si el cliente existe y está activo.
+     */
+    public Optional<String> findTenantId(String clientId) {
+        return entry(clientId).map(entry -> entry.client().getTenantId());
+    }
+
+    @EventListener
+    public void onTenantDeleted(TenantDeletedEvent event) {
+        invalidations.incrementAndGet();
+        entries.values().removeIf(entry -> entry.client().getTenantId().equals(event.tenantId()));
+    }
+
+    private Optional<ServiceClient> findInTenant(String tenantId, String clientId) {
+        return serviceClientRepository.findByClientId(clientId)
+                .filter(client -> client.getTenantId().equals(tenantId));
+    }
+
+    private Optional<Entry> entry(String clientId) {
+        Entry entry = entries.get(clientId);
+        if (entry == null || entry.expiresAt() - System.nanoTime() <= 0) {
+            entry = load(clientId);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    private Entry load(String clientId) {
+        long now = System.nanoTime();
+        Long unknownUntil = unknownClients.get(clientId);
+        if (unknownUntil != null && unknownUntil - now > 0) {
+            return null;
+        }
+        long stamp = invalidations.get();
+        long expiresAt = now + ttlMs * 1_000_000L;
+        Optional<ServiceClient> client = serviceClientRepository.findByClientId(clientId)
+                .filter(ServiceClient::isActive);
+        if (client.isEmpty()) {
+            entries.remove(clientId);
+            // Se acota el mapa para no llenar la memoria con IDs inventados
+            if (unknownClients.size() >= MAX_UNKNOWN_CLIENTS) {
+                unknownClients.values().removeIf(until -> until - now <= 0);
+                if (unknownClients.size() >= MAX_UNKNOWN_CLIENTS) {
+                    unknownClients.clear();
+                }
+            }
+            unknownClients.put(clientId, expiresAt);
+            return null;
+        }
+        Entry entry = new Entry(client.get(), ServiceClientDetails.build(client.get()), expiresAt);
+        if (invalidations.get() == stamp) {
+            entries.put(clientId, entry);
+        }
+        return entry;
+    }
+
+    private void invalidate(String clientId) {
+        invalidations.incrementAndGet();
+        entries.remove(clientId);
+    }
+}
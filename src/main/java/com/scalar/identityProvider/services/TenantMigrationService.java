@@ -0,0 +1,298 @@
+package com.scalar.identityProvider.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.scalar.identityProvider.config.MongoIndexInitializer;
+import com.scalar.identityProvider.config.TenantMongoTemplates;
+import com.scalar.identityProvider.config.TenantRouteSynchronizer;
+import com.scalar.identityProvider.config.TenantRoutingMongoDatabaseFactory;
+import com.scalar.identityProvider.events.TenantChangedEvent;
+import com.scalar.identityProvider.models.Tenant;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio para mover un tenant entre la base de datos compartida y los destinos dedicados
+ * sin detener el servicio.
+ * <p>
+ * La migración copia los documentos del tenant al destino, repite la copia para recoger las
+ * escrituras concurrentes (un documento solo se reemplaza si su {@code version} es mayor),
+ * persiste la nueva ruta en el tenant y espera a que todas las instancias vivas la hayan
+ * recogido ({@link TenantRouteSynchronizer}). Solo entonces hace una pasada final y elimina los
+ * documentos del origen, al que ya no escribe ninguna instancia. Si alguna no la recoge a tiempo
+ * la migración falla sin tocar el origen. Las eliminaciones hechas en el origen entre la última
+ * pasada previa y el cambio de ruta no se replican.
+ */
+@Service
+@Profile("!inmemory")
+public class TenantMigrationService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantMigrationService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Fases de una migración.
+     */
+    public enum Phase {
+        COPYING, CATCHING_UP, SWITCHING, CLEANING_UP, COMPLETED, FAILED
+    }
+
+    /**
+     * Estado de una migración.
+     *
+     * @param tenantId El ID del tenant.
+     * @param source El destino de origen, null para la base de datos compartida.
+     * @param target El destino final, null para la base de datos compartida.
+     * @param phase La fase actual.
+     * @param copied Los documentos copiados hasta ahora.
+     * @param error El error si la migración falló.
+     * @param startedAt Fecha de inicio.
+     * @param finishedAt Fecha de fin, null mientras sigue en curso.
+     */
+    public record MigrationStatus(String tenantId, String source, String target, Phase phase, long copied,
+                                  String error, String startedAt, String finishedAt) {
+
+        public boolean isRunning() {
+            return phase != Phase.COMPLETED && phase != Phase.FAILED;
+        }
+    }
+
+    @Autowired
+    private TenantRoutingMongoDatabaseFactory routingFactory;
+
+    @Autowired
+    private TenantMongoTemplates tenantMongoTemplates;
+
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    private TenantRouteSynchronizer routeSynchronizer;
+
+    @Autowired
+    private TenantService tenantService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, MigrationStatus> migrations = new ConcurrentHashMap<>();
+
+    /**
+     * Inicia la migración de un tenant a otro destino en segundo plano.
+     *
+     * @param tenantId El ID del tenant.
+     * @param target El destino, null para volver a la base de datos compartida.
+     * @return El estado inicial de la migración.
+     * @throws IllegalArgumentException si el tenant o el destino no existen o el tenant ya está en el destino.
+     * @throws IllegalStateException si ya hay una migración en curso para el tenant.
+     */
+    public MigrationStatus startMigration(String tenantId, String target) {
+        if (!tenantService.existsByTenantId(tenantId)) {
+            throw new IllegalArgumentException("Tenant no encontrado");
+        }
+        if (target != null && !routingFactory.getTargetNames().contains(target)) {
+            throw new IllegalArgumentException("Destino de almacenamiento desconocido: " + target);
+        }
+        String source = routingFactory.targetOf(tenantId);
+        if (Objects.equals(source, target)) {
+            throw new IllegalArgumentException("El tenant ya está en ese destino");
+        }
+
+        MigrationStatus started = new MigrationStatus(tenantId, source, target, Phase.COPYING, 0, null,
+                Instant.now().toString(), null);
+        MigrationStatus previous = migrations.compute(tenantId,
+                (id, current) -> current != null && current.isRunning() ? current : started);
+        if (previous != started) {
+            throw new IllegalStateException("Ya hay una migración en curso para el tenant");
+        }
+
+        executor.execute(() -> migrate(started));
+        return started;
+    }
+
+    /**
+     * Obtiene el estado de la última migración de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @return Un Optional con el estado si hubo alguna migración.
+     */
+    public Optional<MigrationStatus> getStatus(String tenantId) {
+        return Optional.ofNullable(migrations.get(tenantId));
+    }
+
+    /**
+     * Recarga las rutas persistidas, para recoger migraciones hechas por otras instancias.
+     */
+    public void refreshRoutes() {
+        routeSynchronizer.refresh();
+    }
+
+    private void migrate(MigrationStatus status) {
+        String tenantId = status.tenantId();
+        MongoTemplate source = tenantMongoTemplates.forTarget(status.source());
+        MongoTemplate target = tenantMongoTemplates.forTarget(status.target());
+        try {
+            mongoIndexInitializer.ensureTenantOwnedIndexes(target);
+
+            long copied = copyAll(source, target, tenantId);
+            update(tenantId, Phase.CATCHING_UP, copied, null);
+
+            copied += copyAll(source, target, tenantId);
+            removeDeleted(source, target, tenantId);
+            update(tenantId, Phase.SWITCHING, copied, null);
+
+            tenantMongoTemplates.forTarget(null).updateFirst(
+                    Query.query(Criteria.where("tenantId").is(tenantId)),
+                    new Update().set("storageTarget", status.target()).set("updatedAt", Instant.now().toString()),
+                    Tenant.class);
+            long routeVersion = routeSynchronizer.publish();
+            eventPublisher.publishEvent(new TenantChangedEvent(tenantId));
+
+            // Ninguna instancia escribe ya en el origen; recoger lo que llegó antes del cambio de ruta
+            routeSynchronizer.awaitAcknowledged(routeVersion);
+            copied += copyAll(source, target, tenantId);
+            update(tenantId, Phase.CLEANING_UP, copied, null);
+
+            for (String collection : TenantRoutingMongoDatabaseFactory.TENANT_COLLECTIONS) {
+                source.getCollection(collection).deleteMany(Filters.eq("tenantId", tenantId));
+            }
+            update(tenantId, Phase.COMPLETED, copied, null);
+            logger.info("Tenant '{}' migrated from '{}' to '{}' ({} documents)",
+                    tenantId, describe(status.source()), describe(status.target()), copied);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            update(tenantId, Phase.FAILED, migrations.get(tenantId).copied(), "Interrupted");
+        } catch (RuntimeException e) {
+            logger.error("Migration of tenant '{}' failed: {}", tenantId, e.getMessage(), e);
+            update(tenantId, Phase.FAILED, migrations.get(tenantId).copied(), e.getMessage());
+        }
+    }
+
+    private long copyAll(MongoTemplate source, MongoTemplate target, String tenantId) {
+        long copied = 0;
+        for (String collection : TenantRoutingMongoDatabaseFactory.TENANT_COLLECTIONS) {
+            copied += copy(source.getCollection(collection), target.getCollection(collection), tenantId);
+        }
+        return copied;
+    }
+
+    /**
+     * Copia los documentos del tenant en lotes, sin pisar en el destino versiones más nuevas.
+     */
+    private long copy(MongoCollection<Document> source, MongoCollection<Document> target, String tenantId) {
+        long copied = 0;
+        List<WriteModel<Document>> batch = new ArrayList<>(BATCH_SIZE);
+        for (Document document : source.find(Filters.eq("tenantId", tenantId)).batchSize(BATCH_SIZE)) {
+            batch.add(new ReplaceOneModel<>(replaceFilter(document), document, new ReplaceOptions().upsert(true)));
+            if (batch.size() == BATCH_SIZE) {
+                copied += flush(target, batch);
+            }
+        }
+        copied += flush(target, batch);
+        return copied;
+    }
+
+    private Bson replaceFilter(Document document) {
+        Object version = document.get("version");
+        if (version == null) {
+            return Filters.eq("_id", document.get("_id"));
+        }
+        return Filters.and(Filters.eq("_id", document.get("_id")),
+                Filters.or(Filters.lt("version", version), Filters.exists("version", false)));
+    }
+
+    private long flush(MongoCollection<Document> target, List<WriteModel<Document>> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        try {
+            target.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // Una clave duplicada significa que el destino ya tiene una versión igual o más nueva
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            size -= e.getWriteErrors().size();
+        } finally {
+            batch.clear();
+        }
+        return size;
+    }
+
+    /**
+     * Elimina del destino los documentos que ya no existen en el origen.
+     */
+    private void removeDeleted(MongoTemplate source, MongoTemplate target, String tenantId) {
+        for (String collection : TenantRoutingMongoDatabaseFactory.TENANT_COLLECTIONS) {
+            Set<Object> sourceIds = new HashSet<>();
+            source.getCollection(collection).find(Filters.eq("tenantId", tenantId))
+                    .projection(Projections.include("_id"))
+                    .forEach(document -> sourceIds.add(document.get("_id")));
+
+            List<Object> removed = new ArrayList<>();
+            target.getCollection(collection).find(Filters.eq("tenantId", tenantId))
+                    .projection(Projections.include("_id"))
+                    .forEach(document -> {
+                        if (!sourceIds.contains(document.get("_id"))) {
+                            removed.add(document.get("_id"));
+                        }
+                    });
+            if (!removed.isEmpty()) {
+                target.getCollection(collection).deleteMany(Filters.in("_id", removed));
+            }
+        }
+    }
+
+    private void update(String tenantId, Phase phase, long copied, String error) {
+        migrations.computeIfPresent(tenantId, (id, current) -> new MigrationStatus(
+                id, current.source(), current.target(), phase, copied, error, current.startedAt(),
+                phase == Phase.COMPLETED || phase == Phase.FAILED ? Instant.now().toString() : null));
+    }
+
+    private static String describe(String target) {
+        return target == null ? "pooled" : target;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,8 +1,11 @@
 package com.scalar.identityProvider.services;
 
+import com.scalar.identityProvider.events.TenantChangedEvent;
 import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.models.TenantTeardownJob;
 import com.scalar.identityProvider.repository.TenantRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,6 +20,13 @@ public class TenantService {
     @Autowired
     private TenantRepository tenantRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Ausente en el perfil inmemory
+    @Autowired(required = false)
+    private TenantTeardownService tenantTeardownService;
+
     /**
      * Crea un nuevo tenant.
      *
@@ -24,7 +34,9 @@ public class TenantService {
      * @return El tenant creado.
      */
     public Tenant createTenant(Tenant tenant) {
-        return tenantRepository.save(tenant);
+        Tenant saved = tenantRepository.save(tenant);
+        eventPublisher.publishEvent(new TenantChangedEvent(saved.getTenantId()));
+        return saved;
     }
 
     /**
@@ -68,6 +80,18 @@ public class TenantService {
         return tenantRepository.existsByTenantId(tenantId);
     }
 
+    /**
+     * Verifica si un tenant existe y está activo. Un tenant en eliminación ya no está activo.
+     *
+     * @param tenantId El tenantId a verificar.
+     * @return true si existe y está activo, false en caso contrario.
+     */
+    public boolean isActiveTenant(String tenantId) {
+        return tenantRepository.findByTenantId(tenantId)
+                .map(Tenant::isActive)
+                .orElse(false);
+    }
+
     /**
      * Verifica si un nombre de tenant ya existe.
      *
@@ -85,15 +109,22 @@ public class TenantService {
      * @return El tenant actualizado.
      */
     public Tenant updateTenant(Tenant tenant) {
-        return tenantRepository.save(tenant);
+        Tenant saved = tenantRepository.save(tenant);
+        eventPublisher.publishEvent(new TenantChangedEvent(saved.getTenantId()));
+        return saved;
     }
 
     /**
-     * Elimina un tenant por su ID.
+     * Elimina un tenant y, en segundo plano, todos sus usuarios, roles y asignaciones.
      *
-     * @param id El ID del tenant a eliminar.
+     * @param tenant El tenant a eliminar.
+     * @return El job que realiza la eliminación.
+     * @throws IllegalStateException si el almacenamiento no permite eliminar tenants (perfil inmemory).
      */
-    public void deleteTenant(String id) {
-        tenantRepository.deleteById(id);
+    public TenantTeardownJob deleteTenant(Tenant tenant) {
+        if (tenantTeardownService == null) {
+            throw new IllegalStateException("Tenant deletion is not available with the in-memory storage");
+        }
+        return tenantTeardownService.scheduleTeardown(tenant);
     }
 }
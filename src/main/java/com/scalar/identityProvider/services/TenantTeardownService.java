@@ -0,0 +1,366 @@
+package com.scalar.identityProvider.services;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.scalar.identityProvider.config.TenantMongoTemplates;
+import com.scalar.identityProvider.config.TenantRouteSynchronizer;
+import com.scalar.identityProvider.config.TenantRoutingMongoDatabaseFactory;
+import com.scalar.identityProvider.events.MembershipChangedEvent;
+import com.scalar.identityProvider.events.TenantChangedEvent;
+import com.scalar.identityProvider.events.TenantDeletedEvent;
+import com.scalar.identityProvider.events.UserAccountChangedEvent;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.models.TenantTeardownJob;
+import com.scalar.identityProvider.repository.TenantTeardownJobRepository;
+import com.scalar.identityProvider.security.session.AccessTokenService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio que elimina en segundo plano los datos de un tenant: usuarios (con sus asignaciones de
+ * roles en cualquier tenant), asignaciones de roles en el tenant, roles y por último el documento
+ * del tenant.
+ * <p>
+ * Cada eliminación es un job persistido en {@code tenant_teardown_jobs}. La instancia que lo ejecuta
+ * mantiene un lease que renueva en cada lote; si se cae, otra instancia (o ella misma al reiniciar)
+ * retoma el job cuando el lease expira. Los lotes son idempotentes, por lo que repetir uno es seguro.
+ * Tras {@code tenantTeardownMaxAttempts} intentos fallidos el job queda en {@code FAILED} hasta que
+ * se vuelva a solicitar la eliminación.
+ */
+@Service
+@Profile("!inmemory")
+public class TenantTeardownService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantTeardownService.class);
+
+    @Autowired
+    private TenantTeardownJobRepository tenantTeardownJobRepository;
+
+    @Autowired
+    private TenantRoutingMongoDatabaseFactory routingFactory;
+
+    @Autowired
+    private TenantRouteSynchronizer routeSynchronizer;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private TenantMongoTemplates tenantMongoTemplates;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${tenantTeardownBatchSize}")
+    private int batchSize;
+
+    @Value("${tenantTeardownBatchDelayMs}")
+    private long batchDelayMs;
+
+    @Value("${tenantTeardownLeaseMs}")
+    private long leaseMs;
+
+    @Value("${tenantTeardownMaxAttempts}")
+    private int maxAttempts;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("tenant-teardown").factory());
+
+    /**
+     * Programa la eliminación de un tenant y todos sus datos.
+     * El tenant se desactiva de inmediato y el borrado continúa en segundo plano.
+     *
+     * @param tenant El tenant a eliminar.
+     * @return El job de eliminación, nuevo o el que ya existía para el tenant.
+     */
+    public TenantTeardownJob scheduleTeardown(Tenant tenant) {
+        Optional<TenantTeardownJob> existing = tenantTeardownJobRepository.findByTenantId(tenant.getTenantId());
+        if (existing.isPresent()) {
+            if (existing.get().getStatus() == TenantTeardownJob.Status.FAILED) {
+                // Volver a solicitar la eliminación reintenta un job fallido desde donde quedó
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(existing.get().getId())),
+                        new Update()
+                                .set("status", TenantTeardownJob.Status.PENDING)
+                                .set("attempts", 0)
+                                .set("leaseExpiresAt", 0L)
+                                .unset("finishedAt")
+                                .set("updatedAt", Instant.now().toString())
+                                .inc("version", 1),
+                        TenantTeardownJob.class);
+                executor.execute(this::runPendingJobs);
+                return tenantTeardownJobRepository.findById(existing.get().getId()).orElseThrow();
+            }
+            if (existing.get().getStatus() != TenantTeardownJob.Status.COMPLETED) {
+                return existing.get();
+            }
+            // Un tenant con el mismo tenantId se volvió a crear después de una eliminación anterior
+            tenantTeardownJobRepository.delete(existing.get());
+        }
+
+        TenantTeardownJob job = new TenantTeardownJob(tenant.getTenantId(), routingFactory.targetOf(tenant.getTenantId()));
+        String now = Instant.now().toString();
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        try {
+            job = tenantTeardownJobRepository.save(job);
+        } catch (DuplicateKeyException e) {
+            return tenantTeardownJobRepository.findByTenantId(tenant.getTenantId()).orElseThrow();
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("tenantId").is(tenant.getTenantId())),
+                new Update().set("active", false).set("updatedAt", now), Tenant.class);
+        eventPublisher.publishEvent(new TenantChangedEvent(tenant.getTenantId()));
+        // Las instancias recargan las API keys y descartan las del tenant desactivado
+        resourceVersions.apiKeysChanged();
+
+        executor.execute(this::runPendingJobs);
+        return job;
+    }
+
+    /**
+     * Obtiene el job de eliminación de un tenant.
+     *
+     * @param tenantId El ID del tenant.
+     * @return Un Optional con el job si existe.
+     */
+    public Optional<TenantTeardownJob> getJob(String tenantId) {
+        return tenantTeardownJobRepository.findByTenantId(tenantId);
+    }
+
+    /**
+     * Retoma los jobs pendientes al arrancar y revisa periódicamente los leases expirados.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        executor.scheduleWithFixedDelay(this::runPendingJobs, 0, leaseMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runPendingJobs() {
+        try {
+            TenantTeardownJob job;
+            while ((job = claimNextJob()) != null) {
+                run(job);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not run tenant teardown jobs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reclama un job pendiente o con el lease expirado.
+     */
+    private TenantTeardownJob claimNextJob() {
+        long now = System.currentTimeMillis();
+        Query claimable = Query.query(Criteria.where("status").in(TenantTeardownJob.Status.PENDING, TenantTeardownJob.Status.RUNNING)
+                .and("leaseExpiresAt").lt(now));
+        Update claim = new Update()
+                .set("status", TenantTeardownJob.Status.RUNNING)
+                .set("owner", instanceId)
+                .set("leaseExpiresAt", now + leaseMs)
+                .set("updatedAt", Instant.now().toString())
+                .inc("version", 1);
+        return mongoTemplate.findAndModify(claimable, claim, FindAndModifyOptions.options().returnNew(true),
+                TenantTeardownJob.class);
+    }
+
+    private void run(TenantTeardownJob job) {
+        String tenantId = job.getTenantId();
+        MongoTemplate tenantTemplate = tenantMongoTemplates.forTarget(job.getStorageTarget());
+        MongoTemplate pooledTemplate = tenantMongoTemplates.forTarget(null);
+        try {
+            // Primero las sesiones opacas, en todas las instancias; se repite sin problema si el job se retoma
+            accessTokenService.revokeTenant(tenantId);
+
+            while (deleteUsersBatch(job, tenantTemplate.getCollection("users"),
+                    pooledTemplate.getCollection("user_tenant_roles"))) {
+                pause();
+            }
+            while (deleteMembershipsBatch(job, pooledTemplate.getCollection("user_tenant_roles"))) {
+                pause();
+            }
+            while (deleteRolesBatch(job, tenantTemplate.getCollection("roles"))) {
+                pause();
+            }
+
+            // Las cuentas de servicio y las API keys son pocas por tenant, se eliminan de una vez
+            pooledTemplate.getCollection("service_clients").deleteMany(Filters.eq("tenantId", tenantId));
+            pooledTemplate.getCollection("api_keys").deleteMany(Filters.eq("tenantId", tenantId));
+            resourceVersions.apiKeysChanged();
+            pooledTemplate.getCollection("tenants").deleteOne(Filters.eq("tenantId", tenantId));
+            if (job.getStorageTarget() != null) {
+                // Sin el documento del tenant su ruta desaparece al recargar, en todas las instancias
+                routeSynchronizer.publish();
+            }
+            eventPublisher.publishEvent(new TenantDeletedEvent(tenantId));
+
+            String now = Instant.now().toString();
+            updateOwned(job, new Update()
+                    .set("status", TenantTeardownJob.Status.COMPLETED)
+                    .set("finishedAt", now)
+                    .set("leaseExpiresAt", Long.MAX_VALUE));
+            logger.info("Tenant '{}' deleted: {} users, {} memberships, {} roles",
+                    tenantId, job.getDeletedUsers(), job.getDeletedMemberships(), job.getDeletedRoles());
+        } catch (LeaseLostException e) {
+            logger.warn("Lost the lease of the teardown of tenant '{}'", tenantId);
+        } catch (RuntimeException e) {
+            logger.error("Teardown of tenant '{}' failed: {}", tenantId, e.getMessage(), e);
+            Update failure = new Update().set("error", e.getMessage()).inc("attempts", 1);
+            if (job.getAttempts() + 1 >= maxAttempts) {
+                failure.set("status", TenantTeardownJob.Status.FAILED)
+                        .set("finishedAt", Instant.now().toString())
+                        .set("leaseExpiresAt", Long.MAX_VALUE);
+            }
+            // Si no, se reintenta cuando expire el lease, en una revisión posterior
+            updateOwned(job, failure);
+        }
+    }
+
+    private boolean deleteUsersBatch(TenantTeardownJob job, MongoCollection<Document> users,
+                                     MongoCollection<Document> memberships) {
+        List<Document> batch = nextBatch(users, job.getTenantId(), "username");
+        if (batch.isEmpty()) {
+            return false;
+        }
+        // Primero los roles de estas cuentas en otros tenants: si el job se retoma, las cuentas siguen ahí
+        deleteAccountMemberships(job, memberships, batch);
+        long deleted = deleteBatch(users, batch);
+        job.setDeletedUsers(job.getDeletedUsers() + deleted);
+        updateOwned(job, new Update().inc("deletedUsers", deleted));
+        for (Document user : batch) {
+            eventPublisher.publishEvent(new UserAccountChangedEvent(
+                    String.valueOf(user.get("_id")), user.getString("username"), job.getTenantId()));
+        }
+        return true;
+    }
+
+    private boolean deleteMembershipsBatch(TenantTeardownJob job, MongoCollection<Document> memberships) {
+        List<Document> batch = nextBatch(memberships, job.getTenantId(), "userId");
+        if (batch.isEmpty()) {
+            return false;
+        }
+        long deleted = deleteBatch(memberships, batch);
+        job.setDeletedMemberships(job.getDeletedMemberships() + deleted);
+        updateOwned(job, new Update().inc("deletedMemberships", deleted));
+        for (Document membership : batch) {
+            eventPublisher.publishEvent(new MembershipChangedEvent(membership.getString("userId"), job.getTenantId()));
+        }
+        return true;
+    }
+
+    private void deleteAccountMemberships(TenantTeardownJob job, MongoCollection<Document> memberships,
+                                          List<Document> users) {
+        List<String> userIds = users.stream().map(user -> String.valueOf(user.get("_id"))).toList();
+        List<Document> batch = memberships.find(Filters.in("userId", userIds))
+                .projection(Projections.include("userId", "tenantId", "_id"))
+                .into(new ArrayList<>());
+        if (batch.isEmpty()) {
+            return;
+        }
+        long deleted = deleteBatch(memberships, batch);
+        job.setDeletedMemberships(job.getDeletedMemberships() + deleted);
+        updateOwned(job, new Update().inc("deletedMemberships", deleted));
+        for (Document membership : batch) {
+            eventPublisher.publishEvent(new MembershipChangedEvent(
+                    membership.getString("userId"), membership.getString("tenantId")));
+        }
+    }
+
+    private boolean deleteRolesBatch(TenantTeardownJob job, MongoCollection<Document> roles) {
+        List<Document> batch = nextBatch(roles, job.getTenantId());
+        if (batch.isEmpty()) {
+            return false;
+        }
+        long deleted = deleteBatch(roles, batch);
+        job.setDeletedRoles(job.getDeletedRoles() + deleted);
+        updateOwned(job, new Update().inc("deletedRoles", deleted));
+        return true;
+    }
+
+    private List<Document> nextBatch(MongoCollection<Document> collection, String tenantId, String... fields) {
+        List<String> projected = new ArrayList<>(List.of(fields));
+        projected.add("_id");
+        return collection.find(Filters.eq("tenantId", tenantId))
+                .projection(Projections.include(projected))
+                .limit(batchSize)
+                .into(new ArrayList<>());
+    }
+
+    private long deleteBatch(MongoCollection<Document> collection, List<Document> batch) {
+        List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+        return collection.deleteMany(Filters.in("_id", ids)).getDeletedCount();
+    }
+
+    /**
+     * Actualiza el job solo si esta instancia sigue siendo su dueña, renovando el lease.
+     */
+    private void updateOwned(TenantTeardownJob job, Update update) {
+        if (!update.modifies("leaseExpiresAt")) {
+            update.set("leaseExpiresAt", System.currentTimeMillis() + leaseMs);
+        }
+        update.set("updatedAt", Instant.now().toString()).inc("version", 1);
+        Query owned = Query.query(Criteria.where("_id").is(job.getId()).and("owner").is(instanceId));
+        if (mongoTemplate.updateFirst(owned, update, TenantTeardownJob.class).getMatchedCount() == 0) {
+            throw new LeaseLostException();
+        }
+    }
+
+    private void pause() {
+        if (batchDelayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(batchDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tenant teardown interrupted", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Otra instancia tomó el job porque el lease expiró.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+
+        private LeaseLostException() {
+            super(null, null, false, false);
+        }
+    }
+}
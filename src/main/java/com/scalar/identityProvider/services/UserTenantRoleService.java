@@ -1,12 +1,16 @@
 package com.scalar.identityProvider.services;
 
+import com.scalar.identityProvider.events.MembershipChangedEvent;
 import com.scalar.identityProvider.models.EmployeeRole;
 import com.scalar.identityProvider.models.GlobalRole;
 import com.scalar.identityProvider.models.UserTenantRole;
 import com.scalar.identityProvider.repository.UserTenantRoleRepository;
+import com.scalar.identityProvider.security.authorization.EmployeeRoleHierarchy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +28,9 @@ public class UserTenantRoleService {
     @Autowired
     private GlobalRoleService globalRoleService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Asigna roles a un usuario en un tenant específico.
      *
@@ -33,25 +40,16 @@ public class UserTenantRoleService {
      * @return La asignación de roles creada o actualizada.
      */
     public UserTenantRole assignRolesToUser(String userId, String tenantId, Set<String> roleNames) {
-        Optional<UserTenantRole> existingAssignment = userTenantRoleRepository
-                .findByUserIdAndTenantId(userId, tenantId);
-
-        UserTenantRole userTenantRole;
-        if (existingAssignment.isPresent()) {
-            userTenantRole = existingAssignment.get();
-        } else {
-            userTenantRole = new UserTenantRole(userId, tenantId);
-        }
-
-        Set<GlobalRole> roles = new HashSet<>();
+        Set<EmployeeRole> employeeRoles = EnumSet.noneOf(EmployeeRole.class);
         for (String roleName : roleNames) {
-            EmployeeRole employeeRole = mapStringToEmployeeRole(roleName);
-            Optional<GlobalRole> globalRole = globalRoleService.findByName(employeeRole);
-            globalRole.ifPresent(roles::add);
+            employeeRoles.add(mapStringToEmployeeRole(roleName));
         }
 
-        userTenantRole.setRoles(roles);
-        return userTenantRoleRepository.save(userTenantRole);
+        // Resolver todos los roles en una sola consulta y escribir con un upsert atómico
+        Set<GlobalRole> roles = new HashSet<>(globalRoleService.findByNames(employeeRoles));
+        UserTenantRole assignment = userTenantRoleRepository.upsertRoles(userId, tenantId, roles);
+        eventPublisher.publishEvent(new MembershipChangedEvent(userId, tenantId));
+        return assignment;
     }
 
     /**
@@ -86,7 +84,7 @@ public class UserTenantRoleService {
     }
 
     /**
-     * Verifica si un usuario tiene un rol específico en un tenant.
+     * Verifica si un usuario tiene un rol específico en un tenant, directamente o por jerarquía.
      *
      * @param userId El ID del usuario.
      * @param tenantId El ID del tenant.
@@ -97,7 +95,7 @@ public class UserTenantRoleService {
         Optional<UserTenantRole> userTenantRole = getUserRolesInTenant(userId, tenantId);
         if (userTenantRole.isPresent()) {
             return userTenantRole.get().getRoles().stream()
-                    .anyMatch(role -> role.getName().equals(roleName));
+                    .anyMatch(role -> EmployeeRoleHierarchy.reachableRoles(role.getName()).contains(roleName));
         }
         return false;
     }
@@ -111,11 +109,16 @@ public class UserTenantRoleService {
     public void removeUserFromTenant(String userId, String tenantId) {
         Optional<UserTenantRole> userTenantRole = userTenantRoleRepository
                 .findByUserIdAndTenantId(userId, tenantId);
-        userTenantRole.ifPresent(role -> userTenantRoleRepository.delete(role));
+        userTenantRole.ifPresent(role -> {
+            userTenantRoleRepository.delete(role);
+            eventPublisher.publishEvent(new MembershipChangedEvent(userId, tenantId));
+        });
     }
 
     /**
-     * Mapea un string a un EmployeeRole.
+     * Mapea un string a un EmployeeRole. SUPER_ADMIN no se asigna por tenant: un administrador
+     * gestiona los roles de su propio tenant y podría dárselo a sí mismo, así que cualquier otro
+     * nombre, incluido superadmin, se mapea a USER.
      *
      * @param roleName El nombre del rol como string.
      * @return El EmployeeRole correspondiente.
@@ -129,9 +132,6 @@ public class UserTenantRoleService {
                 return EmployeeRole.ROLE_MODERATOR;
             case "admin":
                 return EmployeeRole.ROLE_ADMIN;
-            case "super_admin":
-            case "superadmin":
-                return EmployeeRole.ROLE_SUPER_ADMIN;
             default:
                 return EmployeeRole.ROLE_USER;
         }
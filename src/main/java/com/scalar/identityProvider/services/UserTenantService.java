@@ -4,11 +4,14 @@ import com.scalar.identityProvider.models.Tenant;
 import com.scalar.identityProvider.models.User;
 import com.scalar.identityProvider.repository.TenantRepository;
 import com.scalar.identityProvider.repository.UserRepository;
+import com.scalar.identityProvider.security.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Servicio para manejar operaciones de usuarios relacionadas con tenants.
@@ -22,6 +25,9 @@ public class UserTenantService {
     @Autowired
     private TenantRepository tenantRepository;
 
+    @Autowired
+    private MembershipIndex membershipIndex;
+
     /**
      * Busca un usuario por username en todos los tenants.
      *
@@ -29,7 +35,7 @@ public class UserTenantService {
      * @return Una lista de usuarios con ese username (puede haber uno por tenant)
      */
     public List<User> findUsersByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findByUsernameAcrossTargets(username);
     }
 
     /**
@@ -40,21 +46,25 @@ public class UserTenantService {
      * @return Un Optional que contiene el usuario si se encuentra
      */
     public Optional<User> findUserByUsernameAndTenantId(String username, String tenantId) {
-        return userRepository.findByUsernameAndTenantId(username, tenantId);
+        return TenantContext.callWhere(tenantId, () -> userRepository.findByUsernameAndTenantId(username, tenantId));
     }
 
     /**
-     * Obtiene todos los tenants donde un usuario tiene cuenta.
+     * Obtiene los tenants a los que puede cambiar una cuenta: el suyo y aquellos donde tiene
+     * roles asignados. Las cuentas con el mismo username en otros tenants no cuentan.
      *
      * @param username El username del usuario
-     * @return Lista de tenants donde el usuario tiene cuenta
+     * @param userId El ID de la cuenta del usuario
+     * @return Lista de tenants de la cuenta
      */
-    public List<Tenant> getTenantsForUser(String username) {
-        List<User> users = findUsersByUsername(username);
-        return users.stream()
-                .map(user -> tenantRepository.findByTenantId(user.getTenantId()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+    public List<Tenant> getTenantsForUser(String username, String userId) {
+        Set<String> tenantIds = membershipIndex.getSwitchableTenantIds(username, userId);
+        if (tenantIds.isEmpty()) {
+            return List.of();
+        }
+        // Una sola consulta para todos los tenants en lugar de una por cuenta
+        return tenantRepository.findByTenantIdIn(tenantIds).stream()
+                .sorted(Comparator.comparing(Tenant::getTenantId))
                 .toList();
     }
 
@@ -66,6 +76,6 @@ public class UserTenantService {
      * @return true si el usuario existe en ese tenant
      */
     public boolean userExistsInTenant(String username, String tenantId) {
-        return userRepository.existsByUsernameAndTenantId(username, tenantId);
+        return membershipIndex.hasAccount(username, tenantId);
     }
 }
@@ -0,0 +1,115 @@
+package com.scalar.identityProvider;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.identityProvider.utils.TenantUtils;
+
+/**
+ * Base of the tests that go through the HTTP API on the inmemory profile. The application context
+ * (and so the in-memory data) is shared by every test, so each test creates its own tenants.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"inmemory", "test"})
+public abstract class AuthApiTestSupport {
+
+	protected static final String PASSWORD = "password123";
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	protected MockMvc mockMvc;
+
+	@Autowired
+	protected ObjectMapper objectMapper;
+
+	/**
+	 * Get a tenant name no other test uses.
+	 *
+	 * @param prefix A short prefix, lowercase.
+	 * @return The tenant name, also a valid tenantId.
+	 */
+	protected static String uniqueTenantName(String prefix) {
+		return prefix + "-" + SEQUENCE.incrementAndGet();
+	}
+
+	/**
+	 * Create a tenant with its admin through signup.
+	 *
+	 * @param tenantName The tenant name.
+	 * @param username The username of the admin.
+	 * @return The tenantId.
+	 */
+	protected String signup(String tenantName, String username) throws Exception {
+		String tenantId = TenantUtils.generateTenantId(tenantName);
+		mockMvc.perform(post("/api/auth/signup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of(
+						"username", username,
+						"firstName", username,
+						"lastName", "Test",
+						"email", username + "@" + tenantId + ".test",
+						"password", PASSWORD,
+						"tenantName", tenantName))))
+				.andExpect(status().isOk());
+		return tenantId;
+	}
+
+	/**
+	 * Sign in and return the response body.
+	 *
+	 * @param username The username.
+	 * @param tenantId The tenantId.
+	 * @return The signin response.
+	 */
+	protected JsonNode signin(String username, String tenantId) throws Exception {
+		return body(mockMvc.perform(post("/api/auth/signin")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("username", username, "password", PASSWORD, "tenantId", tenantId))))
+				.andExpect(status().isOk()));
+	}
+
+	/**
+	 * Sign in and return the access token.
+	 *
+	 * @param username The username.
+	 * @param tenantId The tenantId.
+	 * @return The access token.
+	 */
+	protected String signinToken(String username, String tenantId) throws Exception {
+		return signin(username, tenantId).get("accessToken").asText();
+	}
+
+	protected static String bearer(String token) {
+		return "Bearer " + token;
+	}
+
+	protected static HttpHeaders bearerHeaders(String token) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.AUTHORIZATION, bearer(token));
+		return headers;
+	}
+
+	protected String json(Object value) throws Exception {
+		return objectMapper.writeValueAsString(value);
+	}
+
+	protected JsonNode body(ResultActions result) throws Exception {
+		return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+	}
+}
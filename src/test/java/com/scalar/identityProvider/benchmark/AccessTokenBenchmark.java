@@ -0,0 +1,135 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.security.SecurityEventAggregator;
+import com.scalar.identityProvider.security.jwt.JwtUtils;
+import com.scalar.identityProvider.security.session.AccessTokenService;
+import com.scalar.identityProvider.security.session.OpaqueSessionStore;
+import com.scalar.identityProvider.security.session.SessionSubject;
+
+/**
+ * Per-request cost of resolving an access token: JWT verification against an opaque handle
+ * lookup in a store holding {@code sessions} sessions, on or off heap. Handles are drawn from a pool of 4096 so lookups do not hit a single cached slot.
+ * Without MongoDB, unknown handles are rejected from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AccessTokenBenchmark {
+
+	private static final int HANDLE_POOL = 4096;
+
+	@Param({"10000", "1000000"})
+	private int sessions;
+
+	@Param({"false", "true"})
+	private boolean offHeap;
+
+	private final SecurityEventAggregator securityEventAggregator = new SecurityEventAggregator();
+
+	private final JwtUtils jwtUtils = new JwtUtils();
+
+	private final OpaqueSessionStore opaqueSessionStore = new OpaqueSessionStore();
+
+	private final AccessTokenService jwtTokens = new AccessTokenService();
+
+	private final AccessTokenService opaqueTokens = new AccessTokenService();
+
+	private final String[] handles = new String[HANDLE_POOL];
+
+	private String jwt;
+
+	private String unknownHandle;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+	}
+
+	@Setup
+	public void setup() {
+		ReflectionTestUtils.setField(securityEventAggregator, "summaryIntervalMs", 60_000L);
+		ReflectionTestUtils.setField(securityEventAggregator, "maxKeys", 1000);
+		ReflectionTestUtils.setField(securityEventAggregator, "maxExemplars", 100);
+		ReflectionTestUtils.invokeMethod(securityEventAggregator, "init");
+
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(new byte[64]));
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+		ReflectionTestUtils.setField(jwtUtils, "observationRegistry", ObservationRegistry.NOOP);
+		ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(jwtUtils, "securityEventAggregator", securityEventAggregator);
+		ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+
+		ReflectionTestUtils.setField(opaqueSessionStore, "sessionTtlMs", 3_600_000L);
+		ReflectionTestUtils.setField(opaqueSessionStore, "offHeap", offHeap);
+		ReflectionTestUtils.setField(opaqueSessionStore, "flushIntervalMs", 1_000L);
+		ReflectionTestUtils.setField(opaqueSessionStore, "writeQueueSize", 1);
+		ReflectionTestUtils.setField(opaqueSessionStore, "revocationPollMs", 1_000L);
+		ReflectionTestUtils.setField(opaqueSessionStore, "jwtSecret", Base64.getEncoder().encodeToString(new byte[64]));
+		ReflectionTestUtils.invokeMethod(opaqueSessionStore, "init");
+
+		for (AccessTokenService service : new AccessTokenService[] {jwtTokens, opaqueTokens}) {
+			ReflectionTestUtils.setField(service, "tokenMode", service == jwtTokens ? "jwt" : "opaque");
+			ReflectionTestUtils.setField(service, "jwtUtils", jwtUtils);
+			ReflectionTestUtils.setField(service, "opaqueSessionStore", opaqueSessionStore);
+			ReflectionTestUtils.setField(service, "securityEventAggregator", securityEventAggregator);
+		}
+
+		for (int i = 0; i < sessions; i++) {
+			String handle = opaqueSessionStore.create(new SessionSubject("user" + (i % 10_000), "tenant" + (i % 100)));
+			if (i % (sessions / HANDLE_POOL) == 0 && i / (sessions / HANDLE_POOL) < HANDLE_POOL) {
+				handles[i / (sessions / HANDLE_POOL)] = handle;
+			}
+		}
+		jwt = jwtTokens.issue("bench", "tenant0");
+		unknownHandle = "QQQQQQQQQQQQQQQQQQQQQQQQQQQQQQQQ";
+
+		System.out.printf("%nToken length: jwt=%d opaque=%d, sessions in memory=%d%n",
+				jwt.length(), handles[0].length(), opaqueSessionStore.size());
+	}
+
+	@TearDown
+	public void tearDown() {
+		opaqueSessionStore.destroy();
+		securityEventAggregator.destroy();
+	}
+
+	@Benchmark
+	public SessionSubject verifyJwt() {
+		return jwtTokens.verify(jwt);
+	}
+
+	@Benchmark
+	public SessionSubject verifyOpaque(Cursor cursor) {
+		return opaqueTokens.verify(handles[cursor.next++ & (HANDLE_POOL - 1)]);
+	}
+
+	@Benchmark
+	public SessionSubject verifyUnknownOpaque() {
+		return opaqueTokens.verify(unknownHandle);
+	}
+}
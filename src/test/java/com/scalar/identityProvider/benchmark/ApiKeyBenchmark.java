@@ -0,0 +1,92 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.repository.inmemory.InMemoryApiKeyRepository;
+import com.scalar.identityProvider.repository.inmemory.InMemoryTenantRepository;
+import com.scalar.identityProvider.security.services.ApiKeyDetails;
+import com.scalar.identityProvider.services.ApiKeyService;
+import com.scalar.identityProvider.services.ResourceVersions;
+
+/**
+ * API key validation as done by ApiKeyAuthFilter: a prefix map lookup, a SHA-256 and the usage
+ * counter, with the keys of every tenant in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ApiKeyBenchmark {
+
+	@Param({"1000", "100000"})
+	public int keys;
+
+	private final ApiKeyService apiKeyService = new ApiKeyService();
+
+	private String[] issuedKeys;
+
+	private String unknownKey;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+	}
+
+	@Setup
+	public void setup() {
+		InMemoryTenantRepository tenantRepository = new InMemoryTenantRepository();
+		for (int i = 0; i < 100; i++) {
+			tenantRepository.save(new Tenant("tenant" + i, "tenant" + i));
+		}
+		ReflectionTestUtils.setField(apiKeyService, "apiKeyRepository", new InMemoryApiKeyRepository());
+		ReflectionTestUtils.setField(apiKeyService, "tenantRepository", tenantRepository);
+		ReflectionTestUtils.setField(apiKeyService, "resourceVersions", new ResourceVersions());
+		ReflectionTestUtils.setField(apiKeyService, "refreshIntervalMs", 3_600_000L);
+		ReflectionTestUtils.setField(apiKeyService, "usageFlushIntervalMs", 1_000L);
+		ReflectionTestUtils.invokeMethod(apiKeyService, "init");
+
+		issuedKeys = new String[keys];
+		for (int i = 0; i < keys; i++) {
+			issuedKeys[i] = apiKeyService.create("tenant" + (i % 100), "bench", EnumSet.of(EmployeeRole.ROLE_USER)).key();
+		}
+		// Right prefix, wrong secret
+		String known = issuedKeys[0];
+		unknownKey = known.substring(0, known.length() - 1) + (known.endsWith("A") ? "B" : "A");
+	}
+
+	@TearDown
+	public void tearDown() {
+		apiKeyService.destroy();
+	}
+
+	@Benchmark
+	public ApiKeyDetails authenticate(Cursor cursor) {
+		return apiKeyService.authenticate(issuedKeys[Math.floorMod(cursor.next++, keys)]).orElseThrow();
+	}
+
+	@Benchmark
+	public boolean authenticateWrongSecret() {
+		return apiKeyService.authenticate(unknownKey).isPresent();
+	}
+}
@@ -0,0 +1,91 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Permission;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.security.authorization.PermissionAuthorizationManager;
+import com.scalar.identityProvider.security.authorization.RequiresPermission;
+import com.scalar.identityProvider.security.services.UserDetailsImpl;
+
+/**
+ * Compare the SpEL {@code @PreAuthorize} check with the permission mask check for the same rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+	/**
+	 * Endpoints guarded the old and the new way.
+	 */
+	public static class Endpoints {
+
+		@PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+		public void expression() {
+		}
+
+		@RequiresPermission(Permission.MEMBERSHIP_MANAGE)
+		public void permission() {
+		}
+	}
+
+	private final PreAuthorizeAuthorizationManager expressionManager = new PreAuthorizeAuthorizationManager();
+
+	private final PermissionAuthorizationManager permissionManager = new PermissionAuthorizationManager();
+
+	private MethodInvocation expressionInvocation;
+
+	private MethodInvocation permissionInvocation;
+
+	private Supplier<Authentication> authentication;
+
+	@Setup
+	public void setup() throws Exception {
+		Endpoints endpoints = new Endpoints();
+		expressionInvocation = new SimpleMethodInvocation(endpoints, Endpoints.class.getMethod("expression"));
+		permissionInvocation = new SimpleMethodInvocation(endpoints, Endpoints.class.getMethod("permission"));
+
+		User user = new User("bench", "Bench", "User", "bench@example.com", "secret", "bench");
+		user.setRoles(Set.of(new Role(EmployeeRole.ROLE_USER, "bench"), new Role(EmployeeRole.ROLE_ADMIN, "bench")));
+		UserDetailsImpl principal = UserDetailsImpl.build(user);
+
+		Authentication token = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+		authentication = () -> token;
+	}
+
+	@Benchmark
+	public AuthorizationDecision expression() {
+		return expressionManager.check(authentication, expressionInvocation);
+	}
+
+	@Benchmark
+	public AuthorizationDecision permission() {
+		return permissionManager.check(authentication, permissionInvocation);
+	}
+}
@@ -0,0 +1,61 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.security.client.ClientSecretHasher;
+
+/**
+ * Client secret verification with the keyed hash of the client_credentials grant, against the
+ * BCrypt verification (cost 10) a service account pays when it signs in as a user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ClientSecretBenchmark {
+
+	private final ClientSecretHasher hasher = new ClientSecretHasher();
+
+	private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+
+	private String secret;
+
+	private String secretHash;
+
+	private String bcryptHash;
+
+	@Setup
+	public void setup() {
+		ReflectionTestUtils.setField(hasher, "clientSecretKey", Base64.getEncoder().encodeToString(new byte[64]));
+		ReflectionTestUtils.invokeMethod(hasher, "init");
+		secret = hasher.newSecret();
+		secretHash = hasher.hash(secret);
+		bcryptHash = bcrypt.encode(secret);
+	}
+
+	@Benchmark
+	public boolean hmacMatches() {
+		return hasher.matches(secret, secretHash);
+	}
+
+	@Benchmark
+	public boolean bcryptMatches() {
+		return bcrypt.matches(secret, bcryptHash);
+	}
+}
@@ -0,0 +1,122 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.security.SecurityEventAggregator;
+import com.scalar.identityProvider.security.TenantContext;
+import com.scalar.identityProvider.security.jwt.JwtUtils;
+import com.scalar.identityProvider.security.services.UserDetailsImpl;
+
+/**
+ * Token generation, validation and claim extraction as done on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+	private static final String TENANT = "bench";
+
+	private final JwtUtils jwtUtils = new JwtUtils();
+
+	private final SecurityEventAggregator securityEventAggregator = new SecurityEventAggregator();
+
+	private Authentication authentication;
+
+	private String token;
+
+	private String expiredToken;
+
+	@Setup
+	public void setup() {
+		ReflectionTestUtils.setField(securityEventAggregator, "summaryIntervalMs", 60_000L);
+		ReflectionTestUtils.setField(securityEventAggregator, "maxKeys", 1000);
+		ReflectionTestUtils.setField(securityEventAggregator, "maxExemplars", 100);
+		ReflectionTestUtils.invokeMethod(securityEventAggregator, "init");
+
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(new byte[64]));
+		ReflectionTestUtils.setField(jwtUtils, "observationRegistry", ObservationRegistry.NOOP);
+		ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(jwtUtils, "securityEventAggregator", securityEventAggregator);
+
+		// Token issued already expired, to measure the rejection path
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -60_000);
+		ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+		expiredToken = jwtUtils.generateTenantScopedToken("bench", TENANT);
+
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+		token = jwtUtils.generateTenantScopedToken("bench", TENANT);
+
+		User user = new User("bench", "Bench", "User", "bench@example.com", "secret", TENANT);
+		user.setRoles(Set.of(new Role(EmployeeRole.ROLE_ADMIN, TENANT)));
+		UserDetailsImpl principal = UserDetailsImpl.build(user);
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+
+	@TearDown
+	public void tearDown() {
+		securityEventAggregator.destroy();
+	}
+
+	@Benchmark
+	public String generateJwtToken() {
+		return TenantContext.callWhere(TENANT, () -> jwtUtils.generateJwtToken(authentication));
+	}
+
+	@Benchmark
+	public boolean validateJwtToken() {
+		return jwtUtils.validateJwtToken(token);
+	}
+
+	@Benchmark
+	public boolean validateExpiredJwtToken() {
+		return jwtUtils.validateJwtToken(expiredToken);
+	}
+
+	/**
+	 * What the filter did before: validate, then parse again for each claim.
+	 */
+	@Benchmark
+	public String validateThenExtractClaims() {
+		if (!jwtUtils.validateJwtToken(token)) {
+			return null;
+		}
+		return jwtUtils.getUserNameFromJwtToken(token) + jwtUtils.getTenantIdFromJwtToken(token);
+	}
+
+	/**
+	 * What the filter does now: one parse for validation and claims.
+	 */
+	@Benchmark
+	public String validateAndGetClaims() {
+		Claims claims = jwtUtils.validateAndGetClaims(token);
+		return claims.getSubject() + claims.get("tenantId", String.class);
+	}
+}
@@ -0,0 +1,343 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.identityProvider.IdentityProviderApplication;
+
+/**
+ * In-process end-to-end load test.
+ * <p>
+ * Boots the application on a random port against a local mongod, seeds {@code tenants} tenants with
+ * {@code users} users each through the public API, then drives a weighted mix of signins,
+ * token-authenticated GETs, tenant switches and admin listings at a fixed arrival rate (open model).
+ * Latency is measured from the intended start of each request rather than from when it was actually
+ * sent, which corrects coordinated omission when the server or the generator falls behind.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.scalar.identityProvider.benchmark.LoadTestHarness \
+ *     -Dexec.args="tenants=10 users=50 rate=500 duration=60 warmup=15 mix=signin=10,user-tenants=50,switch-tenant=10,admin-list=30"
+ * </pre>
+ *
+ * Use a dedicated database ({@code mongo=mongodb://localhost:27017/identity_provider_loadtest} by default):
+ * the seeded tenants are left in place. Rate limiting is disabled for the run.
+ * With {@code profile=inmemory} no mongod is needed and the run measures the application without
+ * database latency.
+ */
+public class LoadTestHarness {
+
+	private static final String ADMIN = "loadadmin";
+	private static final String PASSWORD = "loadtestpassword";
+
+	/**
+	 * Users per tenant signed in during seeding to drive the token-authenticated requests.
+	 */
+	private static final int TOKENS_PER_TENANT = 10;
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private static final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(2))
+			.build();
+
+	/**
+	 * Operations of the workload mix.
+	 */
+	private enum Operation {
+		SIGNIN("signin"),
+		USER_TENANTS("user-tenants"),
+		SWITCH_TENANT("switch-tenant"),
+		ADMIN_LIST("admin-list");
+
+		private final String key;
+
+		Operation(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * A seeded tenant with its admin token, usernames and signed-in user tokens.
+	 */
+	private record SeededTenant(String tenantId, String adminToken, List<String> usernames, List<String> userTokens) {
+	}
+
+	private static int port;
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			options.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+		int tenants = Integer.parseInt(options.getOrDefault("tenants", "5"));
+		int users = Integer.parseInt(options.getOrDefault("users", "20"));
+		int rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+		int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+		Operation[] wheel = parseMix(options.getOrDefault("mix", "signin=10,user-tenants=50,switch-tenant=10,admin-list=30"));
+		String mongo = options.getOrDefault("mongo", "mongodb://localhost:27017/identity_provider_loadtest");
+		String profile = options.getOrDefault("profile", "default");
+
+		String jwtSecret = System.getenv("JWT_SECRET") != null
+				? System.getenv("JWT_SECRET")
+				: Base64.getEncoder().encodeToString(randomBytes(64));
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(IdentityProviderApplication.class)
+				.run("--server.port=0",
+						"--spring.application.name=identity-provider-loadtest",
+						"--spring.profiles.active=" + profile,
+						"--spring.data.mongodb.uri=" + mongo,
+						"--jwtSecret=" + jwtSecret,
+						"--jwtExpirationMs=3600000",
+						"--rate-limit.enabled=false",
+						"--logging.level.root=WARN")) {
+			port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+			System.out.printf("Seeding %d tenants x %d users...%n", tenants, users);
+			List<SeededTenant> seeded = seed(tenants, users);
+
+			System.out.printf("Running %d req/s for %d s after %d s of warmup...%n", rate, duration, warmup);
+			run(seeded, wheel, rate, warmup, duration);
+		}
+	}
+
+	/**
+	 * Expand the mix ({@code operation=weight,...}) into a wheel picked uniformly at random.
+	 */
+	private static Operation[] parseMix(String mix) {
+		List<Operation> wheel = new ArrayList<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.split("=");
+			Operation operation = null;
+			for (Operation candidate : Operation.values()) {
+				if (candidate.key.equals(parts[0].trim())) {
+					operation = candidate;
+				}
+			}
+			if (operation == null) {
+				throw new IllegalArgumentException("Unknown operation in mix: " + parts[0]);
+			}
+			for (int i = 0; i < Integer.parseInt(parts[1].trim()); i++) {
+				wheel.add(operation);
+			}
+		}
+		return wheel.toArray(Operation[]::new);
+	}
+
+	/**
+	 * Create the tenants, their admins (same username in every tenant, so it can switch
+	 * between them) and users, and sign in part of the users.
+	 */
+	private static List<SeededTenant> seed(int tenants, int users) throws Exception {
+		String run = Long.toString(System.currentTimeMillis() % 1_000_000, 36);
+		List<SeededTenant> seeded = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			// Password hashing dominates seeding, keep it to a few requests at a time
+			Semaphore permits = new Semaphore(Runtime.getRuntime().availableProcessors());
+			for (int t = 0; t < tenants; t++) {
+				String tenantId = "lt" + run + "-" + t;
+				expectOk(send("POST", "/api/auth/signup", null, """
+						{"username":"%s","firstName":"Load","lastName":"Admin","email":"admin@%s.example",\
+						"password":"%s","tenantName":"%s"}""".formatted(ADMIN, tenantId, PASSWORD, tenantId)));
+				String adminToken = signin(ADMIN, tenantId);
+
+				List<String> usernames = new ArrayList<>();
+				List<Future<HttpResponse<String>>> created = new ArrayList<>();
+				for (int u = 0; u < users; u++) {
+					String username = "user" + u;
+					usernames.add(username);
+					created.add(executor.submit(() -> withPermit(permits, () -> send("POST", "/api/admin/users/create", adminToken, """
+							{"username":"%s","firstName":"Load","lastName":"User","email":"%s@%s.example","password":"%s"}\
+							""".formatted(username, username, tenantId, PASSWORD)))));
+				}
+				for (Future<HttpResponse<String>> response : created) {
+					expectOk(response.get());
+				}
+
+				List<Future<String>> signins = new ArrayList<>();
+				for (String username : usernames.subList(0, Math.min(TOKENS_PER_TENANT, usernames.size()))) {
+					signins.add(executor.submit(() -> withPermit(permits, () -> signin(username, tenantId))));
+				}
+				List<String> userTokens = new ArrayList<>();
+				for (Future<String> token : signins) {
+					userTokens.add(token.get());
+				}
+				if (userTokens.isEmpty()) {
+					userTokens.add(adminToken);
+				}
+				seeded.add(new SeededTenant(tenantId, adminToken, usernames, userTokens));
+			}
+		}
+		return seeded;
+	}
+
+	/**
+	 * Issue requests at the fixed rate and report latency per operation.
+	 */
+	private static void run(List<SeededTenant> seeded, Operation[] wheel, int rate, int warmup, int duration)
+			throws InterruptedException {
+		Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+		Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			histograms.put(operation, new ConcurrentHistogram(3));
+			errors.put(operation, new LongAdder());
+		}
+
+		long period = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime() + period;
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+		long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (long i = 0; ; i++) {
+				// Arrival times are fixed in advance, independently of how fast responses come back
+				long intendedStart = start + i * period;
+				if (intendedStart >= end) {
+					break;
+				}
+				long wait = intendedStart - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				Operation operation = wheel[ThreadLocalRandom.current().nextInt(wheel.length)];
+				executor.submit(() -> {
+					boolean ok = execute(operation, seeded);
+					if (intendedStart >= measureFrom) {
+						histograms.get(operation).recordValue(System.nanoTime() - intendedStart);
+						if (!ok) {
+							errors.get(operation).increment();
+						}
+					}
+				});
+			}
+		}
+
+		System.out.printf("%-14s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+				"operation", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+		Histogram total = new Histogram(3);
+		long totalErrors = 0;
+		for (Operation operation : Operation.values()) {
+			Histogram histogram = histograms.get(operation);
+			if (histogram.getTotalCount() > 0) {
+				print(operation.key, histogram, errors.get(operation).sum(), duration);
+				total.add(histogram);
+				totalErrors += errors.get(operation).sum();
+			}
+		}
+		print("total", total, totalErrors, duration);
+	}
+
+	private static void print(String name, Histogram histogram, long errors, int duration) {
+		System.out.printf("%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+				histogram.getTotalCount() / (double) duration,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(95)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getMaxValue()));
+	}
+
+	/**
+	 * Run one operation against random seeded data.
+	 *
+	 * @return Whether the response was successful.
+	 */
+	private static boolean execute(Operation operation, List<SeededTenant> seeded) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		SeededTenant tenant = seeded.get(random.nextInt(seeded.size()));
+		try {
+			HttpResponse<String> response = switch (operation) {
+				case SIGNIN -> send("POST", "/api/auth/signin", null, """
+						{"username":"%s","password":"%s","tenantId":"%s"}""".formatted(
+						tenant.usernames().isEmpty() ? ADMIN : tenant.usernames().get(random.nextInt(tenant.usernames().size())),
+						PASSWORD, tenant.tenantId()));
+				case USER_TENANTS -> send("GET", "/api/auth/user-tenants",
+						tenant.userTokens().get(random.nextInt(tenant.userTokens().size())), null);
+				case SWITCH_TENANT -> send("POST", "/api/auth/switch-tenant", tenant.adminToken(), """
+						{"tenantId":"%s"}""".formatted(seeded.get(random.nextInt(seeded.size())).tenantId()));
+				case ADMIN_LIST -> send("GET", "/api/admin/users/list", tenant.adminToken(), null);
+			};
+			return response.statusCode() / 100 == 2;
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static String signin(String username, String tenantId) throws Exception {
+		HttpResponse<String> response = send("POST", "/api/auth/signin", null, """
+				{"username":"%s","password":"%s","tenantId":"%s"}""".formatted(username, PASSWORD, tenantId));
+		expectOk(response);
+		return objectMapper.readTree(response.body()).get("accessToken").asText();
+	}
+
+	private static HttpResponse<String> send(String method, String path, String token, String body)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(REQUEST_TIMEOUT);
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		if (body == null) {
+			request.GET();
+		} else {
+			request.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofString(body));
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static void expectOk(HttpResponse<String> response) {
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+		}
+	}
+
+	private static <T> T withPermit(Semaphore permits, Callable<T> task) throws Exception {
+		permits.acquire();
+		try {
+			return task.call();
+		} finally {
+			permits.release();
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		ThreadLocalRandom.current().nextBytes(bytes);
+		return bytes;
+	}
+}
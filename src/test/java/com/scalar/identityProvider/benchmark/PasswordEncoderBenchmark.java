@@ -0,0 +1,53 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt hashing and verification at several cost factors; 10 is the default of WebSecurityConfig.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+	private static final String PASSWORD = "correct horse battery staple";
+
+	@Param({"4", "8", "10", "12"})
+	public int strength;
+
+	private BCryptPasswordEncoder encoder;
+
+	private String hash;
+
+	@Setup
+	public void setup() {
+		encoder = new BCryptPasswordEncoder(strength);
+		hash = encoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public String encode() {
+		return encoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return encoder.matches(PASSWORD, hash);
+	}
+}
@@ -0,0 +1,139 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Role;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.payload.response.JwtResponse;
+import com.scalar.identityProvider.payload.response.MessageResponse;
+import com.scalar.identityProvider.payload.response.UserResponse;
+import com.scalar.identityProvider.security.services.UserDetailsImpl;
+
+/**
+ * Jackson serialization of the signin response, message responses, a user document and an
+ * admin user listing, with the ObjectMapper configured as Spring MVC does (with and without
+ * Blackbird), plus building the security principal. Bytes per response are printed at setup;
+ * run with {@code -prof gc} (the jmh profile does) for allocated bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"default", "blackbird"})
+	private String mapper;
+
+	private ObjectMapper objectMapper;
+
+	private JwtResponse jwtResponse;
+
+	private MessageResponse constantMessage;
+
+	private MessageResponse dynamicMessage;
+
+	private User user;
+
+	private UserResponse userResponse;
+
+	private List<User> users;
+
+	private List<UserResponse> userResponses;
+
+	@Setup
+	public void setup() throws Exception {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		if (mapper.equals("blackbird")) {
+			builder.modulesToInstall(new BlackbirdModule());
+		}
+		objectMapper = builder.build();
+
+		user = user("bench");
+		userResponse = UserResponse.from(user);
+		users = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			users.add(user("bench" + i));
+		}
+		userResponses = users.stream().map(UserResponse::from).toList();
+		jwtResponse = new JwtResponse("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJiZW5jaCJ9.signature", "64b0c0ffee",
+				"bench", "bench@example.com", List.of("ROLE_ADMIN", "ROLE_USER"));
+		constantMessage = MessageResponse.of("Error: Tenant no encontrado!");
+		dynamicMessage = new MessageResponse("Error: Tenant no encontrado!");
+
+		System.out.printf("%nBytes per response: jwt=%d message=%d user=%d userResponse=%d users=%d userResponses=%d%n",
+				serializeJwtResponse().length, serializeConstantMessage().length, serializeUser().length,
+				serializeUserResponse().length, serializeUserList().length, serializeUserResponseList().length);
+	}
+
+	private static User user(String username) {
+		User user = new User(username, "Bench", "User", username + "@example.com", "$2a$10$abcdefghijklmnopqrstuv", "bench");
+		user.setId("64b0c0ffee" + username);
+		user.setRoles(Set.of(new Role(EmployeeRole.ROLE_USER, "bench"), new Role(EmployeeRole.ROLE_ADMIN, "bench")));
+		return user;
+	}
+
+	@Benchmark
+	public byte[] serializeJwtResponse() throws Exception {
+		return objectMapper.writeValueAsBytes(jwtResponse);
+	}
+
+	@Benchmark
+	public byte[] serializeConstantMessage() throws Exception {
+		return objectMapper.writeValueAsBytes(constantMessage);
+	}
+
+	@Benchmark
+	public byte[] serializeDynamicMessage() throws Exception {
+		return objectMapper.writeValueAsBytes(dynamicMessage);
+	}
+
+	/**
+	 * The entity as the user endpoints returned it before the response DTOs, as a baseline.
+	 */
+	@Benchmark
+	public byte[] serializeUser() throws Exception {
+		return objectMapper.writeValueAsBytes(user);
+	}
+
+	@Benchmark
+	public byte[] serializeUserResponse() throws Exception {
+		return objectMapper.writeValueAsBytes(userResponse);
+	}
+
+	@Benchmark
+	public byte[] serializeUserList() throws Exception {
+		return objectMapper.writeValueAsBytes(users);
+	}
+
+	@Benchmark
+	public byte[] serializeUserResponseList() throws Exception {
+		return objectMapper.writeValueAsBytes(userResponses);
+	}
+
+	@Benchmark
+	public UserDetailsImpl buildUserDetails() {
+		return UserDetailsImpl.build(user);
+	}
+}
@@ -0,0 +1,162 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold-start benchmark comparing the plain executable jar with the AOT cache build.
+ * <p>
+ * Every run starts a fresh JVM and measures the time until the first successful
+ * response of a public endpoint (readiness) and of {@code /api/auth/signin}.
+ * It only depends on the JDK, so it can be launched directly from the source file
+ * after {@code mvn -Paot-cache package}:
+ *
+ * <pre>
+ * java src/test/java/com/scalar/identityProvider/benchmark/StartupBenchmark.java [runs] [port]
+ * </pre>
+ *
+ * The application reads its configuration from the environment or the .env file as usual.
+ */
+public class StartupBenchmark {
+
+	private static final String TENANT_NAME = "startup-bench";
+	private static final String USERNAME = "benchadmin";
+	private static final String PASSWORD = "benchpassword";
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+	private static final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofMillis(200))
+			.build();
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 18080;
+
+		Path target = Path.of("target");
+		String jarName = "identityProvider-0.0.1-SNAPSHOT.jar";
+		Path extracted = target.resolve("aot-cache").toAbsolutePath();
+
+		Map<String, List<String>> variants = new LinkedHashMap<>();
+		variants.put("jar", List.of("-jar", target.resolve(jarName).toAbsolutePath().toString()));
+		if (Files.exists(extracted.resolve("app.aot"))) {
+			variants.put("aot-cache", List.of(
+					"-XX:AOTCache=" + extracted.resolve("app.aot"),
+					"-Dspring.aot.enabled=true",
+					"-jar", extracted.resolve(jarName).toString()));
+		} else {
+			System.out.println("No AOT cache found, run 'mvn -Paot-cache package' to include it");
+		}
+
+		// Make sure the benchmark account exists before measuring
+		seedAccount(variants.get("jar"), port);
+
+		for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+			List<Long> ready = new ArrayList<>();
+			List<Long> signin = new ArrayList<>();
+			for (int i = 0; i < runs; i++) {
+				long[] timings = measure(variant.getValue(), port);
+				ready.add(timings[0]);
+				signin.add(timings[1]);
+			}
+			System.out.printf("%-10s readiness ms: %s%n", variant.getKey(), summary(ready));
+			System.out.printf("%-10s first signin ms: %s%n", variant.getKey(), summary(signin));
+		}
+	}
+
+	/**
+	 * Start the application once and register the benchmark tenant and admin user.
+	 */
+	private static void seedAccount(List<String> launch, int port) throws Exception {
+		Process process = start(launch, port);
+		try {
+			long deadline = System.nanoTime() + TIMEOUT.toNanos();
+			awaitStatus(port, "GET", "/api/test/all", null, deadline);
+			send(port, "POST", "/api/auth/signup", """
+					{"username":"%s","firstName":"Bench","lastName":"Admin","email":"bench@example.com",\
+					"password":"%s","tenantName":"%s"}""".formatted(USERNAME, PASSWORD, TENANT_NAME));
+		} finally {
+			stop(process);
+		}
+	}
+
+	/**
+	 * Start the application and return the milliseconds to readiness and to the first signin.
+	 */
+	private static long[] measure(List<String> launch, int port) throws Exception {
+		long start = System.nanoTime();
+		Process process = start(launch, port);
+		try {
+			long deadline = start + TIMEOUT.toNanos();
+			awaitStatus(port, "GET", "/api/test/all", null, deadline);
+			long ready = System.nanoTime();
+			awaitStatus(port, "POST", "/api/auth/signin", """
+					{"username":"%s","password":"%s","tenantId":"%s"}""".formatted(USERNAME, PASSWORD, TENANT_NAME), deadline);
+			long signin = System.nanoTime();
+			return new long[] { (ready - start) / 1_000_000, (signin - start) / 1_000_000 };
+		} finally {
+			stop(process);
+		}
+	}
+
+	private static Process start(List<String> launch, int port) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(launch);
+		command.add("--server.port=" + port);
+		return new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.start();
+	}
+
+	private static void stop(Process process) throws InterruptedException {
+		process.destroy();
+		process.waitFor();
+	}
+
+	/**
+	 * Poll an endpoint until it answers 200 or the deadline passes.
+	 */
+	private static void awaitStatus(int port, String method, String path, String body, long deadline) throws Exception {
+		while (System.nanoTime() < deadline) {
+			try {
+				if (send(port, method, path, body) == 200) {
+					return;
+				}
+			} catch (IOException e) {
+				// Not listening yet
+			}
+			Thread.sleep(5);
+		}
+		throw new IllegalStateException("Timed out waiting for " + method + " " + path);
+	}
+
+	private static int send(int port, String method, String path, String body) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(Duration.ofSeconds(10));
+		if (body == null) {
+			request.GET();
+		} else {
+			request.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofString(body));
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private static String summary(List<Long> values) {
+		List<Long> sorted = values.stream().sorted().toList();
+		return "min=%d median=%d max=%d".formatted(
+				sorted.getFirst(), sorted.get(sorted.size() / 2), sorted.getLast());
+	}
+}
@@ -0,0 +1,89 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.scalar.identityProvider.security.TenantContext;
+
+/**
+ * Compare the cost of reading and binding the tenant with the ScopedValue based
+ * {@link TenantContext} against the previous ThreadLocal implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantContextBenchmark {
+
+	private static final String TENANT = "benchmark-tenant";
+
+	/**
+	 * Reads per invocation, roughly what one request does across filter, services and repositories.
+	 */
+	private static final int READS = 16;
+
+	private static final ThreadLocal<String> THREAD_LOCAL = new ThreadLocal<>();
+
+	@Setup
+	public void setUp() {
+		THREAD_LOCAL.set(TENANT);
+	}
+
+	@TearDown
+	public void tearDown() {
+		THREAD_LOCAL.remove();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void threadLocalGet(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(THREAD_LOCAL.get());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void scopedValueGet(Blackhole blackhole) {
+		TenantContext.runWhere(TENANT, () -> {
+			for (int i = 0; i < READS; i++) {
+				blackhole.consume(TenantContext.getCurrentTenant());
+			}
+		});
+	}
+
+	@Benchmark
+	public String threadLocalBindAndGet() {
+		THREAD_LOCAL.set(TENANT);
+		try {
+			return THREAD_LOCAL.get();
+		} finally {
+			THREAD_LOCAL.remove();
+		}
+	}
+
+	@Benchmark
+	public String scopedValueBindAndGet() {
+		return TenantContext.callWhere(TENANT, TenantContext::getCurrentTenant);
+	}
+
+	@Benchmark
+	public String scopedValuePropagatedToTask() {
+		return TenantContext.callWhere(TENANT, () -> TenantContext.wrapSupplier(TenantContext::getCurrentTenant)).get();
+	}
+}
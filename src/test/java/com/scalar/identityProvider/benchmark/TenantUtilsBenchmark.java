@@ -0,0 +1,50 @@
+package com.scalar.identityProvider.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.scalar.identityProvider.utils.TenantUtils;
+
+/**
+ * Tenant id generation (signup) and validation; both run regular expressions on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantUtilsBenchmark {
+
+	private static final String[] TENANT_NAMES = {
+			"Acme Corporation International", "Globex Holdings Limited", "  Café Müller & Söhne Gesellschaft  "};
+
+	private static final String[] TENANT_IDS = {"acme", "acme-corporation-int", "-invalid-"};
+
+	@Benchmark
+	@OperationsPerInvocation(3)
+	public void generateTenantId(Blackhole blackhole) {
+		for (String tenantName : TENANT_NAMES) {
+			blackhole.consume(TenantUtils.generateTenantId(tenantName));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(3)
+	public void isValidTenantId(Blackhole blackhole) {
+		for (String tenantId : TENANT_IDS) {
+			blackhole.consume(TenantUtils.isValidTenantId(tenantId));
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.scalar.identityProvider.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MappingMongoEntityInformation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.client.result.UpdateResult;
+import com.scalar.identityProvider.models.User;
+import com.scalar.identityProvider.models.UserTenantRole;
+
+class MongoVersionBackfillTest {
+
+	private final MongoTemplate pooled = mock(MongoTemplate.class);
+
+	private final MongoTemplate dedicated = mock(MongoTemplate.class);
+
+	private final MongoVersionBackfill backfill = new MongoVersionBackfill();
+
+	@BeforeEach
+	void setup() {
+		TenantMongoTemplates tenantMongoTemplates = mock(TenantMongoTemplates.class);
+		when(tenantMongoTemplates.all()).thenReturn(List.of(pooled, dedicated));
+		ReflectionTestUtils.setField(backfill, "mongoTemplate", pooled);
+		ReflectionTestUtils.setField(backfill, "tenantMongoTemplates", tenantMongoTemplates);
+	}
+
+	@Test
+	void legacyUserIsSavedAsAnInsertUntilItHasAVersion() {
+		MongoPersistentEntity<User> entity = new MongoMappingContext().getRequiredPersistentEntity(User.class);
+		MappingMongoEntityInformation<User, String> information = new MappingMongoEntityInformation<>(entity);
+
+		User user = new User("alice", "Alice", "Doe", "alice@example.com", "hash", "tenant1");
+		user.setId("64b000000000000000000001");
+		assertTrue(information.isNew(user), "a loaded document without a version is inserted again by save()");
+
+		user.setVersion(0L);
+		assertFalse(information.isNew(user), "after the backfill save() updates the document");
+	}
+
+	@Test
+	void setsVersionZeroOnlyOnDocumentsWithoutOne() {
+		assertEquals(new Document("version", new Document("$exists", false)),
+				MongoVersionBackfill.UNVERSIONED.getQueryObject());
+		assertEquals(new Document("$set", new Document("version", 0L)),
+				MongoVersionBackfill.INITIAL_VERSION.getUpdateObject());
+	}
+
+	@Test
+	void backfillsUsersOfEveryTargetAndTenantRoleAssignments() {
+		when(pooled.updateMulti(any(Query.class), any(Update.class), eq(User.class)))
+				.thenReturn(UpdateResult.acknowledged(2, 2L, null));
+		when(dedicated.updateMulti(any(Query.class), any(Update.class), eq(User.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+		when(pooled.updateMulti(any(Query.class), any(Update.class), eq(UserTenantRole.class)))
+				.thenReturn(UpdateResult.acknowledged(3, 3L, null));
+
+		assertEquals(6, backfill.backfillVersions());
+		verify(pooled).updateMulti(MongoVersionBackfill.UNVERSIONED, MongoVersionBackfill.INITIAL_VERSION, User.class);
+		verify(dedicated).updateMulti(MongoVersionBackfill.UNVERSIONED, MongoVersionBackfill.INITIAL_VERSION, User.class);
+		verify(pooled).updateMulti(MongoVersionBackfill.UNVERSIONED, MongoVersionBackfill.INITIAL_VERSION,
+				UserTenantRole.class);
+	}
+
+	@Test
+	void unreachableTargetDoesNotStopTheOthers() {
+		when(pooled.updateMulti(any(Query.class), any(Update.class), eq(User.class)))
+				.thenThrow(new DataAccessResourceFailureException("down"));
+		when(dedicated.updateMulti(any(Query.class), any(Update.class), eq(User.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+		when(pooled.updateMulti(any(Query.class), any(Update.class), eq(UserTenantRole.class)))
+				.thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+		assertEquals(1, backfill.backfillVersions());
+	}
+}
@@ -0,0 +1,80 @@
+package com.scalar.identityProvider.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.scalar.identityProvider.AuthApiTestSupport;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@AutoConfigureObservability(metrics = false)
+@TestPropertySource(properties = "management.tracing.sampling.probability=1.0")
+@Import(TracingTest.InMemoryExporterConfig.class)
+class TracingTest extends AuthApiTestSupport {
+
+	private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+	@TestConfiguration
+	static class InMemoryExporterConfig {
+
+		// Added to the SDK like any other SpanExporter bean, see TracingConfig
+		@Bean
+		InMemorySpanExporter inMemorySpanExporter() {
+			return InMemorySpanExporter.create();
+		}
+	}
+
+	@Autowired
+	private InMemorySpanExporter spanExporter;
+
+	@Autowired
+	private SdkTracerProvider tracerProvider;
+
+	@Test
+	void authenticatedRequestContinuesTheTraceWithTheTenant() throws Exception {
+		String tenantId = signup(uniqueTenantName("traced"), "tracy");
+		String token = signinToken("tracy", tenantId);
+		flush();
+		spanExporter.reset();
+
+		mockMvc.perform(get("/api/test/user")
+				.headers(bearerHeaders(token))
+				.header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01"))
+				.andExpect(status().isOk());
+		flush();
+
+		List<SpanData> spans = spanExporter.getFinishedSpanItems();
+		SpanData filter = span(spans, "auth.filter");
+		SpanData verify = span(spans, "auth.jwt.verify");
+		assertEquals(TRACE_ID, filter.getTraceId(), "the incoming traceparent is continued");
+		assertEquals(filter.getSpanId(), verify.getParentSpanId(), "token verification is a child span");
+		assertEquals(tenantId, filter.getAttributes().get(AttributeKey.stringKey("tenant.id")));
+	}
+
+	private void flush() {
+		// Spans are exported in batches; wait for the pending ones
+		tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+	}
+
+	private static SpanData span(List<SpanData> spans, String name) {
+		return spans.stream()
+				.filter(span -> span.getName().equals(name))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No " + name + " span in " + spans.stream().map(SpanData::getName).toList()));
+	}
+}
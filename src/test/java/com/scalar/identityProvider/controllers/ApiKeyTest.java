@@ -0,0 +1,72 @@
+package com.scalar.identityProvider.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.scalar.identityProvider.AuthApiTestSupport;
+import com.scalar.identityProvider.security.apikey.ApiKeyAuthFilter;
+
+class ApiKeyTest extends AuthApiTestSupport {
+
+	@Test
+	void keyAuthenticatesUntilRevoked() throws Exception {
+		String tenantId = signup(uniqueTenantName("keys"), "kadmin");
+		String adminToken = signinToken("kadmin", tenantId);
+		JsonNode apiKey = createKey(adminToken, "user");
+		String key = apiKey.get("key").asText();
+
+		mockMvc.perform(get("/api/test/user").header(ApiKeyAuthFilter.HEADER, key))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(delete("/api/admin/api-keys/" + apiKey.get("prefix").asText()).headers(bearerHeaders(adminToken)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/test/user").header(ApiKeyAuthFilter.HEADER, key))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void wrongSecretIsRejected() throws Exception {
+		String tenantId = signup(uniqueTenantName("keys"), "kadmin");
+		String key = createKey(signinToken("kadmin", tenantId), "user").get("key").asText();
+
+		String altered = key.substring(0, key.length() - 1) + (key.endsWith("A") ? "B" : "A");
+		mockMvc.perform(get("/api/test/user").header(ApiKeyAuthFilter.HEADER, altered))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void adminKeyCannotManageCredentials() throws Exception {
+		String tenantId = signup(uniqueTenantName("keys"), "kadmin");
+		String key = createKey(signinToken("kadmin", tenantId), "admin").get("key").asText();
+
+		mockMvc.perform(get("/api/test/admin").header(ApiKeyAuthFilter.HEADER, key))
+				.andExpect(status().isOk());
+
+		// Neither more keys nor service clients can be created with a key
+		mockMvc.perform(post("/api/admin/api-keys/create")
+				.header(ApiKeyAuthFilter.HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("name", "minted", "roles", List.of("admin")))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/admin/clients/list").header(ApiKeyAuthFilter.HEADER, key))
+				.andExpect(status().isForbidden());
+	}
+
+	private JsonNode createKey(String adminToken, String role) throws Exception {
+		return body(mockMvc.perform(post("/api/admin/api-keys/create")
+				.headers(bearerHeaders(adminToken))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("name", "integration", "roles", List.of(role)))))
+				.andExpect(status().isOk()));
+	}
+}
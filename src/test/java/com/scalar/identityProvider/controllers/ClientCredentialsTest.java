@@ -0,0 +1,94 @@
+package com.scalar.identityProvider.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.scalar.identityProvider.AuthApiTestSupport;
+
+class ClientCredentialsTest extends AuthApiTestSupport {
+
+	@Test
+	void clientGetsATokenForItsTenant() throws Exception {
+		String tenantId = signup(uniqueTenantName("clients"), "cadmin");
+		JsonNode client = createClient(signinToken("cadmin", tenantId));
+
+		JsonNode token = body(mockMvc.perform(post("/api/auth/token")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.header(HttpHeaders.AUTHORIZATION, basic(client.get("clientId").asText(), client.get("clientSecret").asText()))
+				.param("grant_type", "client_credentials"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store")));
+
+		assertEquals("Bearer", token.get("token_type").asText());
+		assertEquals(tenantId, token.get("tenant_id").asText());
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(token.get("access_token").asText())))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void wrongSecretAndUnknownClientAreRejected() throws Exception {
+		String tenantId = signup(uniqueTenantName("clients"), "cadmin");
+		JsonNode client = createClient(signinToken("cadmin", tenantId));
+
+		mockMvc.perform(post("/api/auth/token")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.param("grant_type", "client_credentials")
+				.param("client_id", client.get("clientId").asText())
+				.param("client_secret", "not-the-secret"))
+				.andExpect(status().isUnauthorized())
+				.andExpect(jsonPath("$.error").value("invalid_client"));
+
+		mockMvc.perform(post("/api/auth/token")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.header(HttpHeaders.AUTHORIZATION, basic("no-such-client", client.get("clientSecret").asText()))
+				.param("grant_type", "client_credentials"))
+				.andExpect(status().isUnauthorized())
+				.andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Basic"));
+	}
+
+	@Test
+	void deletedClientCannotGetTokens() throws Exception {
+		String tenantId = signup(uniqueTenantName("clients"), "cadmin");
+		String adminToken = signinToken("cadmin", tenantId);
+		JsonNode client = createClient(adminToken);
+		String clientId = client.get("clientId").asText();
+
+		mockMvc.perform(delete("/api/admin/clients/" + clientId).headers(bearerHeaders(adminToken)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(post("/api/auth/token")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.param("grant_type", "client_credentials")
+				.param("client_id", clientId)
+				.param("client_secret", client.get("clientSecret").asText()))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private JsonNode createClient(String adminToken) throws Exception {
+		return body(mockMvc.perform(post("/api/admin/clients/create")
+				.headers(bearerHeaders(adminToken))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("name", "reporting", "roles", List.of("user")))))
+				.andExpect(status().isOk()));
+	}
+
+	private static String basic(String clientId, String clientSecret) {
+		return "Basic " + Base64.getEncoder()
+				.encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,53 @@
+package com.scalar.identityProvider.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import com.scalar.identityProvider.AuthApiTestSupport;
+
+@TestPropertySource(properties = "authTokenMode=opaque")
+class OpaqueTokenTest extends AuthApiTestSupport {
+
+	@Test
+	void signinIssuesAHandleThatAuthenticates() throws Exception {
+		String tenantId = signup(uniqueTenantName("opaque"), "olivia");
+		String token = signinToken("olivia", tenantId);
+
+		assertEquals(32, token.length());
+		assertFalse(token.contains("."), "not a JWT");
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(token)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void alteredHandleIsRejected() throws Exception {
+		String tenantId = signup(uniqueTenantName("opaque"), "oscar");
+		String token = signinToken("oscar", tenantId);
+
+		String altered = (token.charAt(0) == 'A' ? 'B' : 'A') + token.substring(1);
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(altered)))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void signoutRevokesTheHandle() throws Exception {
+		String tenantId = signup(uniqueTenantName("opaque"), "otto");
+		String token = signinToken("otto", tenantId);
+		String other = signinToken("otto", tenantId);
+
+		mockMvc.perform(post("/api/auth/signout").headers(bearerHeaders(token)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(token)))
+				.andExpect(status().isUnauthorized());
+		// Other sessions of the same user are not affected
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(other)))
+				.andExpect(status().isOk());
+	}
+}
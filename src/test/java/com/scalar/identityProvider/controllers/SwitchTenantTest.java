@@ -0,0 +1,182 @@
+package com.scalar.identityProvider.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.scalar.identityProvider.AuthApiTestSupport;
+
+class SwitchTenantTest extends AuthApiTestSupport {
+
+	@Test
+	void sameUsernameInAnotherTenantIsRejected() throws Exception {
+		String acme = signup(uniqueTenantName("acme"), "alice");
+		// Another person who happens to use the same username
+		String globex = signup(uniqueTenantName("globex"), "alice");
+
+		String token = signinToken("alice", acme);
+
+		mockMvc.perform(post("/api/auth/switch-tenant")
+				.headers(bearerHeaders(token))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("tenantId", globex))))
+				.andExpect(status().isBadRequest());
+
+		// Nor is the other tenant offered
+		mockMvc.perform(get("/api/auth/user-tenants").headers(bearerHeaders(token)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].tenantId").value(acme));
+	}
+
+	@Test
+	void switchUsesTheRolesAssignedToTheCallersAccount() throws Exception {
+		String bobco = signup(uniqueTenantName("bobco"), "bob");
+		String globex = signup(uniqueTenantName("globex"), "gadmin");
+
+		// The globex admin grants bob (whose account lives in bobco) the user role in globex
+		mockMvc.perform(post("/api/admin/tenant-users/add-user")
+				.headers(bearerHeaders(signinToken("gadmin", globex)))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("username", "bob", "tenantId", globex, "roles", List.of("user")))))
+				.andExpect(status().isOk());
+
+		JsonNode home = signin("bob", bobco);
+		JsonNode switched = body(mockMvc.perform(post("/api/auth/switch-tenant")
+				.headers(bearerHeaders(home.get("accessToken").asText()))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("tenantId", globex))))
+				.andExpect(status().isOk()));
+
+		assertEquals(home.get("id").asText(), switched.get("id").asText());
+		assertTrue(switched.get("roles").toString().contains("ROLE_USER"));
+		assertTrue(!switched.get("roles").toString().contains("ROLE_ADMIN"), "bob is admin of bobco only");
+		String globexToken = switched.get("accessToken").asText();
+		assertNotEquals(home.get("accessToken").asText(), globexToken);
+
+		// The switched token carries the assigned roles, not those of bob's own account
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(globexToken)))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/test/admin").headers(bearerHeaders(globexToken)))
+				.andExpect(status().isForbidden());
+
+		// And it can switch back to the tenant of the account
+		mockMvc.perform(post("/api/auth/switch-tenant")
+				.headers(bearerHeaders(globexToken))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("tenantId", bobco))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(home.get("id").asText()));
+	}
+
+	@Test
+	void adminCannotGrantThemselvesRolesInAnotherTenant() throws Exception {
+		String acme = signup(uniqueTenantName("acme"), "mallory");
+		String victim = signup(uniqueTenantName("victim"), "vadmin");
+
+		JsonNode home = signin("mallory", acme);
+		String token = home.get("accessToken").asText();
+		String userId = home.get("id").asText();
+
+		// Neither by adding the account to the other tenant nor by setting its roles there
+		mockMvc.perform(post("/api/admin/tenant-users/add-user")
+				.headers(bearerHeaders(token))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("username", "mallory", "tenantId", victim, "roles", List.of("admin")))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(put("/api/admin/tenant-users/user/" + userId + "/tenant/" + victim)
+				.headers(bearerHeaders(token))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(List.of("superadmin"))))
+				.andExpect(status().isForbidden());
+
+		// So there is no assignment for the switch to exchange
+		mockMvc.perform(post("/api/auth/switch-tenant")
+				.headers(bearerHeaders(token))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("tenantId", victim))))
+				.andExpect(status().isBadRequest());
+
+		// Nor can superadmin be assigned in the own tenant
+		mockMvc.perform(put("/api/admin/tenant-users/user/" + userId + "/tenant/" + acme)
+				.headers(bearerHeaders(token))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(List.of("superadmin"))))
+				.andExpect(status().isOk());
+		String memberships = mockMvc.perform(get("/api/admin/tenant-users/user/" + userId).headers(bearerHeaders(token)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertFalse(memberships.contains("ROLE_SUPER_ADMIN"));
+		assertFalse(memberships.contains(victim));
+	}
+
+	@Test
+	void assignedRolesChangeTheUserTenantsEtag() throws Exception {
+		String home = signup(uniqueTenantName("home"), "carol");
+		String other = signup(uniqueTenantName("other"), "oadmin");
+		String token = signinToken("carol", home);
+
+		String etag = mockMvc.perform(get("/api/auth/user-tenants").headers(bearerHeaders(token)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/api/auth/user-tenants").headers(bearerHeaders(token)).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		mockMvc.perform(post("/api/admin/tenant-users/add-user")
+				.headers(bearerHeaders(signinToken("oadmin", other)))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("username", "carol", "tenantId", other, "roles", List.of("user")))))
+				.andExpect(status().isOk());
+
+		// The stored list is stale now
+		mockMvc.perform(get("/api/auth/user-tenants").headers(bearerHeaders(token)).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(jsonPath("$.length()").value(2));
+	}
+
+	@Test
+	void removedAssignmentStopsAuthorizingTheSwitchedToken() throws Exception {
+		String daveco = signup(uniqueTenantName("daveco"), "dave");
+		String globex = signup(uniqueTenantName("globex"), "gadmin");
+		String adminToken = signinToken("gadmin", globex);
+
+		mockMvc.perform(post("/api/admin/tenant-users/add-user")
+				.headers(bearerHeaders(adminToken))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("username", "dave", "tenantId", globex, "roles", List.of("user")))))
+				.andExpect(status().isOk());
+
+		JsonNode home = signin("dave", daveco);
+		String globexToken = body(mockMvc.perform(post("/api/auth/switch-tenant")
+				.headers(bearerHeaders(home.get("accessToken").asText()))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json(Map.of("tenantId", globex))))
+				.andExpect(status().isOk())).get("accessToken").asText();
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(globexToken)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(delete("/api/admin/tenant-users/user/" + home.get("id").asText() + "/tenant/" + globex)
+				.headers(bearerHeaders(adminToken)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/test/user").headers(bearerHeaders(globexToken)))
+				.andExpect(status().isUnauthorized());
+	}
+}
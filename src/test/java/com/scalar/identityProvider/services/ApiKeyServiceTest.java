@@ -0,0 +1,66 @@
+package com.scalar.identityProvider.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.Tenant;
+import com.scalar.identityProvider.repository.inmemory.InMemoryApiKeyRepository;
+import com.scalar.identityProvider.repository.inmemory.InMemoryTenantRepository;
+
+class ApiKeyServiceTest {
+
+	private final InMemoryTenantRepository tenantRepository = new InMemoryTenantRepository();
+
+	private final InMemoryApiKeyRepository apiKeyRepository = new InMemoryApiKeyRepository();
+
+	private final ResourceVersions resourceVersions = new ResourceVersions();
+
+	private final ApiKeyService service = new ApiKeyService();
+
+	private Tenant tenant;
+
+	@BeforeEach
+	void setup() {
+		ReflectionTestUtils.setField(service, "apiKeyRepository", apiKeyRepository);
+		ReflectionTestUtils.setField(service, "tenantRepository", tenantRepository);
+		ReflectionTestUtils.setField(service, "resourceVersions", resourceVersions);
+		tenant = tenantRepository.save(new Tenant("acme", "acme"));
+	}
+
+	@Test
+	void keysOfADeactivatedTenantStopAuthenticating() {
+		String key = service.create("acme", "integration", EnumSet.of(EmployeeRole.ROLE_USER)).key();
+		service.refresh();
+		assertTrue(service.authenticate(key).isPresent());
+
+		// As done by the teardown on another instance: deactivate and bump the shared version
+		tenant.setActive(false);
+		tenantRepository.save(tenant);
+		resourceVersions.apiKeysChanged();
+		service.refresh();
+
+		assertFalse(service.authenticate(key).isPresent());
+	}
+
+	@Test
+	void keysDeletedElsewhereAreDroppedOnTheNextChange() {
+		String key = service.create("acme", "integration", EnumSet.of(EmployeeRole.ROLE_USER)).key();
+		service.refresh();
+
+		// Deleted straight from the collection, as the teardown does
+		apiKeyRepository.deleteAll();
+		service.refresh();
+		assertTrue(service.authenticate(key).isPresent(), "no reload without a version change");
+
+		resourceVersions.apiKeysChanged();
+		service.refresh();
+		assertFalse(service.authenticate(key).isPresent());
+	}
+}
@@ -0,0 +1,85 @@
+package com.scalar.identityProvider.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.scalar.identityProvider.models.EmployeeRole;
+import com.scalar.identityProvider.models.GlobalRole;
+import com.scalar.identityProvider.models.UserTenantRole;
+import com.scalar.identityProvider.payload.request.AuthorizationCheck;
+import com.scalar.identityProvider.payload.response.AuthorizationDecisionResponse;
+import com.scalar.identityProvider.repository.UserRepository;
+import com.scalar.identityProvider.repository.UserTenantRoleRepository;
+import com.scalar.identityProvider.security.TenantContext;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class AuthorizationDecisionServiceTest {
+
+	private final UserTenantRoleRepository userTenantRoleRepository = mock(UserTenantRoleRepository.class);
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+
+	private final AuthorizationDecisionService service = new AuthorizationDecisionService();
+
+	@BeforeEach
+	void setup() {
+		ReflectionTestUtils.setField(service, "userTenantRoleRepository", userTenantRoleRepository);
+		ReflectionTestUtils.setField(service, "userRepository", userRepository);
+		ReflectionTestUtils.setField(service, "observationRegistry", ObservationRegistry.NOOP);
+		ReflectionTestUtils.setField(service, "cacheTtlMs", 5_000L);
+		ReflectionTestUtils.setField(service, "cacheMaxEntries", 1_000);
+
+		UserTenantRole admin = new UserTenantRole("user1", "tenant-a");
+		admin.getRoles().add(new GlobalRole(EmployeeRole.ROLE_ADMIN, "Administrator"));
+		UserTenantRole adminElsewhere = new UserTenantRole("user1", "tenant-b");
+		adminElsewhere.getRoles().add(new GlobalRole(EmployeeRole.ROLE_ADMIN, "Administrator"));
+		when(userTenantRoleRepository.findByUserIdInAndTenantIdIn(anyCollection(), anyCollection()))
+				.thenReturn(List.of(admin, adminElsewhere));
+		when(userRepository.findByIdInAcrossTenants(anyCollection(), anyCollection())).thenReturn(List.of());
+	}
+
+	@Test
+	void checksOfTheCurrentTenantAreEvaluated() {
+		List<AuthorizationDecisionResponse> decisions = TenantContext.callWhere("tenant-a",
+				() -> service.decide(List.of(new AuthorizationCheck("user1", "tenant-a", "USER_READ"))));
+
+		assertEquals(1, decisions.size());
+		assertTrue(decisions.get(0).isAllowed());
+	}
+
+	@Test
+	void checksOfAnotherTenantAreDeniedWithoutLoadingThem() {
+		List<AuthorizationDecisionResponse> decisions = TenantContext.callWhere("tenant-a",
+				() -> service.decide(List.of(
+						new AuthorizationCheck("user1", "tenant-b", "USER_READ"),
+						new AuthorizationCheck("user1", "tenant-a", "USER_READ"))));
+
+		assertEquals("tenant-b", decisions.get(0).getTenantId());
+		assertFalse(decisions.get(0).isAllowed());
+		assertTrue(decisions.get(1).isAllowed());
+		verify(userTenantRoleRepository).findByUserIdInAndTenantIdIn(Set.of("user1"), Set.of("tenant-a"));
+	}
+
+	@Test
+	void onlyForeignChecksQueryNothing() {
+		List<AuthorizationDecisionResponse> decisions = TenantContext.callWhere("tenant-a",
+				() -> service.decide(List.of(new AuthorizationCheck("user1", "tenant-b", "USER_READ"))));
+
+		assertFalse(decisions.get(0).isAllowed());
+		verifyNoInteractions(userTenantRoleRepository, userRepository);
+	}
+}